@@ -0,0 +1,38 @@
+plugins {
+    java
+    alias(libs.plugins.jmh)
+}
+
+description = "JMH benchmarks for testcontainers-ignition."
+
+repositories {
+    mavenCentral()
+}
+
+dependencies {
+    jmh(project(":"))
+    jmh(libs.slf4j)
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_17
+}
+
+jmh {
+    jmhVersion = libs.versions.jmh
+    resultFormat = "JSON"
+    resultsFile = layout.buildDirectory.file("results/jmh/results.json")
+    fork = 1
+
+    // Forward benchmark settings, e.g. -Pignition.benchmark.image=my-registry/ignition-stub:latest
+    jvmArgsAppend.addAll(
+        providers.gradlePropertiesPrefixedBy("ignition.benchmark.")
+            .map { properties -> properties.map { (key, value) -> "-D$key=$value" } }
+    )
+    jvmArgsAppend.add("-Dignition.benchmark.resources=${rootProject.file("src/test/resources").absolutePath}")
+
+    // Benchmark one or more gateway backups, e.g. -PbenchmarkBackups=/tmp/small.gwbk,/tmp/large.gwbk
+    providers.gradleProperty("benchmarkBackups").orNull?.let { backups ->
+        benchmarkParameters.put("backup", objects.listProperty<String>().value(backups.split(",")))
+    }
+}
@@ -0,0 +1,96 @@
+package com.mussonindustrial.testcontainers.ignition;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.testcontainers.utility.DockerImageName;
+
+/**
+ * Settings shared by the benchmarks, read from {@code ignition.benchmark.*} system properties.
+ */
+final class BenchmarkSettings {
+
+    private static final String DEFAULT_IMAGE = "inductiveautomation/ignition:8.1.43";
+
+    private BenchmarkSettings() {}
+
+    /**
+     * Get the gateway image to benchmark.
+     * Set {@code ignition.benchmark.image} to use a local stand-in image instead of pulling the default.
+     *
+     * @return the gateway image name.
+     */
+    static DockerImageName getImage() {
+        return DockerImageName.parse(System.getProperty("ignition.benchmark.image", DEFAULT_IMAGE))
+                .asCompatibleSubstituteFor("inductiveautomation/ignition");
+    }
+
+    /**
+     * Get the modules for a module set name.
+     *
+     * @param moduleSet a comma separated list of module names, or {@code none}.
+     * @return the modules.
+     */
+    static GatewayModule[] getModules(String moduleSet) {
+        if ("none".equals(moduleSet)) {
+            return new GatewayModule[0];
+        }
+        return Arrays.stream(moduleSet.split(","))
+                .map(String::trim)
+                .map(GatewayModule::valueOf)
+                .toArray(GatewayModule[]::new);
+    }
+
+    /**
+     * Get a gateway backup.
+     *
+     * @param backup the path of the backup, or {@code none}.
+     * @return the backup path, or empty for {@code none}.
+     * @throws FileNotFoundException if the backup doesn't exist.
+     */
+    static Optional<Path> getBackup(String backup) throws FileNotFoundException {
+        if ("none".equals(backup)) {
+            return Optional.empty();
+        }
+        Path path = Path.of(backup);
+        if (!Files.exists(path)) {
+            throw new FileNotFoundException(String.format("gateway backup '%s' does not exist", path));
+        }
+        return Optional.of(path);
+    }
+
+    /**
+     * Get third party modules from the resources directory.
+     * Set {@code ignition.benchmark.resources} to the directory containing {@code .modl} files.
+     *
+     * @param count the number of modules.
+     * @return the module paths.
+     * @throws IllegalStateException if there are fewer modules available than requested.
+     */
+    static Path[] getThirdPartyModules(int count) {
+        if (count == 0) {
+            return new Path[0];
+        }
+
+        Path resources = Path.of(System.getProperty("ignition.benchmark.resources", "src/test/resources"));
+        List<Path> modules;
+        try (Stream<Path> files = Files.list(resources)) {
+            modules = files.filter(file -> file.getFileName().toString().endsWith(".modl"))
+                    .sorted()
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new IllegalStateException(String.format("Unable to list modules in '%s'", resources), e);
+        }
+
+        if (modules.size() < count) {
+            throw new IllegalStateException(String.format(
+                    "%d third party modules requested, but only %d are available in '%s'",
+                    count, modules.size(), resources));
+        }
+        return modules.subList(0, count).toArray(Path[]::new);
+    }
+}
@@ -0,0 +1,66 @@
+package com.mussonindustrial.testcontainers.ignition;
+
+import java.io.FileNotFoundException;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures the cost of configuring an {@link IgnitionContainer}, without creating or starting it.
+ *
+ * <p>No image is pulled, so these benchmarks can run against a local stand-in image set with
+ * {@code -Pignition.benchmark.image=<image>}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Thread)
+public class ConfigureBenchmark {
+
+    @Param({"STANDARD", "EDGE"})
+    public GatewayEdition edition;
+
+    @Param({"none", "OPC_UA,PERSPECTIVE,VISION"})
+    public String modules;
+
+    @Param({"none"})
+    public String backup;
+
+    @Param({"0", "2"})
+    public int thirdPartyModules;
+
+    private IgnitionContainer configured;
+
+    @Setup(Level.Trial)
+    public void createConfiguredContainer() throws FileNotFoundException {
+        configured = newContainer();
+    }
+
+    @Benchmark
+    public IgnitionContainer configure() throws FileNotFoundException {
+        IgnitionContainer container = newContainer();
+        container.configure();
+        return container;
+    }
+
+    @Benchmark
+    public String configurationFingerprint() {
+        return configured.getConfigurationFingerprint();
+    }
+
+    private IgnitionContainer newContainer() throws FileNotFoundException {
+        IgnitionContainer container = new IgnitionContainer(BenchmarkSettings.getImage())
+                .withEdition(edition)
+                .withModules(BenchmarkSettings.getModules(modules))
+                .withThirdPartyModules(BenchmarkSettings.getThirdPartyModules(thirdPartyModules))
+                .acceptLicense();
+
+        Optional<Path> gatewayBackup = BenchmarkSettings.getBackup(backup);
+        if (gatewayBackup.isPresent()) {
+            container.withGatewayBackup(gatewayBackup.get());
+        }
+        return container;
+    }
+}
@@ -0,0 +1,60 @@
+package com.mussonindustrial.testcontainers.ignition;
+
+import java.io.FileNotFoundException;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures the time from {@link IgnitionContainer#start()} until the gateway is ready.
+ *
+ * <p>Each invocation creates, starts and stops a new container, so only the start is measured. Pass
+ * {@code -PbenchmarkBackups=<path>[,<path>...]} to compare gateway backups of different sizes.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@State(Scope.Thread)
+public class StartupBenchmark {
+
+    @Param({"STANDARD", "EDGE", "MAKER"})
+    public GatewayEdition edition;
+
+    @Param({"none", "OPC_UA", "OPC_UA,PERSPECTIVE,VISION"})
+    public String modules;
+
+    @Param({"none"})
+    public String backup;
+
+    @Param({"0", "1", "2"})
+    public int thirdPartyModules;
+
+    private IgnitionContainer container;
+
+    @Setup(Level.Invocation)
+    public void createContainer() throws FileNotFoundException {
+        container = new IgnitionContainer(BenchmarkSettings.getImage())
+                .withEdition(edition)
+                .withModules(BenchmarkSettings.getModules(modules))
+                .withThirdPartyModules(BenchmarkSettings.getThirdPartyModules(thirdPartyModules))
+                .acceptLicense();
+
+        Optional<Path> gatewayBackup = BenchmarkSettings.getBackup(backup);
+        if (gatewayBackup.isPresent()) {
+            container.withGatewayBackup(gatewayBackup.get());
+        }
+    }
+
+    @Benchmark
+    public IgnitionContainer timeToReady() {
+        container.start();
+        return container;
+    }
+
+    @TearDown(Level.Invocation)
+    public void stopContainer() {
+        container.stop();
+    }
+}
@@ -18,6 +18,9 @@ repositories {
 
 dependencies {
     api(libs.testcontainers)
+    implementation(libs.hdrhistogram)
+    compileOnly(libs.eclipse.milo)
+    compileOnly(libs.junit.api)
 
     testRuntimeOnly(libs.junit.platform)
     testImplementation(libs.junit.jupiter)
@@ -0,0 +1,144 @@
+package com.mussonindustrial.testcontainers.ignition;
+
+import com.github.dockerjava.api.DockerClient;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReference;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.archivers.tar.TarConstants;
+
+/**
+ * Stages host files destined for a container and uploads them as a single streamed tar archive.
+ *
+ * <p>Files are streamed from disk while the archive is uploaded, so they are never buffered in memory.
+ * Files with identical content are only uploaded once; later copies are written as hard links to the first.
+ */
+final class ContainerFileStager {
+
+    private static final int PIPE_SIZE = 64 * 1024;
+
+    private static final int FILE_MODE = 0100644;
+
+    private final Map<String, Path> files = new TreeMap<>();
+
+    /**
+     * Stage a host file to be copied into the container.
+     *
+     * @param containerPath the absolute path of the file in the container.
+     * @param hostPath the path of the file on the host.
+     */
+    void add(String containerPath, Path hostPath) {
+        files.put(containerPath, hostPath);
+    }
+
+    /** Remove all staged files. */
+    void clear() {
+        files.clear();
+    }
+
+    /**
+     * Check if any files are staged.
+     *
+     * @return true if no files are staged.
+     */
+    boolean isEmpty() {
+        return files.isEmpty();
+    }
+
+    /**
+     * Upload all staged files to a container in a single archive.
+     *
+     * @param dockerClient the Docker client to use.
+     * @param containerId the ID of the container to upload to.
+     */
+    void upload(DockerClient dockerClient, String containerId) {
+        if (files.isEmpty()) {
+            return;
+        }
+
+        AtomicReference<IOException> writeFailure = new AtomicReference<>();
+        try (PipedInputStream in = new PipedInputStream(PIPE_SIZE)) {
+            PipedOutputStream out = new PipedOutputStream(in);
+            Thread writer = new Thread(
+                    () -> {
+                        try (out) {
+                            writeArchive(out);
+                        } catch (IOException e) {
+                            writeFailure.set(e);
+                        }
+                    },
+                    "ignition-file-stager");
+            writer.setDaemon(true);
+            writer.start();
+
+            try {
+                dockerClient
+                        .copyArchiveToContainerCmd(containerId)
+                        .withTarInputStream(in)
+                        .withRemotePath("/")
+                        .exec();
+            } finally {
+                // Unblock the writer if the upload failed part way through.
+                in.close();
+                writer.join();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to upload files to container", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while uploading files to container", e);
+        }
+
+        if (writeFailure.get() != null) {
+            throw new UncheckedIOException("Unable to archive files for container", writeFailure.get());
+        }
+    }
+
+    /**
+     * Write all staged files to a tar archive.
+     *
+     * @param out the stream to write the archive to. Not closed.
+     * @throws IOException if a file cannot be read or the archive cannot be written.
+     */
+    void writeArchive(OutputStream out) throws IOException {
+        TarArchiveOutputStream tar = new TarArchiveOutputStream(out);
+        tar.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+        tar.setBigNumberMode(TarArchiveOutputStream.BIGNUMBER_POSIX);
+
+        Map<String, String> entriesByHash = new HashMap<>();
+        for (Map.Entry<String, Path> file : files.entrySet()) {
+            String entryName = file.getKey().replaceFirst("^/+", "");
+            Path hostPath = file.getValue();
+            String hash = ContentHash.of(hostPath);
+
+            String linkTarget = entriesByHash.putIfAbsent(hash, entryName);
+            if (linkTarget != null) {
+                TarArchiveEntry link = new TarArchiveEntry(entryName, TarConstants.LF_LINK);
+                link.setLinkName(linkTarget);
+                link.setMode(FILE_MODE);
+                tar.putArchiveEntry(link);
+                tar.closeArchiveEntry();
+                continue;
+            }
+
+            TarArchiveEntry entry = new TarArchiveEntry(entryName);
+            entry.setSize(Files.size(hostPath));
+            entry.setMode(FILE_MODE);
+            entry.setModTime(Files.getLastModifiedTime(hostPath).toMillis());
+            tar.putArchiveEntry(entry);
+            Files.copy(hostPath, tar);
+            tar.closeArchiveEntry();
+        }
+
+        tar.finish();
+    }
+}
@@ -0,0 +1,397 @@
+package com.mussonindustrial.testcontainers.ignition;
+
+import com.github.dockerjava.api.async.ResultCallback;
+import com.github.dockerjava.api.model.BlkioStatEntry;
+import com.github.dockerjava.api.model.BlkioStatsConfig;
+import com.github.dockerjava.api.model.CpuStatsConfig;
+import com.github.dockerjava.api.model.MemoryStatsConfig;
+import com.github.dockerjava.api.model.StatisticNetworksConfig;
+import com.github.dockerjava.api.model.Statistics;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Collects CPU, memory, network and block I/O usage of a gateway container from the Docker stats stream.
+ *
+ * <p>Docker sends one sample per second. Samples are stored in a fixed-size ring buffer of primitive columns, and
+ * folded into totals that cover everything since the last {@link #reset()}, so budgets can be checked over a whole
+ * test even after the buffer has wrapped.
+ *
+ * <pre>{@code
+ * ContainerStatsCollector stats = ignition.getContainerStats();
+ * stats.reset();
+ * // ... exercise the gateway
+ * stats.assertAverageCpuBelow(50);
+ * stats.assertMaxMemoryBelow(1024L * 1024 * 1024);
+ * }</pre>
+ *
+ * @see IgnitionContainer#withContainerStats()
+ */
+public class ContainerStatsCollector implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContainerStatsCollector.class);
+
+    private final int capacity;
+
+    private final long[] timestamps;
+
+    private final float[] cpuPercent;
+
+    private final long[] memoryBytes;
+
+    private final long[] networkRxBytes;
+
+    private final long[] networkTxBytes;
+
+    private final long[] blockReadBytes;
+
+    private final long[] blockWriteBytes;
+
+    private int next = 0;
+
+    private int size = 0;
+
+    private long sampleCount = 0;
+
+    private double cpuPercentSum = 0;
+
+    private double cpuPercentMax = 0;
+
+    private long memoryBytesMax = 0;
+
+    /** The cumulative network and block I/O counters of the first sample since the last reset. */
+    private long[] baseline;
+
+    private ResultCallback.Adapter<Statistics> callback;
+
+    ContainerStatsCollector(int capacity) {
+        this.capacity = capacity;
+        this.timestamps = new long[capacity];
+        this.cpuPercent = new float[capacity];
+        this.memoryBytes = new long[capacity];
+        this.networkRxBytes = new long[capacity];
+        this.networkTxBytes = new long[capacity];
+        this.blockReadBytes = new long[capacity];
+        this.blockWriteBytes = new long[capacity];
+    }
+
+    /**
+     * Subscribe to the stats stream of a running container.
+     *
+     * @param container the running container.
+     */
+    synchronized void start(IgnitionContainer container) {
+        callback = container.getDockerClient()
+                .statsCmd(container.getContainerId())
+                .exec(new ResultCallback.Adapter<>() {
+                    @Override
+                    public void onNext(Statistics statistics) {
+                        accept(statistics);
+                    }
+                });
+    }
+
+    /**
+     * Unsubscribe from the stats stream. The collected samples remain available.
+     */
+    @Override
+    public synchronized void close() {
+        if (callback != null) {
+            try {
+                callback.close();
+            } catch (IOException e) {
+                logger.debug("Unable to close container stats stream.", e);
+            }
+            callback = null;
+        }
+    }
+
+    /**
+     * Clear the collected samples and totals, for example at the start of each test.
+     */
+    public synchronized void reset() {
+        next = 0;
+        size = 0;
+        sampleCount = 0;
+        cpuPercentSum = 0;
+        cpuPercentMax = 0;
+        memoryBytesMax = 0;
+        baseline = null;
+    }
+
+    /**
+     * Get the number of samples collected since the last reset.
+     *
+     * @return the number of samples.
+     */
+    public synchronized long getSampleCount() {
+        return sampleCount;
+    }
+
+    /**
+     * Get the average CPU usage since the last reset.
+     *
+     * @return the average CPU usage, in percent of one CPU.
+     */
+    public synchronized double getAverageCpuPercent() {
+        return sampleCount == 0 ? 0 : cpuPercentSum / sampleCount;
+    }
+
+    /**
+     * Get the highest CPU usage since the last reset.
+     *
+     * @return the highest CPU usage, in percent of one CPU.
+     */
+    public synchronized double getMaxCpuPercent() {
+        return cpuPercentMax;
+    }
+
+    /**
+     * Get the highest memory usage since the last reset.
+     * Memory usage excludes the page cache, like {@code docker stats}.
+     *
+     * @return the highest memory usage, in bytes.
+     */
+    public synchronized long getMaxMemoryBytes() {
+        return memoryBytesMax;
+    }
+
+    /**
+     * Get the network bytes received and sent since the last reset.
+     *
+     * @return the total network bytes.
+     */
+    public synchronized long getNetworkBytes() {
+        return delta(networkRxBytes, 0) + delta(networkTxBytes, 1);
+    }
+
+    /**
+     * Get the block device bytes read and written since the last reset.
+     *
+     * @return the total block I/O bytes.
+     */
+    public synchronized long getBlockIoBytes() {
+        return delta(blockReadBytes, 2) + delta(blockWriteBytes, 3);
+    }
+
+    /**
+     * Assert that the average CPU usage since the last reset is below a budget.
+     *
+     * @param percent the CPU budget, in percent of one CPU.
+     * @throws AssertionError if the budget was exceeded, or there are no samples.
+     */
+    public void assertAverageCpuBelow(double percent) {
+        assertBelow("average CPU", getAverageCpuPercent(), percent, "%");
+    }
+
+    /**
+     * Assert that the CPU usage of every sample since the last reset is below a budget.
+     *
+     * @param percent the CPU budget, in percent of one CPU.
+     * @throws AssertionError if the budget was exceeded, or there are no samples.
+     */
+    public void assertMaxCpuBelow(double percent) {
+        assertBelow("peak CPU", getMaxCpuPercent(), percent, "%");
+    }
+
+    /**
+     * Assert that the memory usage of every sample since the last reset is below a budget.
+     *
+     * @param bytes the memory budget, in bytes.
+     * @throws AssertionError if the budget was exceeded, or there are no samples.
+     */
+    public void assertMaxMemoryBelow(long bytes) {
+        assertBelow("peak memory", getMaxMemoryBytes(), bytes, " bytes");
+    }
+
+    /**
+     * Assert that network traffic since the last reset is below a budget.
+     *
+     * @param bytes the network budget, in bytes received and sent.
+     * @throws AssertionError if the budget was exceeded, or there are no samples.
+     */
+    public void assertNetworkBytesBelow(long bytes) {
+        assertBelow("network I/O", getNetworkBytes(), bytes, " bytes");
+    }
+
+    /**
+     * Assert that block device I/O since the last reset is below a budget.
+     *
+     * @param bytes the block I/O budget, in bytes read and written.
+     * @throws AssertionError if the budget was exceeded, or there are no samples.
+     */
+    public void assertBlockIoBytesBelow(long bytes) {
+        assertBelow("block I/O", getBlockIoBytes(), bytes, " bytes");
+    }
+
+    /**
+     * Write the samples in the buffer as CSV, oldest first. Network and block I/O columns are cumulative since the
+     * container started.
+     *
+     * @param path the file to write.
+     * @throws IOException if the file can't be written.
+     */
+    public void writeCsv(Path path) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writer.write("timestamp,cpuPercent,memoryBytes,networkRxBytes,networkTxBytes,blockReadBytes,"
+                    + "blockWriteBytes\n");
+            synchronized (this) {
+                for (int i = 0; i < size; i++) {
+                    int index = (next - size + i + capacity) % capacity;
+                    writer.write(String.format(
+                            Locale.ROOT,
+                            "%s,%.2f,%d,%d,%d,%d,%d%n",
+                            Instant.ofEpochMilli(timestamps[index]),
+                            cpuPercent[index],
+                            memoryBytes[index],
+                            networkRxBytes[index],
+                            networkTxBytes[index],
+                            blockReadBytes[index],
+                            blockWriteBytes[index]));
+                }
+            }
+        }
+    }
+
+    /**
+     * Format the totals since the last reset as human-readable text.
+     *
+     * @return the stats summary.
+     */
+    public synchronized String toSummary() {
+        return String.format(
+                Locale.ROOT,
+                "Container stats over %d samples: CPU avg %.1f%% max %.1f%%, memory max %d MB, network %d KB, "
+                        + "block I/O %d KB",
+                sampleCount,
+                getAverageCpuPercent(),
+                cpuPercentMax,
+                memoryBytesMax >> 20,
+                getNetworkBytes() >> 10,
+                getBlockIoBytes() >> 10);
+    }
+
+    @Override
+    public String toString() {
+        return toSummary();
+    }
+
+    synchronized void accept(Statistics statistics) {
+        if (statistics.getMemoryStats() == null || statistics.getMemoryStats().getUsage() == null) {
+            // The container has stopped.
+            return;
+        }
+
+        float cpu = (float) getCpuPercent(statistics);
+        long memory = getMemoryBytes(statistics.getMemoryStats());
+        long[] network = getNetworkBytes(statistics.getNetworks());
+        long[] block = getBlockBytes(statistics.getBlkioStats());
+
+        timestamps[next] = System.currentTimeMillis();
+        cpuPercent[next] = cpu;
+        memoryBytes[next] = memory;
+        networkRxBytes[next] = network[0];
+        networkTxBytes[next] = network[1];
+        blockReadBytes[next] = block[0];
+        blockWriteBytes[next] = block[1];
+        next = (next + 1) % capacity;
+        size = Math.min(size + 1, capacity);
+
+        if (baseline == null) {
+            baseline = new long[] {network[0], network[1], block[0], block[1]};
+        }
+        sampleCount++;
+        cpuPercentSum += cpu;
+        cpuPercentMax = Math.max(cpuPercentMax, cpu);
+        memoryBytesMax = Math.max(memoryBytesMax, memory);
+    }
+
+    private long delta(long[] column, int baselineIndex) {
+        if (size == 0) {
+            return 0;
+        }
+        return Math.max(0, column[(next - 1 + capacity) % capacity] - baseline[baselineIndex]);
+    }
+
+    private void assertBelow(String metric, double value, double budget, String unit) {
+        if (getSampleCount() == 0) {
+            throw new AssertionError(String.format("No container stats to check %s against", metric));
+        }
+        if (value >= budget) {
+            throw new AssertionError(String.format(
+                    Locale.ROOT,
+                    "Gateway %s was %.1f%s, expected below %.1f%s%n%s",
+                    metric,
+                    value,
+                    unit,
+                    budget,
+                    unit,
+                    toSummary()));
+        }
+    }
+
+    private static double getCpuPercent(Statistics statistics) {
+        CpuStatsConfig cpu = statistics.getCpuStats();
+        CpuStatsConfig previous = statistics.getPreCpuStats();
+        if (cpu == null || previous == null || cpu.getCpuUsage() == null || previous.getCpuUsage() == null) {
+            return 0;
+        }
+
+        long cpuDelta = orZero(cpu.getCpuUsage().getTotalUsage()) - orZero(previous.getCpuUsage().getTotalUsage());
+        long systemDelta = orZero(cpu.getSystemCpuUsage()) - orZero(previous.getSystemCpuUsage());
+        if (cpuDelta <= 0 || systemDelta <= 0) {
+            return 0;
+        }
+        long onlineCpus = cpu.getOnlineCpus() != null ? cpu.getOnlineCpus() : 1;
+        return (double) cpuDelta / systemDelta * onlineCpus * 100;
+    }
+
+    private static long getMemoryBytes(MemoryStatsConfig memory) {
+        long usage = memory.getUsage();
+        if (memory.getStats() == null) {
+            return usage;
+        }
+        // cgroup v2 reports inactive_file, cgroup v1 reports cache.
+        Long cache = memory.getStats().getInactiveFile() != null
+                ? memory.getStats().getInactiveFile()
+                : memory.getStats().getCache();
+        return cache != null && cache < usage ? usage - cache : usage;
+    }
+
+    private static long[] getNetworkBytes(Map<String, StatisticNetworksConfig> networks) {
+        long[] bytes = new long[2];
+        if (networks != null) {
+            for (StatisticNetworksConfig network : networks.values()) {
+                bytes[0] += orZero(network.getRxBytes());
+                bytes[1] += orZero(network.getTxBytes());
+            }
+        }
+        return bytes;
+    }
+
+    private static long[] getBlockBytes(BlkioStatsConfig blkio) {
+        long[] bytes = new long[2];
+        if (blkio != null && blkio.getIoServiceBytesRecursive() != null) {
+            for (BlkioStatEntry entry : blkio.getIoServiceBytesRecursive()) {
+                if ("read".equalsIgnoreCase(entry.getOp())) bytes[0] += orZero(entry.getValue());
+                else if ("write".equalsIgnoreCase(entry.getOp())) bytes[1] += orZero(entry.getValue());
+            }
+        }
+        return bytes;
+    }
+
+    private static long orZero(Long value) {
+        return value == null ? 0 : value;
+    }
+}
@@ -0,0 +1,161 @@
+package com.mussonindustrial.testcontainers.ignition;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * SHA-256 content hashing for files and configuration values.
+ *
+ * <p>File hashes are cached by path, size and modification time so large modules and backups are
+ * only read once per JVM.
+ */
+final class ContentHash {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final Map<Path, CachedHash> FILE_HASHES = new ConcurrentHashMap<>();
+
+    private ContentHash() {}
+
+    /**
+     * Create a new SHA-256 message digest.
+     *
+     * @return a new SHA-256 message digest.
+     */
+    static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Hash the contents of a file, streaming it from disk.
+     *
+     * @param path the file to hash.
+     * @return the hex encoded SHA-256 hash of the file contents.
+     * @throws IOException if the file cannot be read.
+     */
+    static String of(Path path) throws IOException {
+        Path key = path.toAbsolutePath().normalize();
+        BasicFileAttributes attributes = Files.readAttributes(key, BasicFileAttributes.class);
+        CachedHash cached = FILE_HASHES.get(key);
+        if (cached != null && cached.matches(attributes)) {
+            return cached.hash;
+        }
+
+        MessageDigest digest = newDigest();
+        try (InputStream in = Files.newInputStream(key)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+
+        String hash = toHex(digest.digest());
+        FILE_HASHES.put(key, new CachedHash(attributes, hash));
+        return hash;
+    }
+
+    /**
+     * Hash a string value.
+     *
+     * @param value the value to hash.
+     * @return the hex encoded SHA-256 hash of the UTF-8 encoded value.
+     */
+    static String of(String value) {
+        return toHex(newDigest().digest(value.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Encode a digest as lowercase hex.
+     *
+     * @param digest the digest bytes.
+     * @return the hex encoded digest.
+     */
+    static String toHex(byte[] digest) {
+        return HexFormat.of().formatHex(digest);
+    }
+
+    /**
+     * Create a builder that hashes an ordered sequence of key/value entries.
+     *
+     * @return a new {@link Builder}.
+     */
+    static Builder builder() {
+        return new Builder();
+    }
+
+    /** Builds a single hash from an ordered sequence of key/value entries. */
+    static final class Builder {
+
+        private final MessageDigest digest = newDigest();
+
+        private Builder() {}
+
+        /**
+         * Add an entry. {@code null} values are hashed distinctly from empty strings.
+         *
+         * @param key the entry key.
+         * @param value the entry value.
+         * @return this {@link Builder} for chaining purposes.
+         */
+        Builder put(String key, Object value) {
+            String line = key + (value == null ? "\u0000" : "=" + value) + "\n";
+            digest.update(line.getBytes(StandardCharsets.UTF_8));
+            return this;
+        }
+
+        /**
+         * Add an entry whose value is the content hash of a file.
+         *
+         * @param key the entry key.
+         * @param path the file to hash.
+         * @return this {@link Builder} for chaining purposes.
+         */
+        Builder putFile(String key, Path path) {
+            try {
+                return put(key, path == null ? null : of(path));
+            } catch (IOException e) {
+                throw new UncheckedIOException(String.format("unable to hash '%s'", path), e);
+            }
+        }
+
+        /**
+         * Complete the hash.
+         *
+         * @return the hex encoded SHA-256 hash of all entries.
+         */
+        String build() {
+            return toHex(digest.digest());
+        }
+    }
+
+    private static final class CachedHash {
+        private final long size;
+        private final long lastModified;
+        private final String hash;
+
+        private CachedHash(BasicFileAttributes attributes, String hash) {
+            this.size = attributes.size();
+            this.lastModified = attributes.lastModifiedTime().toMillis();
+            this.hash = hash;
+        }
+
+        private boolean matches(BasicFileAttributes attributes) {
+            return size == attributes.size() && lastModified == attributes.lastModifiedTime().toMillis();
+        }
+    }
+}
@@ -0,0 +1,362 @@
+package com.mussonindustrial.testcontainers.ignition;
+
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.exception.NotFoundException;
+import com.github.dockerjava.api.model.HostConfig;
+import com.github.dockerjava.api.model.Mount;
+import com.github.dockerjava.api.model.MountType;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.testcontainers.DockerClientFactory;
+
+/**
+ * Where the gateway data directory ({@code data/}) is stored. The gateway writes its internal database, logs and
+ * restored projects there, so this decides the cost of most of the gateway's disk I/O.
+ *
+ * <p>Every strategy other than {@link #DEFAULT} mounts a local Docker volume over the data directory. Docker seeds
+ * an empty volume with the data directory of the image when the container is created, so the gateway starts from
+ * the same files as it would with the default. A tmpfs volume is only mounted while the container runs and loses
+ * that copy, so it is seeded by the container entrypoint instead, from a volume holding the data directory of the
+ * image.
+ *
+ * <p>The strategy is recorded in the {@link StartupReport}, so startup and restore times can be compared between
+ * strategies.
+ */
+public final class DataDirectoryStrategy {
+
+    /** The anonymous volume declared by the image, stored with the rest of Docker's data on the host disk. */
+    public static final DataDirectoryStrategy DEFAULT = new DataDirectoryStrategy(Type.DEFAULT, null, null, 0, null);
+
+    /** Image seed volumes already seeded by this JVM. */
+    private static final Set<String> SEEDED_IMAGE_VOLUMES = ConcurrentHashMap.newKeySet();
+
+    private final Type type;
+
+    private final String volumeName;
+
+    private final String snapshotVolume;
+
+    private final long sizeMegabytes;
+
+    private final Path hostPath;
+
+    private DataDirectoryStrategy(
+            Type type, String volumeName, String snapshotVolume, long sizeMegabytes, Path hostPath) {
+        this.type = type;
+        this.volumeName = volumeName;
+        this.snapshotVolume = snapshotVolume;
+        this.sizeMegabytes = sizeMegabytes;
+        this.hostPath = hostPath;
+    }
+
+    /**
+     * Keep the data directory in memory. Nothing is written to disk and the data is discarded with the container,
+     * which suits throwaway test gateways.
+     *
+     * <p>The tmpfs size is unlimited (up to half of the host memory). Its pages are charged to the container memory
+     * limit, so leave room for the data directory when using a {@link ResourceProfile}.
+     *
+     * @return the strategy.
+     */
+    public static DataDirectoryStrategy tmpfs() {
+        return new DataDirectoryStrategy(Type.TMPFS, null, null, 0, null);
+    }
+
+    /**
+     * Keep the data directory in memory, limited to a size. Writes beyond the size fail, so size it for the
+     * gateway backup, its projects and logs.
+     *
+     * @param sizeMegabytes the maximum size of the data directory, in megabytes.
+     * @return the strategy.
+     * @see #tmpfs()
+     */
+    public static DataDirectoryStrategy tmpfs(long sizeMegabytes) {
+        if (sizeMegabytes <= 0) {
+            throw new IllegalArgumentException("sizeMegabytes must be greater than 0");
+        }
+        return new DataDirectoryStrategy(Type.TMPFS, null, null, sizeMegabytes, null);
+    }
+
+    /**
+     * Keep the data directory in a named Docker volume that outlives the container.
+     *
+     * <p>The volume is seeded from the image the first time it is used. Later containers start from the data the
+     * previous container left behind, including with the gateway image cache, whose snapshot is only copied into
+     * a volume that hasn't been seeded yet. Only one running container may use the volume at a time.
+     *
+     * @param name the volume name.
+     * @return the strategy.
+     */
+    public static DataDirectoryStrategy volume(String name) {
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("name must not be blank");
+        }
+        return new DataDirectoryStrategy(Type.VOLUME, name, null, 0, null);
+    }
+
+    /**
+     * Keep the data directory in a named Docker volume that outlives the container, seeded from a snapshot.
+     *
+     * <p>The snapshot is another volume holding a gateway data directory, for example one left behind by a container
+     * using {@link #volume(String)}. It is copied into the volume instead of the data directory of the image the
+     * first time the volume is used, after which the volume behaves as with {@link #volume(String)}. The snapshot is
+     * mounted read-only, so one snapshot can seed any number of volumes.
+     *
+     * @param name the volume name.
+     * @param snapshotVolume the name of the volume to seed the volume from.
+     * @return the strategy.
+     */
+    public static DataDirectoryStrategy volume(String name, String snapshotVolume) {
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("name must not be blank");
+        }
+        if (snapshotVolume == null || snapshotVolume.isBlank()) {
+            throw new IllegalArgumentException("snapshotVolume must not be blank");
+        }
+        if (name.equals(snapshotVolume)) {
+            throw new IllegalArgumentException("snapshotVolume must not be the volume itself");
+        }
+        return new DataDirectoryStrategy(Type.VOLUME, name, snapshotVolume, 0, null);
+    }
+
+    /**
+     * Keep the data directory in a directory on the host, for example a RAM disk or a fast local disk, or to
+     * inspect the gateway files after a test.
+     *
+     * <p>An empty directory is seeded from the image, otherwise the gateway starts from the files already in the
+     * directory. The files are owned by the gateway user of the image, not the user running the tests. Requires
+     * the Docker daemon to run on the same host as the tests.
+     *
+     * @param hostPath the host directory, created if it doesn't exist.
+     * @return the strategy.
+     */
+    public static DataDirectoryStrategy bind(Path hostPath) {
+        if (hostPath == null) {
+            throw new IllegalArgumentException("hostPath must not be null");
+        }
+        return new DataDirectoryStrategy(Type.BIND, null, null, 0, hostPath.toAbsolutePath());
+    }
+
+    /**
+     * Get the type of storage used for the data directory.
+     *
+     * @return the storage type.
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Check if the data directory is kept after the container is removed.
+     *
+     * @return true for named volumes and host directories.
+     */
+    public boolean isPersistent() {
+        return type == Type.VOLUME || type == Type.BIND;
+    }
+
+    /**
+     * Create the volume to mount over the data directory, unless it already exists.
+     *
+     * @param dockerClient the Docker client.
+     * @param name the name of a tmpfs or host directory volume, ignored for named volumes.
+     * @param reusable true if the volume belongs to a reusable container, so the resource reaper leaves it alone.
+     * @return the volume name, or null to keep the image volume.
+     */
+    String createVolume(DockerClient dockerClient, String name, boolean reusable) {
+        if (type == Type.DEFAULT) {
+            return null;
+        }
+
+        if (type == Type.VOLUME) {
+            if (!volumeExists(dockerClient, volumeName)) {
+                dockerClient.createVolumeCmd().withName(volumeName).exec();
+            }
+            return volumeName;
+        }
+
+        if (volumeExists(dockerClient, name)) {
+            return name;
+        }
+
+        Map<String, String> options = new HashMap<>();
+        if (type == Type.TMPFS) {
+            options.put("type", "tmpfs");
+            options.put("device", "tmpfs");
+            if (sizeMegabytes > 0) {
+                options.put("o", "size=" + sizeMegabytes + "m");
+            }
+        } else {
+            try {
+                Files.createDirectories(hostPath);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to create data directory " + hostPath, e);
+            }
+            options.put("type", "none");
+            options.put("o", "bind");
+            options.put("device", hostPath.toString());
+        }
+
+        // Labelled with the session, so the resource reaper removes the volume if the container isn't stopped.
+        // A reusable container outlives the session, and so does its volume.
+        return dockerClient
+                .createVolumeCmd()
+                .withName(name)
+                .withDriver("local")
+                .withDriverOpts(options)
+                .withLabels(reusable ? getPersistentLabels() : DockerClientFactory.DEFAULT_LABELS)
+                .exec()
+                .getName();
+    }
+
+    /**
+     * Get the volume to seed the data directory from in the container entrypoint, for volumes that Docker doesn't
+     * seed from the image.
+     *
+     * @param dockerClient the Docker client.
+     * @param image the image to seed a tmpfs volume from, or null if it is seeded from the gateway image cache.
+     * @return the seed volume name, or null if the data directory is seeded by Docker.
+     */
+    String getSeedVolume(DockerClient dockerClient, String image) {
+        if (snapshotVolume != null) {
+            if (!volumeExists(dockerClient, snapshotVolume)) {
+                throw new IllegalStateException(
+                        String.format("Snapshot volume '%s' for data directory does not exist", snapshotVolume));
+            }
+            return snapshotVolume;
+        }
+        if (type == Type.TMPFS && image != null) {
+            return createImageSeedVolume(dockerClient, image);
+        }
+        return null;
+    }
+
+    /**
+     * Get a volume holding the data directory of an image. The volume is kept for later test runs.
+     */
+    private static String createImageSeedVolume(DockerClient dockerClient, String image) {
+        String imageId = dockerClient.inspectImageCmd(image).exec().getId();
+        String name = "ignition-data-seed-" + ContentHash.of(imageId).substring(0, 16);
+        if (SEEDED_IMAGE_VOLUMES.contains(name)) {
+            return name;
+        }
+
+        synchronized (SEEDED_IMAGE_VOLUMES) {
+            if (SEEDED_IMAGE_VOLUMES.contains(name)) {
+                return name;
+            }
+            if (!volumeExists(dockerClient, name)) {
+                dockerClient
+                        .createVolumeCmd()
+                        .withName(name)
+                        .withLabels(getPersistentLabels())
+                        .exec();
+            }
+
+            // Docker copies the data directory of the image into the volume if it is still empty. The volume is
+            // mounted on every first use in a JVM, so a volume left empty by an earlier run is seeded as well.
+            String containerId = dockerClient
+                    .createContainerCmd(imageId)
+                    .withEntrypoint("true")
+                    .withLabels(DockerClientFactory.DEFAULT_LABELS)
+                    .withHostConfig(HostConfig.newHostConfig()
+                            .withMounts(List.of(new Mount()
+                                    .withType(MountType.VOLUME)
+                                    .withSource(name)
+                                    .withTarget(IgnitionContainer.DATA_DIR))))
+                    .exec()
+                    .getId();
+            try {
+                dockerClient.startContainerCmd(containerId).exec();
+                dockerClient.waitContainerCmd(containerId).start().awaitStatusCode();
+            } finally {
+                dockerClient.removeContainerCmd(containerId).withForce(true).exec();
+            }
+
+            SEEDED_IMAGE_VOLUMES.add(name);
+            return name;
+        }
+    }
+
+    private static boolean volumeExists(DockerClient dockerClient, String name) {
+        try {
+            dockerClient.inspectVolumeCmd(name).exec();
+            return true;
+        } catch (NotFoundException e) {
+            return false;
+        }
+    }
+
+    /** Testcontainers labels without the session, so the volume outlives the test run. */
+    private static Map<String, String> getPersistentLabels() {
+        Map<String, String> labels = new HashMap<>(DockerClientFactory.DEFAULT_LABELS);
+        labels.remove(DockerClientFactory.TESTCONTAINERS_SESSION_ID_LABEL);
+        return labels;
+    }
+
+    /**
+     * Remove a volume created by {@link #createVolume(DockerClient, String, boolean)} once its container is removed.
+     * Named volumes are kept. Removing a host directory volume leaves the directory and its files in place.
+     *
+     * @param dockerClient the Docker client.
+     * @param volume the volume name.
+     */
+    void removeVolume(DockerClient dockerClient, String volume) {
+        if (volume == null || type == Type.VOLUME) {
+            return;
+        }
+        try {
+            dockerClient.removeVolumeCmd(volume).exec();
+        } catch (NotFoundException e) {
+            // Already removed.
+        }
+    }
+
+    @Override
+    public String toString() {
+        switch (type) {
+            case TMPFS:
+                return sizeMegabytes > 0 ? String.format("tmpfs(size=%dMB)", sizeMegabytes) : "tmpfs";
+            case VOLUME:
+                return snapshotVolume != null
+                        ? String.format("volume(%s, snapshot=%s)", volumeName, snapshotVolume)
+                        : String.format("volume(%s)", volumeName);
+            case BIND:
+                return String.format("bind(%s)", hostPath);
+            default:
+                return type.toString();
+        }
+    }
+
+    /** Storage types for the gateway data directory. */
+    public enum Type {
+        /** The anonymous volume declared by the image. */
+        DEFAULT("default"),
+
+        /** A volume in memory. */
+        TMPFS("tmpfs"),
+
+        /** A named volume. */
+        VOLUME("volume"),
+
+        /** A host directory. */
+        BIND("bind");
+
+        private final String value;
+
+        Type(String value) {
+            this.value = value;
+        }
+
+        public String toString() {
+            return this.value;
+        }
+    }
+}
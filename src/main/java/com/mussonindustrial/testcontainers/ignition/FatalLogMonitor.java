@@ -0,0 +1,80 @@
+package com.mussonindustrial.testcontainers.ignition;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Pattern;
+
+/**
+ * Watches the container log stream for fatal gateway patterns while the container is starting.
+ */
+final class FatalLogMonitor extends LogLineConsumer {
+
+    /**
+     * Patterns that indicate the gateway will never become ready. Module and license errors don't always stop a
+     * gateway from starting, so they are left to {@link IgnitionContainer#withFatalLogPatterns(String...)}.
+     */
+    static final List<String> DEFAULT_PATTERNS = List.of(
+            // Gateway backup restore
+            "(?i)\\b(failed|unable) to restore\\b",
+            "(?i)\\berror (restoring|during restore)\\b",
+            // EULA
+            "(?i)\\beula\\b.*\\b(must be accepted|not been accepted|rejected)\\b",
+            // JVM and wrapper
+            "A fatal error has been detected by the Java Runtime Environment",
+            "java\\.lang\\.OutOfMemoryError",
+            "JVM exited (unexpectedly|while loading the application)",
+            "There were \\d+ failed launches in a row",
+            "Unable to start (a )?JVM");
+
+    private static final int EXCERPT_LINES = 40;
+
+    private final List<Pattern> patterns = new ArrayList<>();
+
+    private final Deque<String> recentLines = new ArrayDeque<>(EXCERPT_LINES);
+
+    private final CompletableFuture<IgnitionStartupException> failure = new CompletableFuture<>();
+
+    private volatile boolean active = true;
+
+    FatalLogMonitor(List<String> patterns) {
+        patterns.forEach(pattern -> this.patterns.add(Pattern.compile(pattern)));
+    }
+
+    /**
+     * Get a future that completes with the startup failure when a fatal pattern is matched.
+     *
+     * @return the startup failure future.
+     */
+    CompletableFuture<IgnitionStartupException> getFailure() {
+        return failure;
+    }
+
+    /**
+     * Stop matching log lines. Called once the container has started.
+     */
+    void stop() {
+        active = false;
+    }
+
+    @Override
+    void acceptLine(String line) {
+        if (!active || failure.isDone()) {
+            return;
+        }
+
+        if (recentLines.size() == EXCERPT_LINES) {
+            recentLines.removeFirst();
+        }
+        recentLines.addLast(line);
+
+        for (Pattern pattern : patterns) {
+            if (pattern.matcher(line).find()) {
+                failure.complete(new IgnitionStartupException(pattern.pattern(), line, new ArrayList<>(recentLines)));
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.mussonindustrial.testcontainers.ignition;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.stream.Collectors;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordedThread;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * A summary of a gateway Java Flight Recorder recording: GC pauses, allocation hot spots, thread CPU and lock
+ * contention.
+ *
+ * <p>Which of these are populated depends on the recording settings. The {@code profile} settings enable all of
+ * them, the {@code default} settings only sample allocations and record long lock waits.
+ *
+ * @see IgnitionContainer#withFlightRecorder(String)
+ */
+public final class FlightRecordingSummary {
+
+    private static final int TOP_ENTRIES = 10;
+
+    private final Path path;
+
+    private long gcCount = 0;
+
+    private Duration gcPauseTotal = Duration.ZERO;
+
+    private Duration gcPauseMax = Duration.ZERO;
+
+    /** Bytes allocated by method, estimated from {@code jdk.ObjectAllocationSample} weights. */
+    private final Map<String, Long> sampledAllocationBytes = new HashMap<>();
+
+    /** Bytes allocated by method, from the TLAB events, used when the recording has no allocation samples. */
+    private final Map<String, Long> tlabAllocationBytes = new HashMap<>();
+
+    private final Map<String, double[]> threadCpu = new HashMap<>();
+
+    private final Map<String, Duration> lockContention = new HashMap<>();
+
+    private FlightRecordingSummary(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Read and summarize a recording.
+     *
+     * @param path the recording file.
+     * @return the recording summary.
+     * @throws IOException if the recording can't be read.
+     */
+    public static FlightRecordingSummary read(Path path) throws IOException {
+        FlightRecordingSummary summary = new FlightRecordingSummary(path);
+        try (RecordingFile recording = new RecordingFile(path)) {
+            while (recording.hasMoreEvents()) {
+                summary.accept(recording.readEvent());
+            }
+        }
+        return summary;
+    }
+
+    private void accept(RecordedEvent event) {
+        switch (event.getEventType().getName()) {
+            case "jdk.GarbageCollection":
+                gcCount++;
+                if (event.hasField("sumOfPauses")) {
+                    gcPauseTotal = gcPauseTotal.plus(event.getDuration("sumOfPauses"));
+                }
+                if (event.hasField("longestPause") && event.getDuration("longestPause").compareTo(gcPauseMax) > 0) {
+                    gcPauseMax = event.getDuration("longestPause");
+                }
+                break;
+            // The sample and TLAB events describe the same allocations, so only one of them is counted.
+            // tlabSize is the size of the new TLAB, not of the allocation that triggered it.
+            case "jdk.ObjectAllocationSample":
+                addAllocation(sampledAllocationBytes, event, "weight");
+                break;
+            case "jdk.ObjectAllocationInNewTLAB":
+            case "jdk.ObjectAllocationOutsideTLAB":
+                addAllocation(tlabAllocationBytes, event, "allocationSize");
+                break;
+            case "jdk.ThreadCPULoad":
+                RecordedThread thread = event.getThread();
+                if (thread != null) {
+                    double[] load = threadCpu.computeIfAbsent(getThreadName(thread), name -> new double[2]);
+                    load[0] += event.getFloat("user") + event.getFloat("system");
+                    load[1]++;
+                }
+                break;
+            case "jdk.JavaMonitorEnter":
+                String monitor = event.hasField("monitorClass") && event.getClass("monitorClass") != null
+                        ? event.getClass("monitorClass").getName()
+                        : "unknown";
+                lockContention.merge(monitor, event.getDuration(), Duration::plus);
+                break;
+            default:
+        }
+    }
+
+    private static void addAllocation(Map<String, Long> allocationBytes, RecordedEvent event, String field) {
+        if (event.hasField(field)) {
+            allocationBytes.merge(getTopFrame(event.getStackTrace()), event.getLong(field), Long::sum);
+        }
+    }
+
+    /**
+     * Get the recording file.
+     *
+     * @return the path of the recording.
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Get the number of garbage collections.
+     *
+     * @return the number of garbage collections.
+     */
+    public long getGcCount() {
+        return gcCount;
+    }
+
+    /**
+     * Get the total time the application was paused for garbage collection.
+     *
+     * @return the total GC pause time.
+     */
+    public Duration getGcPauseTotal() {
+        return gcPauseTotal;
+    }
+
+    /**
+     * Get the longest single garbage collection pause.
+     *
+     * @return the longest GC pause.
+     */
+    public Duration getGcPauseMax() {
+        return gcPauseMax;
+    }
+
+    /**
+     * Get the methods that allocated the most memory.
+     *
+     * @return the estimated bytes allocated, by allocating method, largest first.
+     */
+    public Map<String, Long> getAllocationHotSpots() {
+        return top(
+                sampledAllocationBytes.isEmpty() ? tlabAllocationBytes : sampledAllocationBytes,
+                Comparator.reverseOrder());
+    }
+
+    /**
+     * Get the threads that used the most CPU.
+     *
+     * @return the average CPU load as a fraction of all CPUs, by thread name, highest first.
+     */
+    public Map<String, Double> getThreadCpu() {
+        Map<String, Double> average = new HashMap<>();
+        threadCpu.forEach((thread, load) -> average.put(thread, load[0] / load[1]));
+        return top(average, Comparator.reverseOrder());
+    }
+
+    /**
+     * Get the monitors that threads waited longest to enter.
+     *
+     * @return the total time blocked, by monitor class, longest first.
+     */
+    public Map<String, Duration> getLockContention() {
+        return top(lockContention, Comparator.reverseOrder());
+    }
+
+    /**
+     * Format the summary as human-readable text.
+     *
+     * @return the recording summary.
+     */
+    public String toSummary() {
+        StringBuilder summary = new StringBuilder(String.format(
+                "Flight recording %s%n  GC: %d collections, %d ms paused, longest pause %d ms",
+                path.getFileName(), gcCount, gcPauseTotal.toMillis(), gcPauseMax.toMillis()));
+
+        summary.append(String.format("%n  Allocation hot spots:"));
+        getAllocationHotSpots()
+                .forEach((frame, bytes) -> summary.append(String.format("%n    %10d KB  %s", bytes / 1024, frame)));
+
+        summary.append(String.format("%n  Thread CPU:"));
+        getThreadCpu()
+                .forEach((thread, load) ->
+                        summary.append(String.format(Locale.ROOT, "%n    %9.1f %%  %s", load * 100, thread)));
+
+        summary.append(String.format("%n  Lock contention:"));
+        getLockContention()
+                .forEach((monitor, blocked) ->
+                        summary.append(String.format("%n    %7d ms  %s", blocked.toMillis(), monitor)));
+        return summary.toString();
+    }
+
+    @Override
+    public String toString() {
+        return toSummary();
+    }
+
+    private static <V> Map<String, V> top(Map<String, V> values, Comparator<? super V> order) {
+        return values.entrySet().stream()
+                .sorted(Map.Entry.comparingByValue(order))
+                .limit(TOP_ENTRIES)
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a, LinkedHashMap::new));
+    }
+
+    private static String getTopFrame(RecordedStackTrace stackTrace) {
+        if (stackTrace == null || stackTrace.getFrames().isEmpty()) {
+            return "unknown";
+        }
+        RecordedFrame frame = stackTrace.getFrames().get(0);
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName();
+    }
+
+    private static String getThreadName(RecordedThread thread) {
+        return thread.getJavaName() != null ? thread.getJavaName() : thread.getOSName();
+    }
+}
@@ -0,0 +1,282 @@
+package com.mussonindustrial.testcontainers.ignition;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import org.testcontainers.utility.DockerImageName;
+import org.w3c.dom.Document;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+/**
+ * A summary of a gateway backup ({@code .gwbk}) file.
+ *
+ * <p>The backup is opened through the zip central directory, so only the entries that are needed are
+ * decompressed: {@code backupinfo.xml} and the gateway configuration database. Project names come from the
+ * directory itself.
+ *
+ * <pre>{@code
+ * GatewayBackupInfo info = GatewayBackupInfo.read(Path.of("backup.gwbk"));
+ * info.getVersion();              // 8.1.33 (b2023101913)
+ * info.getDatabaseConnections();  // [MySQL]
+ * }</pre>
+ */
+public final class GatewayBackupInfo {
+
+    private static final String BACKUP_INFO = "backupinfo.xml";
+
+    private static final String CONFIG_DATABASE = "db_backup_sqlite.idb";
+
+    private static final String PROJECTS_DIR = "projects/";
+
+    private static final Pattern VERSION = Pattern.compile("^(\\d+(?:\\.\\d+)*)");
+
+    private static final Map<String, GatewayBackupInfo> cache = new ConcurrentHashMap<>();
+
+    private final Path path;
+
+    private final String contentHash;
+
+    private final String version;
+
+    private final String edition;
+
+    private final List<String> projects;
+
+    private final List<String> tagProviders;
+
+    private final List<String> databaseConnections;
+
+    private GatewayBackupInfo(
+            Path path,
+            String contentHash,
+            String version,
+            String edition,
+            List<String> projects,
+            List<String> tagProviders,
+            List<String> databaseConnections) {
+        this.path = path;
+        this.contentHash = contentHash;
+        this.version = version;
+        this.edition = edition;
+        this.projects = List.copyOf(projects);
+        this.tagProviders = List.copyOf(tagProviders);
+        this.databaseConnections = List.copyOf(databaseConnections);
+    }
+
+    /**
+     * Read a gateway backup. Results are cached by backup content.
+     *
+     * @param path the gateway backup file.
+     * @return the backup summary.
+     * @throws IOException if the file can't be read or isn't a valid gateway backup.
+     */
+    public static GatewayBackupInfo read(Path path) throws IOException {
+        String contentHash = ContentHash.of(path);
+        GatewayBackupInfo info = cache.get(contentHash);
+        if (info == null) {
+            info = readUncached(path, contentHash);
+            cache.put(contentHash, info);
+        }
+        return info;
+    }
+
+    private static GatewayBackupInfo readUncached(Path path, String contentHash) throws IOException {
+        try (ZipFile zip = new ZipFile(path.toFile())) {
+            ZipEntry backupInfo = zip.getEntry(BACKUP_INFO);
+            if (backupInfo == null) {
+                throw new IOException(String.format("'%s' is not a gateway backup, it has no %s", path, BACKUP_INFO));
+            }
+
+            Document document;
+            try (InputStream in = zip.getInputStream(backupInfo)) {
+                DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+                factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+                document = factory.newDocumentBuilder().parse(in);
+            } catch (ParserConfigurationException | SAXException e) {
+                throw new IOException(String.format("'%s' has an invalid %s", path, BACKUP_INFO), e);
+            }
+
+            String version = getElementText(document, "version");
+            if (version == null) {
+                throw new IOException(String.format("'%s' has no version in %s", path, BACKUP_INFO));
+            }
+
+            Set<String> projects = new TreeSet<>();
+            zip.stream()
+                    .map(ZipEntry::getName)
+                    .filter(name -> name.startsWith(PROJECTS_DIR))
+                    .map(name -> name.substring(PROJECTS_DIR.length()).split("/")[0])
+                    .filter(name -> !name.isEmpty())
+                    .forEach(projects::add);
+
+            List<String> tagProviders = new ArrayList<>();
+            List<String> databaseConnections = new ArrayList<>();
+            ZipEntry configDatabase = zip.getEntry(CONFIG_DATABASE);
+            if (configDatabase != null) {
+                // SQLite needs random access, so the database is copied out of the archive.
+                Path database = Files.createTempFile("gwbk-", ".idb");
+                try {
+                    try (InputStream in = zip.getInputStream(configDatabase)) {
+                        Files.copy(in, database, StandardCopyOption.REPLACE_EXISTING);
+                    }
+                    try (SqliteReader reader = new SqliteReader(database)) {
+                        tagProviders = getNames(reader, "TAGPROVIDERSETTINGS");
+                        databaseConnections = getNames(reader, "DATASOURCES");
+                    } catch (IOException e) {
+                        throw new IOException(String.format("'%s' is not a valid gateway backup", path), e);
+                    }
+                } finally {
+                    Files.deleteIfExists(database);
+                }
+            }
+
+            return new GatewayBackupInfo(
+                    path,
+                    contentHash,
+                    version,
+                    getElementText(document, "edition"),
+                    new ArrayList<>(projects),
+                    tagProviders,
+                    databaseConnections);
+        } catch (ZipException e) {
+            throw new IOException(String.format("'%s' is not a valid gateway backup", path), e);
+        }
+    }
+
+    /**
+     * Get the path of the gateway backup file.
+     *
+     * @return the path of the backup.
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Get a hash of the backup content, suitable for use as a cache key.
+     *
+     * @return the hex encoded SHA-256 hash of the backup.
+     */
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    /**
+     * Get the version of Ignition that created the backup.
+     *
+     * @return the version, for example {@code 8.1.33 (b2023101913)}.
+     */
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * Get the edition of the gateway that created the backup.
+     *
+     * @return the edition, or empty if the backup doesn't record it.
+     */
+    public Optional<String> getEdition() {
+        return Optional.ofNullable(edition);
+    }
+
+    /**
+     * Get the names of the projects in the backup.
+     *
+     * @return the project names, sorted.
+     */
+    public List<String> getProjects() {
+        return projects;
+    }
+
+    /**
+     * Get the names of the tag providers in the backup.
+     *
+     * @return the tag provider names.
+     */
+    public List<String> getTagProviders() {
+        return tagProviders;
+    }
+
+    /**
+     * Get the names of the database connections in the backup.
+     *
+     * @return the database connection names.
+     */
+    public List<String> getDatabaseConnections() {
+        return databaseConnections;
+    }
+
+    /**
+     * Check if the backup can be restored into a gateway image.
+     * A gateway can restore backups from its own or earlier versions, but not later versions.
+     * Images with tags that aren't versions (for example, {@code latest}) are assumed to be compatible.
+     * A version prefix tag (for example, {@code 8.1}) only compares the components it gives, because it
+     * follows the latest release with that prefix.
+     *
+     * @param image the gateway image.
+     * @return true if the backup can be restored into the image.
+     */
+    public boolean isCompatibleWith(DockerImageName image) {
+        int[] backupVersion = parseVersion(version);
+        int[] imageVersion = parseVersion(image.getVersionPart());
+        if (backupVersion == null || imageVersion == null) {
+            return true;
+        }
+
+        for (int i = 0; i < imageVersion.length; i++) {
+            int backupPart = i < backupVersion.length ? backupVersion[i] : 0;
+            int imagePart = i < imageVersion.length ? imageVersion[i] : 0;
+            if (backupPart != imagePart) {
+                return backupPart < imagePart;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "GatewayBackupInfo(version=%s, edition=%s, projects=%s, tagProviders=%s, databaseConnections=%s)",
+                version, edition, projects, tagProviders, databaseConnections);
+    }
+
+    private static int[] parseVersion(String version) {
+        Matcher matcher = VERSION.matcher(version.trim());
+        if (!matcher.find()) {
+            return null;
+        }
+        return Arrays.stream(matcher.group(1).split("\\.")).mapToInt(Integer::parseInt).toArray();
+    }
+
+    private static String getElementText(Document document, String name) {
+        NodeList elements = document.getElementsByTagName(name);
+        if (elements.getLength() == 0) {
+            return null;
+        }
+        String text = elements.item(0).getTextContent().trim();
+        return text.isEmpty() ? null : text;
+    }
+
+    private static List<String> getNames(SqliteReader reader, String table) throws IOException {
+        List<String> names = new ArrayList<>();
+        for (Map<String, Object> row : reader.readTable(table)) {
+            Object name = row.get("NAME");
+            if (name != null) {
+                names.add(name.toString());
+            }
+        }
+        return names;
+    }
+}
@@ -0,0 +1,163 @@
+package com.mussonindustrial.testcontainers.ignition;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Works out which modules a gateway backup uses, by streaming the backup without extracting it.
+ *
+ * <p>Project resources are stored under a folder named after the module that owns them, for example
+ * {@code projects/<project>/com.inductiveautomation.perspective/views}. Tags, devices and history settings are
+ * stored in the gateway configuration database ({@code db_backup_sqlite.idb}), which is scanned for the
+ * identifiers that each module writes into its configuration.
+ */
+final class GatewayBackupModules {
+
+    private static final String PROJECTS_DIR = "projects/";
+
+    private static final String CONFIG_DATABASE = "db_backup_sqlite.idb";
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    /** Project resource folders, by the module that owns them. */
+    private static final Map<String, GatewayModule> RESOURCE_MODULES = Map.of(
+            "com.inductiveautomation.perspective", GatewayModule.PERSPECTIVE,
+            "com.inductiveautomation.vision", GatewayModule.VISION,
+            "com.inductiveautomation.reporting", GatewayModule.REPORTING,
+            "com.inductiveautomation.webdev", GatewayModule.WEB_DEVELOPER,
+            "com.inductiveautomation.sfc", GatewayModule.SFC,
+            "com.inductiveautomation.alarm-notification", GatewayModule.ALARM_NOTIFICATION,
+            "com.inductiveautomation.sqlbridge", GatewayModule.SQL_BRIDGE);
+
+    /** Configuration database markers, by the module that writes them. */
+    private static final Map<String, GatewayModule> CONFIG_MARKERS = Map.ofEntries(
+            Map.entry("\"valueSource\":\"opc\"", GatewayModule.OPC_UA),
+            Map.entry("\"historyEnabled\":true", GatewayModule.TAG_HISTORIAN),
+            Map.entry("com.inductiveautomation.LogixDriver", GatewayModule.LOGIX_DRIVER),
+            Map.entry("com.inductiveautomation.ControlLogix", GatewayModule.ALLEN_BRADLEY_DRIVERS),
+            Map.entry("com.inductiveautomation.CompactLogix", GatewayModule.ALLEN_BRADLEY_DRIVERS),
+            Map.entry("com.inductiveautomation.MicroLogix", GatewayModule.ALLEN_BRADLEY_DRIVERS),
+            Map.entry("com.inductiveautomation.Micro800", GatewayModule.MICRO800_DRIVER),
+            Map.entry("com.inductiveautomation.ModbusTcp", GatewayModule.MODBUS_DRIVER_V2),
+            Map.entry("com.inductiveautomation.S7", GatewayModule.SIEMENS_DRIVERS),
+            Map.entry("com.inductiveautomation.Dnp3", GatewayModule.DNP3_DRIVER_V2),
+            Map.entry("com.inductiveautomation.BACnet", GatewayModule.BACNET_DRIVER),
+            Map.entry("com.inductiveautomation.Mitsubishi", GatewayModule.MITSUBISHI_DRIVER),
+            Map.entry("com.inductiveautomation.Omron", GatewayModule.OMRON_DRIVER),
+            Map.entry("com.inductiveautomation.Iec61850", GatewayModule.IEC_61850_DRIVER),
+            Map.entry("com.inductiveautomation.TcpDriver", GatewayModule.UDP_TCP_DRIVERS),
+            Map.entry("com.inductiveautomation.UdpDriver", GatewayModule.UDP_TCP_DRIVERS));
+
+    /** Modules that can't load without another module. Device drivers run inside the OPC UA server. */
+    private static final Set<GatewayModule> REQUIRES_OPC_UA = EnumSet.of(
+            GatewayModule.LOGIX_DRIVER,
+            GatewayModule.ALLEN_BRADLEY_DRIVERS,
+            GatewayModule.MICRO800_DRIVER,
+            GatewayModule.MODBUS_DRIVER_V2,
+            GatewayModule.SIEMENS_DRIVERS,
+            GatewayModule.DNP3_DRIVER_V2,
+            GatewayModule.BACNET_DRIVER,
+            GatewayModule.MITSUBISHI_DRIVER,
+            GatewayModule.OMRON_DRIVER,
+            GatewayModule.IEC_61850_DRIVER,
+            GatewayModule.UDP_TCP_DRIVERS);
+
+    private static final Map<String, Set<GatewayModule>> cache = new ConcurrentHashMap<>();
+
+    private GatewayBackupModules() {}
+
+    /**
+     * Get the modules that a gateway backup uses, including the modules they depend on.
+     * Results are cached by backup content.
+     *
+     * @param backup the gateway backup.
+     * @return the modules used by the backup.
+     * @throws IOException if the backup can't be read.
+     */
+    static Set<GatewayModule> of(Path backup) throws IOException {
+        String hash = ContentHash.of(backup);
+        Set<GatewayModule> modules = cache.get(hash);
+        if (modules == null) {
+            try (InputStream in = Files.newInputStream(backup)) {
+                modules = scan(in);
+            }
+            cache.put(hash, modules);
+        }
+        return modules;
+    }
+
+    /**
+     * Check that modules derived from a gateway backup leave at least one module to enable. The image loads every
+     * module when none are enabled, which is the opposite of enabling only the modules the backup uses.
+     *
+     * @param enabledModules the modules used by the backup, plus any listed explicitly.
+     * @param backup the gateway backup, for the error message.
+     * @throws IllegalStateException if no modules are enabled.
+     */
+    static void checkNotEmpty(Collection<? extends IgnitionModule> enabledModules, Path backup) {
+        if (enabledModules.isEmpty()) {
+            throw new IllegalStateException(String.format(
+                    "Gateway backup '%s' doesn't use any optional modules, and the gateway loads every module when "
+                            + "none are enabled. List the modules the gateway needs with withModules(...)",
+                    backup));
+        }
+    }
+
+    /**
+     * Scan a gateway backup stream for the modules it uses.
+     *
+     * @param in the gateway backup stream.
+     * @return the modules used by the backup.
+     * @throws IOException if the stream can't be read.
+     */
+    static Set<GatewayModule> scan(InputStream in) throws IOException {
+        Set<GatewayModule> modules = EnumSet.noneOf(GatewayModule.class);
+
+        try (ZipInputStream zip = new ZipInputStream(in)) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                String name = entry.getName();
+                if (name.startsWith(PROJECTS_DIR)) {
+                    String[] parts = name.substring(PROJECTS_DIR.length()).split("/");
+                    if (parts.length >= 2 && RESOURCE_MODULES.containsKey(parts[1])) {
+                        modules.add(RESOURCE_MODULES.get(parts[1]));
+                    }
+                } else if (name.equals(CONFIG_DATABASE)) {
+                    modules.addAll(scanConfiguration(zip));
+                }
+            }
+        }
+
+        if (modules.stream().anyMatch(REQUIRES_OPC_UA::contains)) {
+            modules.add(GatewayModule.OPC_UA);
+        }
+        return Collections.unmodifiableSet(modules);
+    }
+
+    private static Set<GatewayModule> scanConfiguration(InputStream in) throws IOException {
+        Set<GatewayModule> modules = EnumSet.noneOf(GatewayModule.class);
+        int overlap = CONFIG_MARKERS.keySet().stream().mapToInt(String::length).max().orElse(1) - 1;
+
+        // Markers are ASCII, so decode bytes one-to-one and keep a tail so markers split across chunks still match.
+        byte[] buffer = new byte[CHUNK_SIZE];
+        String tail = "";
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            String chunk = tail + new String(buffer, 0, read, StandardCharsets.ISO_8859_1);
+            for (Map.Entry<String, GatewayModule> marker : CONFIG_MARKERS.entrySet()) {
+                if (!modules.contains(marker.getValue()) && chunk.contains(marker.getKey())) {
+                    modules.add(marker.getValue());
+                }
+            }
+            tail = chunk.substring(Math.max(0, chunk.length() - overlap));
+        }
+        return modules;
+    }
+}
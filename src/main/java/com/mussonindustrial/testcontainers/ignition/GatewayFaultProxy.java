@@ -0,0 +1,720 @@
+package com.mussonindustrial.testcontainers.ignition;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A TCP proxy in the test JVM that simulates a slow or unreliable link to a gateway port.
+ *
+ * <p>The proxy listens on the loopback interface and forwards to the mapped container port. Other containers reach
+ * it through the host port exposed by Testcontainers, which is how an {@link IgnitionCluster} routes the Gateway
+ * Network through a proxy.
+ *
+ * <p>Latency, jitter and a bandwidth cap are applied to each direction of the link independently, so the round trip
+ * time is twice the latency. The bandwidth cap is shared by all connections, like a single WAN link. All settings
+ * can be changed while connections are open, and connections can be dropped or refused to simulate the link going
+ * down.
+ *
+ * <pre>{@code
+ * GatewayFaultProxy proxy = ignition.getFaultProxy(GatewayPort.GATEWAY);
+ * proxy.withLatency(Duration.ofMillis(150)).withJitter(Duration.ofMillis(30)).withBandwidth(64 * 1024);
+ * // ... clients using ignition.getGatewayUrl() now see the slow link
+ * proxy.dropConnections();
+ * }</pre>
+ *
+ * <p>All forwarding runs on a single NIO selector thread per proxy.
+ *
+ * @see IgnitionContainer#withFaultProxy(GatewayPort...)
+ */
+public final class GatewayFaultProxy implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(GatewayFaultProxy.class);
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    /** Reading from a side stops while this much data is waiting to be forwarded from it. */
+    private static final int MAX_QUEUED_BYTES = 1024 * 1024;
+
+    /** The largest burst allowed under a bandwidth cap, as a fraction of a second of bandwidth. */
+    private static final int BURST_DIVISOR = 20;
+
+    /** The smallest write under a bandwidth cap, about one Ethernet frame, so slow links aren't written bytewise. */
+    private static final int MIN_WRITE = 1500;
+
+    private final GatewayPort port;
+
+    /** The mapped container port, or null until the container has started. */
+    private volatile InetSocketAddress target;
+
+    /** Called on the selector thread when a client connects or sends data, before it is forwarded. */
+    private final Runnable activity;
+
+    private final ServerSocketChannel server;
+
+    private final Selector selector;
+
+    private final Thread thread;
+
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+    /** Open connections. Only accessed from the selector thread. */
+    private final Set<Connection> connections = new HashSet<>();
+
+    private final Bandwidth upstreamBandwidth = new Bandwidth();
+
+    private final Bandwidth downstreamBandwidth = new Bandwidth();
+
+    private volatile long latencyNanos = 0;
+
+    private volatile long jitterNanos = 0;
+
+    private volatile long bytesPerSecond = 0;
+
+    private volatile boolean refusingConnections = false;
+
+    private volatile boolean running = true;
+
+    private final AtomicLong bytesUpstream = new AtomicLong();
+
+    private final AtomicLong bytesDownstream = new AtomicLong();
+
+    private final AtomicLong connectionCount = new AtomicLong();
+
+    private final AtomicLong droppedConnectionCount = new AtomicLong();
+
+    private final AtomicInteger openConnectionCount = new AtomicInteger();
+
+    private GatewayFaultProxy(GatewayPort port, Runnable activity) throws IOException {
+        this.port = port;
+        this.activity = activity;
+        this.selector = Selector.open();
+        this.server = ServerSocketChannel.open();
+        try {
+            server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            server.configureBlocking(false);
+            server.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            server.close();
+            selector.close();
+            throw e;
+        }
+        this.thread = new Thread(this::run, "ignition-fault-proxy-" + port.name().toLowerCase(Locale.ROOT));
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * Start a proxy to a mapped container port.
+     *
+     * @param port the gateway port that is proxied.
+     * @param host the host the container port is mapped on.
+     * @param mappedPort the mapped container port.
+     * @return the running proxy.
+     * @throws IOException if the proxy can't listen.
+     */
+    static GatewayFaultProxy start(GatewayPort port, String host, int mappedPort) throws IOException {
+        return start(port, host, mappedPort, () -> {});
+    }
+
+    /**
+     * Start a proxy to a mapped container port, reporting client activity, for example to resume a paused gateway.
+     *
+     * @param port the gateway port that is proxied.
+     * @param host the host the container port is mapped on.
+     * @param mappedPort the mapped container port.
+     * @param activity called when a client connects or sends data, before it is forwarded.
+     * @return the running proxy.
+     * @throws IOException if the proxy can't listen.
+     */
+    static GatewayFaultProxy start(GatewayPort port, String host, int mappedPort, Runnable activity)
+            throws IOException {
+        GatewayFaultProxy proxy = listen(port, activity);
+        proxy.connectTo(host, mappedPort);
+        return proxy;
+    }
+
+    /**
+     * Start a proxy that listens before the container port is mapped, so its port can be handed to other containers
+     * before the gateway starts. Connections are closed until {@link #connectTo(String, int)} is called.
+     *
+     * @param port the gateway port that is proxied.
+     * @param activity called when a client connects or sends data, before it is forwarded.
+     * @return the listening proxy.
+     * @throws IOException if the proxy can't listen.
+     */
+    static GatewayFaultProxy listen(GatewayPort port, Runnable activity) throws IOException {
+        GatewayFaultProxy proxy = new GatewayFaultProxy(port, activity);
+        proxy.thread.start();
+        return proxy;
+    }
+
+    /**
+     * Forward new connections to a mapped container port.
+     *
+     * @param host the host the container port is mapped on.
+     * @param mappedPort the mapped container port.
+     */
+    void connectTo(String host, int mappedPort) {
+        this.target = new InetSocketAddress(host, mappedPort);
+        logger.debug("Proxying gateway port {} from {} to {}:{}.", port, getPort(), host, mappedPort);
+    }
+
+    /**
+     * Set the latency added to each direction of the link. Defaults to none.
+     *
+     * @param latency the one-way latency.
+     * @return this {@link GatewayFaultProxy} for chaining purposes.
+     */
+    public GatewayFaultProxy withLatency(Duration latency) {
+        if (latency.isNegative()) {
+            throw new IllegalArgumentException("latency must not be negative");
+        }
+        this.latencyNanos = latency.toNanos();
+        selector.wakeup();
+        return this;
+    }
+
+    /**
+     * Set the jitter of the latency. Each read is delayed by the latency plus or minus a random amount up to the
+     * jitter. Data is never reordered, so a read is never forwarded before the read before it.
+     *
+     * @param jitter the maximum deviation from the latency.
+     * @return this {@link GatewayFaultProxy} for chaining purposes.
+     */
+    public GatewayFaultProxy withJitter(Duration jitter) {
+        if (jitter.isNegative()) {
+            throw new IllegalArgumentException("jitter must not be negative");
+        }
+        this.jitterNanos = jitter.toNanos();
+        selector.wakeup();
+        return this;
+    }
+
+    /**
+     * Cap the bandwidth of each direction of the link, shared by all connections. Defaults to unlimited.
+     *
+     * @param bytesPerSecond the bandwidth in bytes per second, or 0 for unlimited.
+     * @return this {@link GatewayFaultProxy} for chaining purposes.
+     */
+    public GatewayFaultProxy withBandwidth(long bytesPerSecond) {
+        if (bytesPerSecond < 0) {
+            throw new IllegalArgumentException("bytesPerSecond must not be negative");
+        }
+        this.bytesPerSecond = bytesPerSecond;
+        selector.wakeup();
+        return this;
+    }
+
+    /**
+     * Refuse new connections, as if the link were down. Refused connections are accepted and closed immediately.
+     *
+     * @param refusingConnections true to refuse new connections.
+     * @return this {@link GatewayFaultProxy} for chaining purposes.
+     */
+    public GatewayFaultProxy withRefusingConnections(boolean refusingConnections) {
+        this.refusingConnections = refusingConnections;
+        return this;
+    }
+
+    /**
+     * Close all open connections, discarding any data that hasn't been forwarded yet.
+     * New connections are still accepted unless {@link #withRefusingConnections(boolean)} is set.
+     */
+    public void dropConnections() {
+        tasks.add(() -> {
+            for (Connection connection : new ArrayList<>(connections)) {
+                droppedConnectionCount.incrementAndGet();
+                connection.close();
+            }
+        });
+        selector.wakeup();
+    }
+
+    /**
+     * Remove all faults, restoring a direct link.
+     *
+     * @return this {@link GatewayFaultProxy} for chaining purposes.
+     */
+    public GatewayFaultProxy reset() {
+        this.refusingConnections = false;
+        return this.withLatency(Duration.ZERO).withJitter(Duration.ZERO).withBandwidth(0);
+    }
+
+    /**
+     * Get the gateway port that is proxied.
+     *
+     * @return the proxied gateway port.
+     */
+    public GatewayPort getGatewayPort() {
+        return port;
+    }
+
+    /**
+     * Get the host the proxy listens on.
+     *
+     * @return the loopback address.
+     */
+    public String getHost() {
+        return InetAddress.getLoopbackAddress().getHostAddress();
+    }
+
+    /**
+     * Get the port the proxy listens on.
+     *
+     * @return the proxy port.
+     */
+    public int getPort() {
+        return server.socket().getLocalPort();
+    }
+
+    /**
+     * Get the number of bytes forwarded from clients to the gateway.
+     *
+     * @return the bytes forwarded upstream.
+     */
+    public long getBytesUpstream() {
+        return bytesUpstream.get();
+    }
+
+    /**
+     * Get the number of bytes forwarded from the gateway to clients.
+     *
+     * @return the bytes forwarded downstream.
+     */
+    public long getBytesDownstream() {
+        return bytesDownstream.get();
+    }
+
+    /**
+     * Get the number of connections accepted, including refused connections.
+     *
+     * @return the number of connections.
+     */
+    public long getConnectionCount() {
+        return connectionCount.get();
+    }
+
+    /**
+     * Get the number of connections that are currently open.
+     *
+     * @return the number of open connections.
+     */
+    public int getOpenConnectionCount() {
+        return openConnectionCount.get();
+    }
+
+    /**
+     * Get the number of connections closed by {@link #dropConnections()} or refused.
+     *
+     * @return the number of dropped connections.
+     */
+    public long getDroppedConnectionCount() {
+        return droppedConnectionCount.get();
+    }
+
+    /** Stop the proxy and close all connections. */
+    @Override
+    public void close() {
+        running = false;
+        selector.wakeup();
+        try {
+            thread.join(Duration.ofSeconds(5).toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "%s proxy %s:%d (latency=%dms, jitter=%dms, bandwidth=%s)",
+                port.name(),
+                getHost(),
+                getPort(),
+                Duration.ofNanos(latencyNanos).toMillis(),
+                Duration.ofNanos(jitterNanos).toMillis(),
+                bytesPerSecond > 0 ? bytesPerSecond + "B/s" : "unlimited");
+    }
+
+    private void run() {
+        try {
+            while (running) {
+                long wait = Long.MAX_VALUE;
+                long now = System.nanoTime();
+                for (Connection connection : new ArrayList<>(connections)) {
+                    wait = Math.min(wait, connection.flush(now));
+                }
+
+                if (wait == Long.MAX_VALUE) {
+                    selector.select();
+                } else {
+                    selector.select(Math.max(1, (wait + 999_999) / 1_000_000));
+                }
+
+                Runnable task;
+                while ((task = tasks.poll()) != null) {
+                    task.run();
+                }
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (key.isValid()) {
+                        handle(key);
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Gateway fault proxy for port {} failed.", port, e);
+        } finally {
+            for (Connection connection : new ArrayList<>(connections)) {
+                connection.close();
+            }
+            closeQuietly(server);
+            try {
+                selector.close();
+            } catch (IOException e) {
+                logger.debug("Unable to close proxy selector.", e);
+            }
+        }
+    }
+
+    private void handle(SelectionKey key) throws IOException {
+        if (key.isAcceptable()) {
+            accept();
+            return;
+        }
+
+        Connection connection = (Connection) key.attachment();
+        try {
+            if (key.isConnectable()) {
+                connection.finishConnect();
+                return;
+            }
+            if (key.isWritable()) {
+                connection.writable((SocketChannel) key.channel());
+            }
+            if (key.isValid() && key.isReadable()) {
+                connection.read((SocketChannel) key.channel());
+            }
+        } catch (IOException e) {
+            logger.debug("Proxied connection to gateway port {} failed.", port, e);
+            connection.close();
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel client = server.accept();
+        if (client == null) {
+            return;
+        }
+        connectionCount.incrementAndGet();
+        InetSocketAddress target = this.target;
+        if (target == null) {
+            // The gateway hasn't started yet, so the client sees the same as a gateway that isn't listening.
+            closeQuietly(client);
+            return;
+        }
+        if (refusingConnections) {
+            droppedConnectionCount.incrementAndGet();
+            closeQuietly(client);
+            return;
+        }
+
+        runActivity();
+        SocketChannel upstream = SocketChannel.open();
+        Connection connection = new Connection(client, upstream);
+        connections.add(connection);
+        openConnectionCount.incrementAndGet();
+        try {
+            client.configureBlocking(false);
+            client.socket().setTcpNoDelay(true);
+            upstream.configureBlocking(false);
+            upstream.socket().setTcpNoDelay(true);
+            if (upstream.connect(target)) {
+                connection.finishConnect();
+            } else {
+                connection.upstreamKey = upstream.register(selector, SelectionKey.OP_CONNECT, connection);
+            }
+        } catch (IOException e) {
+            logger.debug("Unable to connect to gateway port {}.", port, e);
+            connection.close();
+        }
+    }
+
+    private void runActivity() {
+        try {
+            activity.run();
+        } catch (RuntimeException e) {
+            logger.debug("Unable to report activity on gateway port {}.", port, e);
+        }
+    }
+
+    private long getDelayNanos() {
+        long jitter = jitterNanos;
+        long delay = latencyNanos + (jitter > 0 ? ThreadLocalRandom.current().nextLong(-jitter, jitter + 1) : 0);
+        return Math.max(0, delay);
+    }
+
+    private static void closeQuietly(Channel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Already closed.
+        }
+    }
+
+    /** A proxied client connection and its connection to the gateway. */
+    private final class Connection {
+
+        private final SocketChannel client;
+
+        private final SocketChannel upstream;
+
+        private final Pipe toGateway;
+
+        private final Pipe toClient;
+
+        private SelectionKey clientKey;
+
+        private SelectionKey upstreamKey;
+
+        private boolean closed = false;
+
+        private Connection(SocketChannel client, SocketChannel upstream) {
+            this.client = client;
+            this.upstream = upstream;
+            this.toGateway = new Pipe(client, upstream, upstreamBandwidth, bytesUpstream);
+            this.toClient = new Pipe(upstream, client, downstreamBandwidth, bytesDownstream);
+        }
+
+        private void finishConnect() throws IOException {
+            upstream.finishConnect();
+            clientKey = client.register(selector, 0, this);
+            if (upstreamKey == null) {
+                upstreamKey = upstream.register(selector, 0, this);
+            }
+            updateInterest();
+        }
+
+        private void read(SocketChannel channel) throws IOException {
+            if (channel == client) {
+                runActivity();
+            }
+            (channel == client ? toGateway : toClient).read(System.nanoTime());
+            updateInterest();
+        }
+
+        private void writable(SocketChannel channel) {
+            (channel == client ? toClient : toGateway).blocked = false;
+        }
+
+        /**
+         * Forward the data that is due in both directions.
+         *
+         * @param now the current time.
+         * @return nanoseconds until more data is due, or {@link Long#MAX_VALUE} if none is waiting.
+         */
+        private long flush(long now) {
+            if (closed || clientKey == null) {
+                return Long.MAX_VALUE;
+            }
+            try {
+                long wait = Math.min(toGateway.flush(now), toClient.flush(now));
+                if (toGateway.finished() && toClient.finished()) {
+                    close();
+                    return Long.MAX_VALUE;
+                }
+                updateInterest();
+                return wait;
+            } catch (IOException e) {
+                logger.debug("Proxied connection to gateway port {} failed.", port, e);
+                close();
+                return Long.MAX_VALUE;
+            }
+        }
+
+        private void updateInterest() {
+            if (closed || clientKey == null) {
+                return;
+            }
+            clientKey.interestOps(toGateway.readInterest() | toClient.writeInterest());
+            upstreamKey.interestOps(toClient.readInterest() | toGateway.writeInterest());
+        }
+
+        private void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            connections.remove(this);
+            openConnectionCount.decrementAndGet();
+            closeQuietly(client);
+            closeQuietly(upstream);
+        }
+    }
+
+    /** One direction of a proxied connection, with the data waiting to be forwarded. */
+    private final class Pipe {
+
+        private final SocketChannel source;
+
+        private final SocketChannel destination;
+
+        private final Bandwidth bandwidth;
+
+        private final AtomicLong forwarded;
+
+        private final Deque<Chunk> queue = new ArrayDeque<>();
+
+        private int queuedBytes = 0;
+
+        private long lastReleaseAt = Long.MIN_VALUE;
+
+        private boolean sourceClosed = false;
+
+        private boolean outputShutdown = false;
+
+        private boolean blocked = false;
+
+        private Pipe(SocketChannel source, SocketChannel destination, Bandwidth bandwidth, AtomicLong forwarded) {
+            this.source = source;
+            this.destination = destination;
+            this.bandwidth = bandwidth;
+            this.forwarded = forwarded;
+        }
+
+        private void read(long now) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            int read = source.read(buffer);
+            if (read < 0) {
+                sourceClosed = true;
+                return;
+            }
+            if (read == 0) {
+                return;
+            }
+
+            buffer.flip();
+            long releaseAt = now + getDelayNanos();
+            if (lastReleaseAt != Long.MIN_VALUE && releaseAt < lastReleaseAt) {
+                releaseAt = lastReleaseAt;
+            }
+            lastReleaseAt = releaseAt;
+            queue.add(new Chunk(buffer, releaseAt));
+            queuedBytes += read;
+        }
+
+        private long flush(long now) throws IOException {
+            while (!queue.isEmpty() && !blocked) {
+                Chunk chunk = queue.peek();
+                if (chunk.releaseAt > now) {
+                    return chunk.releaseAt - now;
+                }
+
+                int remaining = chunk.data.remaining();
+                int minimum = Math.min(remaining, MIN_WRITE);
+                long allowed = bandwidth.available(now);
+                if (allowed < minimum) {
+                    return bandwidth.nanosUntilAvailable(minimum);
+                }
+
+                ByteBuffer slice = chunk.data.duplicate();
+                int attempt = (int) Math.min(remaining, allowed);
+                slice.limit(slice.position() + attempt);
+                int written = destination.write(slice);
+                chunk.data.position(chunk.data.position() + written);
+                bandwidth.consume(written);
+                queuedBytes -= written;
+                forwarded.addAndGet(written);
+
+                if (written < attempt) {
+                    blocked = true;
+                } else if (!chunk.data.hasRemaining()) {
+                    queue.poll();
+                }
+            }
+
+            if (queue.isEmpty() && sourceClosed && !outputShutdown) {
+                destination.shutdownOutput();
+                outputShutdown = true;
+            }
+            return Long.MAX_VALUE;
+        }
+
+        private boolean finished() {
+            return outputShutdown;
+        }
+
+        private int readInterest() {
+            return sourceClosed || queuedBytes >= MAX_QUEUED_BYTES ? 0 : SelectionKey.OP_READ;
+        }
+
+        private int writeInterest() {
+            return blocked ? SelectionKey.OP_WRITE : 0;
+        }
+    }
+
+    /** Data read from one side, and the time it may be forwarded. */
+    private static final class Chunk {
+
+        private final ByteBuffer data;
+
+        private final long releaseAt;
+
+        private Chunk(ByteBuffer data, long releaseAt) {
+            this.data = data;
+            this.releaseAt = releaseAt;
+        }
+    }
+
+    /** A token bucket for one direction of the link. Only accessed from the selector thread. */
+    private final class Bandwidth {
+
+        private double tokens = 0;
+
+        private long refilledAt = System.nanoTime();
+
+        private long available(long now) {
+            long rate = bytesPerSecond;
+            long elapsed = now - refilledAt;
+            refilledAt = now;
+            if (rate <= 0) {
+                tokens = 0;
+                return Long.MAX_VALUE;
+            }
+            double burst = Math.max(MIN_WRITE, (double) rate / BURST_DIVISOR);
+            tokens = Math.min(burst, tokens + elapsed * (rate / 1e9));
+            return (long) tokens;
+        }
+
+        private void consume(int bytes) {
+            if (bytesPerSecond > 0) {
+                tokens -= bytes;
+            }
+        }
+
+        private long nanosUntilAvailable(int bytes) {
+            long rate = bytesPerSecond;
+            if (rate <= 0) {
+                return 0;
+            }
+            return Math.max(1, (long) Math.ceil((bytes - tokens) * 1e9 / rate));
+        }
+    }
+}
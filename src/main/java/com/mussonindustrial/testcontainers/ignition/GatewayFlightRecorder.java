@@ -0,0 +1,164 @@
+package com.mussonindustrial.testcontainers.ignition;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testcontainers.containers.Container;
+
+/**
+ * Runs Java Flight Recorder in the gateway JVM and copies recordings out of the container.
+ *
+ * <p>Recordings are dumped on demand with {@code jcmd}, run as the user that owns the gateway JVM. Images whose
+ * runtime doesn't include {@code jcmd} can't dump on demand; for those the recording is written by the JVM when
+ * the gateway shuts down, which {@link #stop(IgnitionContainer, Path)} triggers before copying it out.
+ */
+final class GatewayFlightRecorder {
+
+    private static final Logger logger = LoggerFactory.getLogger(GatewayFlightRecorder.class);
+
+    private static final String RECORDING_NAME = "testcontainers";
+
+    private static final String EXIT_RECORDING_PATH = "/tmp/testcontainers.jfr";
+
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(60);
+
+    /**
+     * Finds the gateway JVM by the wrapper class on its command line.
+     * The bracket keeps the pattern from matching the command line of grep itself.
+     */
+    private static final String FIND_GATEWAY_PID = "grep -l -a 'org[.]tanukisoftware[.]wrapper[.]Wrapper' "
+            + "/proc/[0-9]*/cmdline 2>/dev/null | head -n 1 | cut -d/ -f3";
+
+    private static final String FIND_JCMD = "for f in " + IgnitionContainer.INSTALL_DIR + "/lib/runtime/*/bin/jcmd; "
+            + "do [ -x \"$f\" ] && echo \"$f\" && exit 0; done; command -v jcmd || true";
+
+    private final String settings;
+
+    GatewayFlightRecorder(String settings) {
+        this.settings = settings;
+    }
+
+    String getSettings() {
+        return settings;
+    }
+
+    /**
+     * Get the JVM argument that starts the recording with the gateway.
+     *
+     * @return the JVM argument.
+     */
+    String getJvmArg() {
+        return String.format(
+                "-XX:StartFlightRecording=name=%s,settings=%s,dumponexit=true,filename=%s",
+                RECORDING_NAME, settings, EXIT_RECORDING_PATH);
+    }
+
+    /**
+     * Dump the recording so far from the running gateway.
+     *
+     * @param container the running container.
+     * @param target the file to write the recording to.
+     * @throws IOException if the recording can't be dumped or copied, including when the image has no {@code jcmd}.
+     */
+    void dump(IgnitionContainer container, Path target) throws IOException {
+        String recordingPath = "/tmp/testcontainers-" + UUID.randomUUID() + ".jfr";
+        String jcmd = exec(container, "sh", "-c", FIND_JCMD).trim();
+        if (jcmd.isEmpty()) {
+            throw new IOException("jcmd is not available in the gateway image, recordings can only be taken on stop");
+        }
+
+        String pid = exec(container, "sh", "-c", FIND_GATEWAY_PID).trim();
+        if (pid.isEmpty()) {
+            throw new IOException("Unable to find the gateway JVM");
+        }
+
+        // jcmd can only attach to a JVM run by the same user.
+        String user = exec(container, "stat", "-c", "%u", "/proc/" + pid).trim();
+        try {
+            Container.ExecResult result = container.execInContainerWithUser(
+                    user, jcmd, pid, "JFR.dump", "name=" + RECORDING_NAME, "filename=" + recordingPath);
+            if (result.getExitCode() != 0 || result.getStdout().contains("Could not")) {
+                throw new IOException(String.format(
+                        "Unable to dump flight recording (exit code %d): %s%s",
+                        result.getExitCode(), result.getStdout(), result.getStderr()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while dumping flight recording", e);
+        }
+
+        copy(container, recordingPath, target);
+        exec(container, "rm", "-f", recordingPath);
+    }
+
+    /**
+     * Take the final recording from a gateway that is about to stop.
+     *
+     * <p>If the recording can't be dumped with {@code jcmd}, the gateway is shut down gracefully so the JVM writes
+     * the recording on exit, and it is copied from the stopped container.
+     *
+     * @param container the container that is stopping.
+     * @param target the file to write the recording to.
+     * @throws IOException if the recording can't be taken.
+     */
+    void stop(IgnitionContainer container, Path target) throws IOException {
+        try {
+            dump(container, target);
+            return;
+        } catch (IOException e) {
+            logger.debug("Unable to dump flight recording, shutting down the gateway instead.", e);
+        }
+
+        exec(container, "kill", "-TERM", "1");
+        Instant deadline = Instant.now().plus(SHUTDOWN_TIMEOUT);
+        while (isRunning(container)) {
+            if (Instant.now().isAfter(deadline)) {
+                throw new IOException("Gateway did not shut down to write the flight recording");
+            }
+            try {
+                Thread.sleep(250);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for gateway shutdown", e);
+            }
+        }
+        copy(container, EXIT_RECORDING_PATH, target);
+    }
+
+    private static boolean isRunning(IgnitionContainer container) {
+        Boolean running = container.getDockerClient()
+                .inspectContainerCmd(container.getContainerId())
+                .exec()
+                .getState()
+                .getRunning();
+        return Boolean.TRUE.equals(running);
+    }
+
+    private static void copy(IgnitionContainer container, String source, Path target) throws IOException {
+        if (target.getParent() != null) {
+            Files.createDirectories(target.getParent());
+        }
+        container.copyFileFromContainer(source, in -> Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING));
+    }
+
+    private static String exec(IgnitionContainer container, String... command) throws IOException {
+        try {
+            Container.ExecResult result = container.execInContainer(command);
+            if (result.getExitCode() != 0) {
+                throw new IOException(String.format(
+                        "'%s' failed (exit code %d): %s",
+                        String.join(" ", command), result.getExitCode(), result.getStderr()));
+            }
+            return result.getStdout();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while taking flight recording", e);
+        }
+    }
+}
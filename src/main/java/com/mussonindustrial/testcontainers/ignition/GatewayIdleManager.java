@@ -0,0 +1,325 @@
+package com.mussonindustrial.testcontainers.ignition;
+
+import com.github.dockerjava.api.async.ResultCallback;
+import com.github.dockerjava.api.model.CpuStatsConfig;
+import com.github.dockerjava.api.model.CpuUsageConfig;
+import com.github.dockerjava.api.model.StatisticNetworksConfig;
+import com.github.dockerjava.api.model.Statistics;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Pauses a gateway container that hasn't been used for a while, and resumes it the next time it is used.
+ *
+ * <p>An idle gateway still runs its scheduled tasks, which takes CPU from the tests that are running. While
+ * paused with {@code docker pause}, the gateway processes are frozen and use no CPU. The gateway is resumed when
+ * its URL, a mapped port, a client or {@code execInContainer} is requested through the {@link IgnitionContainer},
+ * when a request is sent through its gateway or OPC UA client, a {@link GatewayMetricsSampler} samples it, a
+ * {@link GatewayFaultProxy} in front of it accepts or reads from a connection, or a Gateway Network peer in the
+ * same {@link IgnitionCluster} is used.
+ *
+ * <p>A gateway is not paused while any network traffic reaches it, which covers clients that bypass the container,
+ * OPC UA subscriptions and Gateway Network connections, or while a connection through a fault proxy is open.
+ * Other connections opened before the pause stall until the gateway is resumed.
+ *
+ * <p>The CPU time saved is estimated from the CPU usage of the gateway while it was idle before each pause,
+ * multiplied by how long it stayed paused.
+ *
+ * @see IgnitionContainer#withIdlePause(Duration)
+ */
+public final class GatewayIdleManager implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(GatewayIdleManager.class);
+
+    private static final Duration MIN_CHECK_INTERVAL = Duration.ofMillis(100);
+
+    private static final Duration MAX_CHECK_INTERVAL = Duration.ofSeconds(10);
+
+    private static final Duration STATS_TIMEOUT = Duration.ofSeconds(10);
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ignition-idle-manager");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final AtomicLong TOTAL_CPU_SAVED_NANOS = new AtomicLong();
+
+    private final IgnitionContainer container;
+
+    private final Duration idleTimeout;
+
+    private final Duration checkInterval;
+
+    private long lastAccess;
+
+    /** Network bytes received and sent by the gateway at the last check, or -1 if not sampled yet. */
+    private long lastNetworkBytes = -1;
+
+    /** CPU usage and time of the first sample since the gateway became idle, or -1 if not sampled yet. */
+    private long idleCpuBaseline = -1;
+
+    private long idleBaselineAt;
+
+    private boolean paused = false;
+
+    private long pausedAt;
+
+    /** CPU used by the idle gateway, in CPU nanoseconds per nanosecond, measured before the current pause. */
+    private double idleCpuRate = 0;
+
+    private long pauseCount = 0;
+
+    private long pausedNanos = 0;
+
+    private long cpuSavedNanos = 0;
+
+    private ScheduledFuture<?> task;
+
+    GatewayIdleManager(IgnitionContainer container, Duration idleTimeout) {
+        if (idleTimeout.isNegative() || idleTimeout.isZero()) {
+            throw new IllegalArgumentException("idleTimeout must be greater than 0");
+        }
+        this.container = container;
+        this.idleTimeout = idleTimeout;
+        Duration interval = idleTimeout.dividedBy(4);
+        this.checkInterval = interval.compareTo(MIN_CHECK_INTERVAL) < 0
+                ? MIN_CHECK_INTERVAL
+                : interval.compareTo(MAX_CHECK_INTERVAL) > 0 ? MAX_CHECK_INTERVAL : interval;
+    }
+
+    /**
+     * Get the CPU time saved by pausing idle gateways, across all containers in this JVM.
+     *
+     * @return the estimated CPU time saved.
+     */
+    public static Duration getTotalCpuTimeSaved() {
+        return Duration.ofNanos(TOTAL_CPU_SAVED_NANOS.get());
+    }
+
+    /** Start watching the running container. */
+    synchronized void start() {
+        lastAccess = System.nanoTime();
+        long interval = checkInterval.toMillis();
+        task = SCHEDULER.scheduleWithFixedDelay(this::check, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop watching the container, and resume it if it is paused.
+     */
+    @Override
+    public synchronized void close() {
+        if (task != null) {
+            task.cancel(false);
+            task = null;
+        }
+        resume();
+    }
+
+    /**
+     * Record that the gateway is being used, resuming it if it is paused.
+     */
+    synchronized void touch() {
+        lastAccess = System.nanoTime();
+        idleCpuBaseline = -1;
+        resume();
+    }
+
+    private void check() {
+        long idleSince;
+        boolean sampleBaseline;
+        synchronized (this) {
+            if (paused || task == null) {
+                return;
+            }
+            idleSince = lastAccess;
+            sampleBaseline = idleCpuBaseline < 0;
+        }
+
+        long idle = System.nanoTime() - idleSince;
+        if (idle < checkInterval.toNanos()) {
+            return;
+        }
+
+        // Sampled outside the lock, so touch() isn't held up by the Docker API.
+        Usage usage;
+        try {
+            usage = getUsage();
+        } catch (RuntimeException e) {
+            logger.debug("Unable to sample gateway CPU usage.", e);
+            return;
+        }
+        long cpu = usage.cpuNanos;
+        long sampledAt = System.nanoTime();
+        boolean connected = container.hasOpenConnections();
+
+        synchronized (this) {
+            if (paused || task == null || lastAccess != idleSince) {
+                return;
+            }
+            boolean networkActive = lastNetworkBytes >= 0 && usage.networkBytes != lastNetworkBytes;
+            lastNetworkBytes = usage.networkBytes;
+            if (networkActive || connected) {
+                // In use by a connection that doesn't go through the container, so idle from now on at the earliest.
+                lastAccess = sampledAt;
+                idleCpuBaseline = -1;
+                return;
+            }
+            if (sampleBaseline) {
+                idleCpuBaseline = cpu;
+                idleBaselineAt = sampledAt;
+            }
+            if (idle >= idleTimeout.toNanos()) {
+                idleCpuRate = idleCpuBaseline >= 0 && sampledAt > idleBaselineAt
+                        ? (double) Math.max(0, cpu - idleCpuBaseline) / (sampledAt - idleBaselineAt)
+                        : 0;
+                pause();
+            }
+        }
+    }
+
+    private void pause() {
+        try {
+            container.getDockerClient().pauseContainerCmd(container.getContainerId()).exec();
+        } catch (RuntimeException e) {
+            logger.warn("Unable to pause idle gateway.", e);
+            return;
+        }
+        paused = true;
+        pausedAt = System.nanoTime();
+        pauseCount++;
+        logger.debug("Paused gateway after {} ms idle.", idleTimeout.toMillis());
+    }
+
+    private void resume() {
+        if (!paused) {
+            return;
+        }
+        container.getDockerClient().unpauseContainerCmd(container.getContainerId()).exec();
+        paused = false;
+
+        long duration = System.nanoTime() - pausedAt;
+        long saved = (long) (duration * idleCpuRate);
+        pausedNanos += duration;
+        cpuSavedNanos += saved;
+        TOTAL_CPU_SAVED_NANOS.addAndGet(saved);
+        idleCpuBaseline = -1;
+        logger.debug("Resumed gateway after {} ms paused.", TimeUnit.NANOSECONDS.toMillis(duration));
+    }
+
+    private Usage getUsage() {
+        AtomicLong sample = new AtomicLong(-1);
+        AtomicLong networkBytes = new AtomicLong();
+        ResultCallback.Adapter<Statistics> callback = new ResultCallback.Adapter<>() {
+            @Override
+            public void onNext(Statistics statistics) {
+                CpuStatsConfig cpuStats = statistics.getCpuStats();
+                CpuUsageConfig usage = cpuStats == null ? null : cpuStats.getCpuUsage();
+                if (usage != null && usage.getTotalUsage() != null) {
+                    sample.set(usage.getTotalUsage());
+                }
+                if (statistics.getNetworks() != null) {
+                    long bytes = 0;
+                    for (StatisticNetworksConfig network : statistics.getNetworks().values()) {
+                        bytes += (network.getRxBytes() == null ? 0 : network.getRxBytes())
+                                + (network.getTxBytes() == null ? 0 : network.getTxBytes());
+                    }
+                    networkBytes.set(bytes);
+                }
+            }
+        };
+        try {
+            container.getDockerClient()
+                    .statsCmd(container.getContainerId())
+                    .withNoStream(true)
+                    .exec(callback)
+                    .awaitCompletion(STATS_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while sampling gateway CPU usage", e);
+        }
+        if (sample.get() < 0) {
+            throw new IllegalStateException("Docker stats did not report CPU usage");
+        }
+        return new Usage(sample.get(), networkBytes.get());
+    }
+
+    /**
+     * Check if the gateway is paused.
+     *
+     * @return true if the gateway is paused.
+     */
+    public synchronized boolean isPaused() {
+        return paused;
+    }
+
+    /**
+     * Get the idle time after which the gateway is paused.
+     *
+     * @return the idle timeout.
+     */
+    public Duration getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    /**
+     * Get the number of times the gateway was paused.
+     *
+     * @return the number of pauses.
+     */
+    public synchronized long getPauseCount() {
+        return pauseCount;
+    }
+
+    /**
+     * Get the total time the gateway was paused, including the current pause.
+     *
+     * @return the total paused time.
+     */
+    public synchronized Duration getPausedTime() {
+        return Duration.ofNanos(pausedNanos + (paused ? System.nanoTime() - pausedAt : 0));
+    }
+
+    /**
+     * Get the CPU time saved by pausing the gateway, including the current pause.
+     *
+     * @return the estimated CPU time saved.
+     */
+    public synchronized Duration getCpuTimeSaved() {
+        long current = paused ? (long) ((System.nanoTime() - pausedAt) * idleCpuRate) : 0;
+        return Duration.ofNanos(cpuSavedNanos + current);
+    }
+
+    /**
+     * Format the idle pauses as human-readable text.
+     *
+     * @return the summary.
+     */
+    public String toSummary() {
+        return String.format(
+                "Gateway was paused %d times for %d ms, saving an estimated %d ms of CPU time",
+                getPauseCount(), getPausedTime().toMillis(), getCpuTimeSaved().toMillis());
+    }
+
+    @Override
+    public String toString() {
+        return toSummary();
+    }
+
+    /** Cumulative resource usage of the gateway container. */
+    private static final class Usage {
+        private final long cpuNanos;
+        private final long networkBytes;
+
+        private Usage(long cpuNanos, long networkBytes) {
+            this.cpuNanos = cpuNanos;
+            this.networkBytes = networkBytes;
+        }
+    }
+}
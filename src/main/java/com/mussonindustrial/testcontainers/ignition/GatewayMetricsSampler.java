@@ -0,0 +1,423 @@
+package com.mussonindustrial.testcontainers.ignition;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.JMException;
+import javax.management.MBeanServerConnection;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.remote.JMXConnector;
+import javax.management.remote.JMXConnectorFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Samples heap, GC, thread and CPU metrics of a running gateway JVM over JMX.
+ *
+ * <p>Samples are taken on a single background thread at a fixed interval and kept in a fixed-size ring buffer, so
+ * the oldest samples are dropped once it is full. Each sample reads a handful of attributes in one request per
+ * MBean, which keeps the overhead on the gateway negligible.
+ *
+ * <pre>{@code
+ * try (GatewayMetricsSampler sampler = new GatewayMetricsSampler(ignition).start()) {
+ *     // ... exercise the gateway
+ *     sampler.assertHeapUsageBelow(0.7);
+ * }
+ * }</pre>
+ *
+ * @see IgnitionContainer#withJmx()
+ */
+public class GatewayMetricsSampler implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(GatewayMetricsSampler.class);
+
+    private static final ObjectName MEMORY = objectName("java.lang:type=Memory");
+
+    private static final ObjectName THREADING = objectName("java.lang:type=Threading");
+
+    private static final ObjectName OPERATING_SYSTEM = objectName("java.lang:type=OperatingSystem");
+
+    private static final ObjectName GARBAGE_COLLECTORS = objectName("java.lang:type=GarbageCollector,*");
+
+    private final IgnitionContainer container;
+
+    private Duration interval = Duration.ofSeconds(1);
+
+    private int capacity = 600;
+
+    private Sample[] buffer;
+
+    private int next = 0;
+
+    private int size = 0;
+
+    private long failures = 0;
+
+    private JMXConnector connector;
+
+    private ScheduledExecutorService executor;
+
+    /**
+     * Create a sampler for a gateway.
+     *
+     * @param container the running gateway container, with JMX enabled.
+     */
+    public GatewayMetricsSampler(IgnitionContainer container) {
+        this.container = container;
+    }
+
+    /**
+     * Set the time between samples. Defaults to 1 second.
+     *
+     * @param interval the sampling interval.
+     * @return this {@link GatewayMetricsSampler} for chaining purposes.
+     */
+    @SuppressWarnings("unused")
+    public GatewayMetricsSampler withInterval(Duration interval) {
+        if (interval.isNegative() || interval.isZero()) {
+            throw new IllegalArgumentException("interval must be positive");
+        }
+        this.interval = interval;
+        return this;
+    }
+
+    /**
+     * Set the number of samples kept. Defaults to 600, ten minutes at the default interval.
+     *
+     * @param capacity the number of samples kept.
+     * @return this {@link GatewayMetricsSampler} for chaining purposes.
+     */
+    @SuppressWarnings("unused")
+    public GatewayMetricsSampler withCapacity(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1");
+        }
+        this.capacity = capacity;
+        return this;
+    }
+
+    /**
+     * Connect to the gateway JVM and start sampling. The first sample is taken immediately.
+     *
+     * @return this {@link GatewayMetricsSampler} for chaining purposes.
+     * @throws IllegalStateException if the sampler is already started or can't connect.
+     */
+    public synchronized GatewayMetricsSampler start() {
+        if (executor != null) {
+            throw new IllegalStateException("Sampler is already started");
+        }
+
+        try {
+            connector = JMXConnectorFactory.connect(container.getJmxServiceUrl());
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to connect to gateway JMX", e);
+        }
+
+        buffer = new Sample[capacity];
+        next = 0;
+        size = 0;
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ignition-metrics-sampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleAtFixedRate(this::sample, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+        return this;
+    }
+
+    /**
+     * Get the samples in the buffer.
+     *
+     * @return the samples, oldest first.
+     */
+    public synchronized List<Sample> getSamples() {
+        List<Sample> samples = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            samples.add(buffer[(next - size + i + capacity) % capacity]);
+        }
+        return samples;
+    }
+
+    /**
+     * Get the most recent sample.
+     *
+     * @return the most recent sample, or empty if no sample has been taken yet.
+     */
+    public synchronized Optional<Sample> getLatest() {
+        return size == 0 ? Optional.empty() : Optional.of(buffer[(next - 1 + capacity) % capacity]);
+    }
+
+    /**
+     * Get the number of samples that failed, for example because the gateway was restarting.
+     *
+     * @return the number of failed samples.
+     */
+    public synchronized long getFailureCount() {
+        return failures;
+    }
+
+    /**
+     * Assert that heap usage stayed below a fraction of the maximum heap in every sample.
+     *
+     * @param fraction the maximum heap usage, between 0 and 1.
+     * @throws AssertionError if any sample exceeded the limit, or there are no samples.
+     */
+    public void assertHeapUsageBelow(double fraction) {
+        assertBelow("heap usage", Sample::getHeapUsage, fraction);
+    }
+
+    /**
+     * Assert that the gateway process CPU load stayed below a fraction of all CPUs in every sample.
+     *
+     * @param fraction the maximum CPU load, between 0 and 1.
+     * @throws AssertionError if any sample exceeded the limit, or there are no samples.
+     */
+    public void assertCpuLoadBelow(double fraction) {
+        assertBelow("process CPU load", Sample::getProcessCpuLoad, fraction);
+    }
+
+    /**
+     * Assert that the gateway thread count stayed below a limit in every sample.
+     *
+     * @param threads the maximum number of live threads.
+     * @throws AssertionError if any sample exceeded the limit, or there are no samples.
+     */
+    public void assertThreadCountBelow(int threads) {
+        assertBelow("thread count", Sample::getThreadCount, threads);
+    }
+
+    /**
+     * Stop sampling and disconnect. The samples taken remain available.
+     */
+    @Override
+    public synchronized void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        if (connector != null) {
+            try {
+                connector.close();
+            } catch (IOException e) {
+                logger.debug("Unable to close gateway JMX connection.", e);
+            }
+            connector = null;
+        }
+    }
+
+    private void assertBelow(String metric, ToDoubleFunction<Sample> value, double limit) {
+        List<Sample> samples = getSamples();
+        if (samples.isEmpty()) {
+            throw new AssertionError(String.format("No samples to check %s against", metric));
+        }
+        for (Sample sample : samples) {
+            if (value.applyAsDouble(sample) >= limit) {
+                throw new AssertionError(String.format(
+                        "Gateway %s was %s at %s, expected below %s",
+                        metric, value.applyAsDouble(sample), sample.getTimestamp(), limit));
+            }
+        }
+    }
+
+    private void sample() {
+        Sample sample;
+        try {
+            container.resumeIfIdle();
+            MBeanServerConnection connection = connector.getMBeanServerConnection();
+            Map<String, Object> memory = getAttributes(connection, MEMORY, "HeapMemoryUsage", "NonHeapMemoryUsage");
+            Map<String, Object> threading = getAttributes(connection, THREADING, "ThreadCount");
+            Map<String, Object> system = getAttributes(connection, OPERATING_SYSTEM, "ProcessCpuLoad");
+
+            long gcCount = 0;
+            long gcTime = 0;
+            for (ObjectName collector : connection.queryNames(GARBAGE_COLLECTORS, null)) {
+                Map<String, Object> gc = getAttributes(connection, collector, "CollectionCount", "CollectionTime");
+                gcCount += Math.max(0, ((Number) gc.getOrDefault("CollectionCount", 0L)).longValue());
+                gcTime += Math.max(0, ((Number) gc.getOrDefault("CollectionTime", 0L)).longValue());
+            }
+
+            CompositeData heap = (CompositeData) memory.get("HeapMemoryUsage");
+            CompositeData nonHeap = (CompositeData) memory.get("NonHeapMemoryUsage");
+            sample = new Sample(
+                    Instant.now(),
+                    (Long) heap.get("used"),
+                    (Long) heap.get("max") > 0 ? (Long) heap.get("max") : (Long) heap.get("committed"),
+                    (Long) nonHeap.get("used"),
+                    ((Number) threading.getOrDefault("ThreadCount", 0)).intValue(),
+                    ((Number) system.getOrDefault("ProcessCpuLoad", -1.0)).doubleValue(),
+                    gcCount,
+                    Duration.ofMillis(gcTime));
+        } catch (IOException | JMException | RuntimeException e) {
+            synchronized (this) {
+                failures++;
+            }
+            logger.debug("Unable to sample gateway metrics.", e);
+            return;
+        }
+
+        synchronized (this) {
+            buffer[next] = sample;
+            next = (next + 1) % capacity;
+            size = Math.min(size + 1, capacity);
+        }
+    }
+
+    private static Map<String, Object> getAttributes(
+            MBeanServerConnection connection, ObjectName name, String... attributes) throws IOException, JMException {
+        AttributeList list = connection.getAttributes(name, attributes);
+        Map<String, Object> values = new HashMap<>();
+        for (Attribute attribute : list.asList()) {
+            values.put(attribute.getName(), attribute.getValue());
+        }
+        return values;
+    }
+
+    private static ObjectName objectName(String name) {
+        try {
+            return new ObjectName(name);
+        } catch (JMException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    /** A single metrics sample of the gateway JVM. */
+    public static final class Sample {
+
+        private final Instant timestamp;
+
+        private final long heapUsed;
+
+        private final long heapMax;
+
+        private final long nonHeapUsed;
+
+        private final int threadCount;
+
+        private final double processCpuLoad;
+
+        private final long gcCount;
+
+        private final Duration gcTime;
+
+        Sample(
+                Instant timestamp,
+                long heapUsed,
+                long heapMax,
+                long nonHeapUsed,
+                int threadCount,
+                double processCpuLoad,
+                long gcCount,
+                Duration gcTime) {
+            this.timestamp = timestamp;
+            this.heapUsed = heapUsed;
+            this.heapMax = heapMax;
+            this.nonHeapUsed = nonHeapUsed;
+            this.threadCount = threadCount;
+            this.processCpuLoad = processCpuLoad;
+            this.gcCount = gcCount;
+            this.gcTime = gcTime;
+        }
+
+        /**
+         * Get the time the sample was taken.
+         *
+         * @return the sample time.
+         */
+        public Instant getTimestamp() {
+            return timestamp;
+        }
+
+        /**
+         * Get the heap in use.
+         *
+         * @return the used heap, in bytes.
+         */
+        public long getHeapUsed() {
+            return heapUsed;
+        }
+
+        /**
+         * Get the maximum heap, or the committed heap if the JVM has no maximum.
+         *
+         * @return the maximum heap, in bytes.
+         */
+        public long getHeapMax() {
+            return heapMax;
+        }
+
+        /**
+         * Get the heap in use as a fraction of the maximum heap.
+         *
+         * @return the heap usage, between 0 and 1.
+         */
+        public double getHeapUsage() {
+            return heapMax > 0 ? (double) heapUsed / heapMax : 0;
+        }
+
+        /**
+         * Get the non-heap memory in use, such as metaspace and code cache.
+         *
+         * @return the used non-heap memory, in bytes.
+         */
+        public long getNonHeapUsed() {
+            return nonHeapUsed;
+        }
+
+        /**
+         * Get the number of live threads.
+         *
+         * @return the thread count.
+         */
+        public int getThreadCount() {
+            return threadCount;
+        }
+
+        /**
+         * Get the recent CPU load of the gateway process, as a fraction of all CPUs available to it.
+         *
+         * @return the CPU load between 0 and 1, or a negative value if the JVM doesn't report it.
+         */
+        public double getProcessCpuLoad() {
+            return processCpuLoad;
+        }
+
+        /**
+         * Get the total number of garbage collections since the gateway started.
+         *
+         * @return the total GC count.
+         */
+        public long getGcCount() {
+            return gcCount;
+        }
+
+        /**
+         * Get the total time spent in garbage collection since the gateway started.
+         *
+         * @return the total GC time.
+         */
+        public Duration getGcTime() {
+            return gcTime;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "Sample(%s, heap=%d/%dMB, nonHeap=%dMB, threads=%d, cpu=%.2f, gc=%d/%dms)",
+                    timestamp,
+                    heapUsed >> 20,
+                    heapMax >> 20,
+                    nonHeapUsed >> 20,
+                    threadCount,
+                    processCpuLoad,
+                    gcCount,
+                    gcTime.toMillis());
+        }
+    }
+}
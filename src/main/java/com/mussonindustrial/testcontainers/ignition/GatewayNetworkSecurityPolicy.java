@@ -0,0 +1,23 @@
+package com.mussonindustrial.testcontainers.ignition;
+
+/** Gateway Network Incoming Connection Security Policies */
+public enum GatewayNetworkSecurityPolicy {
+    /** Only approved incoming connections are allowed */
+    APPROVED_ONLY("ApprovedOnly"),
+
+    /** Only incoming connections from a specified list of gateways are allowed */
+    SPECIFIED_LIST("SpecifiedList"),
+
+    /** All incoming connections are allowed */
+    UNRESTRICTED("Unrestricted");
+
+    private final String value;
+
+    GatewayNetworkSecurityPolicy(String value) {
+        this.value = value;
+    }
+
+    public String toString() {
+        return this.value;
+    }
+}
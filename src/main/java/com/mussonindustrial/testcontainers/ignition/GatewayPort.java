@@ -0,0 +1,35 @@
+package com.mussonindustrial.testcontainers.ignition;
+
+/** Gateway ports that can be placed behind a {@link GatewayFaultProxy} */
+public enum GatewayPort {
+    /** Gateway web interface (HTTP) */
+    GATEWAY(IgnitionContainer.GATEWAY_PORT),
+
+    /**
+     * Gateway Network over SSL. Gateway Network connections without SSL use the {@link #GATEWAY} port.
+     * Connections from other gateways only go through the proxy when they are made by an {@link IgnitionCluster}.
+     */
+    GAN(IgnitionContainer.GAN_PORT),
+
+    /** OPC UA server */
+    OPC_UA(IgnitionContainer.OPCUA_PORT);
+
+    private final int value;
+
+    GatewayPort(int value) {
+        this.value = value;
+    }
+
+    /**
+     * Get the port inside the container.
+     *
+     * @return the container port.
+     */
+    public int getPort() {
+        return value;
+    }
+
+    public String toString() {
+        return String.valueOf(this.value);
+    }
+}
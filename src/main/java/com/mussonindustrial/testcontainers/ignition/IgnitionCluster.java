@@ -0,0 +1,272 @@
+package com.mussonindustrial.testcontainers.ignition;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testcontainers.Testcontainers;
+import org.testcontainers.containers.ContainerLaunchException;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.Network;
+import org.testcontainers.lifecycle.Startable;
+
+/**
+ * A group of Ignition gateways on a shared Docker network, started in parallel and connected over the
+ * Gateway Network.
+ *
+ * <pre>{@code
+ * try (IgnitionCluster cluster = new IgnitionCluster()
+ *         .withGateway("frontend", new IgnitionContainer(image).acceptLicense())
+ *         .withGateway("backend", new IgnitionContainer(image).acceptLicense())
+ *         .withGatewayNetworkConnection("frontend", "backend")) {
+ *     cluster.start();
+ *     String url = cluster.getGateway("frontend").getGatewayUrl();
+ * }
+ * }</pre>
+ */
+public class IgnitionCluster implements Startable {
+
+    private static final Logger logger = LoggerFactory.getLogger(IgnitionCluster.class);
+
+    private final Map<String, IgnitionContainer> gateways = new LinkedHashMap<>();
+
+    private final List<String[]> connections = new ArrayList<>();
+
+    private Network network;
+
+    private int maxConcurrentStarts = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+    private boolean ssl = false;
+
+    /**
+     * Add a gateway to the cluster.
+     *
+     * @param alias the network alias of the gateway, unique within the cluster.
+     * @param container the unstarted gateway container.
+     * @return this {@link IgnitionCluster} for chaining purposes.
+     */
+    public IgnitionCluster withGateway(String alias, IgnitionContainer container) {
+        if (gateways.putIfAbsent(alias, container) != null) {
+            throw new IllegalArgumentException(String.format("gateway '%s' is already in the cluster", alias));
+        }
+        return this;
+    }
+
+    /**
+     * Add an outgoing Gateway Network connection from one gateway to another.
+     *
+     * <p>If the accepting gateway has a fault proxy in front of the port the connection uses, see
+     * {@link IgnitionContainer#withFaultProxy(GatewayPort...)}, the connection goes through the proxy.
+     *
+     * @param from the alias of the gateway that makes the connection.
+     * @param to the alias of the gateway that accepts the connection.
+     * @return this {@link IgnitionCluster} for chaining purposes.
+     */
+    public IgnitionCluster withGatewayNetworkConnection(String from, String to) {
+        getGateway(from);
+        getGateway(to);
+        connections.add(new String[] {from, to});
+        return this;
+    }
+
+    /**
+     * Set the maximum number of gateways that start at the same time.
+     *
+     * @param maxConcurrentStarts the maximum number of concurrent starts.
+     * @return this {@link IgnitionCluster} for chaining purposes.
+     */
+    @SuppressWarnings("unused")
+    public IgnitionCluster withMaxConcurrentStarts(int maxConcurrentStarts) {
+        if (maxConcurrentStarts < 1) {
+            throw new IllegalArgumentException("maxConcurrentStarts must be at least 1");
+        }
+        this.maxConcurrentStarts = maxConcurrentStarts;
+        return this;
+    }
+
+    /**
+     * Set whether Gateway Network connections use SSL.
+     * Defaults to false, connecting over the gateway HTTP port.
+     *
+     * @param ssl true to connect using SSL on the Gateway Network port.
+     * @return this {@link IgnitionCluster} for chaining purposes.
+     */
+    @SuppressWarnings("unused")
+    public IgnitionCluster withSsl(boolean ssl) {
+        this.ssl = ssl;
+        return this;
+    }
+
+    /**
+     * Get a gateway in the cluster.
+     *
+     * @param alias the alias of the gateway.
+     * @return the gateway container.
+     * @throws IllegalArgumentException if there is no gateway with the alias.
+     */
+    public IgnitionContainer getGateway(String alias) {
+        IgnitionContainer container = gateways.get(alias);
+        if (container == null) {
+            throw new IllegalArgumentException(String.format("gateway '%s' is not in the cluster", alias));
+        }
+        return container;
+    }
+
+    /**
+     * Get all gateways in the cluster, by alias.
+     *
+     * @return the gateways in the cluster.
+     */
+    @SuppressWarnings("unused")
+    public Map<String, IgnitionContainer> getGateways() {
+        return Collections.unmodifiableMap(gateways);
+    }
+
+    /**
+     * Get the Docker network shared by the gateways.
+     *
+     * @return the shared network, or null if the cluster hasn't been started.
+     */
+    @SuppressWarnings("unused")
+    public Network getNetwork() {
+        return network;
+    }
+
+    /**
+     * Start all gateways in parallel and wait for them to be ready.
+     * If any gateway fails to start, all gateways are stopped and the failure is thrown immediately.
+     */
+    @Override
+    public void start() {
+        try {
+            startAsync().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Start all gateways in parallel.
+     * If any gateway fails to start, all gateways are stopped and the future fails immediately.
+     *
+     * @return a future that completes with this cluster once all gateways have started.
+     */
+    public CompletableFuture<IgnitionCluster> startAsync() {
+        configureGateways();
+
+        ExecutorService executor = Executors.newFixedThreadPool(maxConcurrentStarts, new StartThreadFactory());
+        CompletableFuture<Void> firstFailure = new CompletableFuture<>();
+        List<CompletableFuture<IgnitionContainer>> starts = new ArrayList<>();
+
+        gateways.forEach((alias, container) -> starts.add(container
+                .startAsync(executor)
+                .whenComplete((started, e) -> {
+                    if (e != null) {
+                        firstFailure.completeExceptionally(new ContainerLaunchException(
+                                String.format("Gateway '%s' failed to start", alias), unwrap(e)));
+                    }
+                })));
+
+        CompletableFuture<Void> allStarted = CompletableFuture.allOf(starts.toArray(CompletableFuture[]::new));
+
+        return CompletableFuture.anyOf(allStarted, firstFailure).handle((result, e) -> {
+            executor.shutdown();
+            if (e == null) {
+                return this;
+            }
+
+            // Don't start queued gateways. GenericContainer isn't safe to stop while it is starting, so stop each
+            // gateway once its own start has returned, successful or not, since a failed start may still have
+            // created the container. Gateways whose start has already returned are stopped right away.
+            executor.shutdownNow();
+            List<IgnitionContainer> members = new ArrayList<>(gateways.values());
+            for (int i = 0; i < starts.size(); i++) {
+                IgnitionContainer member = members.get(i);
+                starts.get(i).whenComplete((container, ignored) -> stopQuietly(member));
+            }
+            throw unwrap(e) instanceof RuntimeException
+                    ? (RuntimeException) unwrap(e)
+                    : new ContainerLaunchException("Cluster failed to start", unwrap(e));
+        });
+    }
+
+    /**
+     * Stop all gateways and remove the shared network.
+     */
+    @Override
+    public void stop() {
+        gateways.values().forEach(IgnitionCluster::stopQuietly);
+        if (network != null) {
+            network.close();
+            network = null;
+        }
+    }
+
+    private void configureGateways() {
+        if (network == null) {
+            network = Network.newNetwork();
+        }
+
+        Set<String> incoming = new HashSet<>();
+        connections.forEach(connection -> incoming.add(connection[1]));
+
+        gateways.forEach((alias, container) -> {
+            container.withNetwork(network).withNetworkAliases(alias);
+            if (incoming.contains(alias)) {
+                container.withGatewayNetworkSecurityPolicy(GatewayNetworkSecurityPolicy.UNRESTRICTED);
+                container.withGatewayNetworkRequireSsl(ssl);
+            }
+        });
+
+        for (String[] connection : connections) {
+            IgnitionContainer from = getGateway(connection[0]);
+            IgnitionContainer to = getGateway(connection[1]);
+            GatewayPort port = ssl ? GatewayPort.GAN : GatewayPort.GATEWAY;
+            if (to.hasFaultProxy(port)) {
+                // The proxy runs in the test JVM, which the gateway reaches through a host port exposed by
+                // Testcontainers. It has to be listening before the connecting gateway is created.
+                GatewayFaultProxy proxy = to.openFaultProxy(port);
+                Testcontainers.exposeHostPorts(proxy.getPort());
+                from.withGatewayNetworkConnection(GenericContainer.INTERNAL_HOST_HOSTNAME, proxy.getPort(), ssl);
+            } else {
+                from.withGatewayNetworkConnection(connection[1], port.getPort(), ssl);
+            }
+            from.addGatewayNetworkPeer(to);
+        }
+        connections.clear();
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        while (e instanceof CompletionException && e.getCause() != null) {
+            e = e.getCause();
+        }
+        return e;
+    }
+
+    private static void stopQuietly(IgnitionContainer container) {
+        try {
+            container.stop();
+        } catch (RuntimeException e) {
+            logger.warn("Unable to stop cluster gateway.", e);
+        }
+    }
+
+    private static final class StartThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "ignition-cluster-start-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -1,14 +1,47 @@
 package com.mussonindustrial.testcontainers.ignition;
 
+import com.github.dockerjava.api.command.CreateContainerCmd;
 import com.github.dockerjava.api.command.InspectContainerResponse;
+import com.github.dockerjava.api.model.ExposedPort;
+import com.github.dockerjava.api.model.Mount;
+import com.github.dockerjava.api.model.MountType;
+import com.github.dockerjava.api.model.Ports;
+import com.github.dockerjava.api.model.VolumeOptions;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import javax.management.remote.JMXServiceURL;
+import org.testcontainers.containers.Container;
+import org.testcontainers.containers.ContainerLaunchException;
 import org.testcontainers.containers.GenericContainer;
-import org.testcontainers.containers.wait.strategy.Wait;
+import org.testcontainers.containers.output.FrameConsumerResultCallback;
+import org.testcontainers.containers.output.OutputFrame;
 import org.testcontainers.utility.DockerImageName;
-import org.testcontainers.utility.MountableFile;
 
 /**
  * Testcontainers implementation for Ignition.
@@ -32,17 +65,70 @@ public class IgnitionContainer extends GenericContainer<IgnitionContainer> {
     @Deprecated
     private static final String DEFAULT_TAG = "8.1.33";
 
-    private static final Integer GATEWAY_PORT = 8088;
+    static final Integer GATEWAY_PORT = 8088;
 
     private static final Integer GATEWAY_SSL_PORT = 8043;
 
-    private static final Integer GAN_PORT = 8060;
+    static final Integer GAN_PORT = 8060;
 
-    private static final Integer OPCUA_PORT = 62541;
+    static final Integer OPCUA_PORT = 62541;
 
     private static final Integer DEBUG_PORT = 8000;
 
-    private static final String INSTALL_DIR = "/usr/local/bin/ignition";
+    /** JMX ports are picked from this range, below the ephemeral ports the host hands out. */
+    private static final int JMX_PORT_RANGE_START = 20000;
+
+    private static final int JMX_PORT_RANGE_SIZE = 10000;
+
+    private static final int JMX_PORT_ATTEMPTS = 5;
+
+    /** JMX ports bound by gateways started from this JVM. */
+    private static final Set<Integer> JMX_PORTS_IN_USE = ConcurrentHashMap.newKeySet();
+
+    static final String INSTALL_DIR = "/usr/local/bin/ignition";
+
+    static final String DATA_DIR = INSTALL_DIR + "/data";
+
+    static final String MODULES_DIR = INSTALL_DIR + "/user-lib/modules";
+
+    private static final String DATA_SNAPSHOT_DIR = INSTALL_DIR + "/.testcontainers/data";
+
+    /** Where the volume that seeds the data directory is mounted, see {@link DataDirectoryStrategy}. */
+    private static final String DATA_SEED_DIR = INSTALL_DIR + "/.testcontainers/seed";
+
+    /** Marks a persistent data directory that already holds gateway data, so it isn't overwritten by a snapshot. */
+    private static final String DATA_SEEDED_MARKER = DATA_DIR + "/.testcontainers-seeded";
+
+    private static final String RESTORE_PATH = "/restore.gwbk";
+
+    private static final String FINGERPRINT_LABEL = "com.mussonindustrial.testcontainers.ignition.fingerprint";
+
+    private static final Duration RESTART_DETECTION_TIMEOUT = Duration.ofSeconds(30);
+
+    private static final Duration RESTORE_TIMEOUT = Duration.ofMinutes(5);
+
+    private static final Duration MODULE_START_TIMEOUT = Duration.ofMinutes(2);
+
+    /** One hour of Docker stats, which are sampled once per second. */
+    private static final int CONTAINER_STATS_CAPACITY = 3600;
+
+    private static final String MODULE_UPLOAD_PATH = "system/DeveloperModuleLoadingServlet";
+
+    private static final List<String> MODULE_DEVELOPER_ARGS =
+            List.of("-Dia.developer.moduleupload=true", "-Dignition.allowunsignedmodules=true");
+
+    private static final ExecutorService START_EXECUTOR = Executors.newCachedThreadPool(new ThreadFactory() {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "ignition-start-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private final DockerImageName baseImageName;
 
     private String username;
 
@@ -60,9 +146,20 @@ public class IgnitionContainer extends GenericContainer<IgnitionContainer> {
 
     private String maxMemory;
 
-    private final Set<IgnitionModule> modules = new HashSet<>();
+    private final Set<IgnitionModule> modules = new TreeSet<>(Comparator.comparing(IgnitionModule::getIdentifier));
+
+    private final Set<IgnitionModule> enabledModules =
+            new TreeSet<>(Comparator.comparing(IgnitionModule::getIdentifier));
+
+    private boolean modulesFromGatewayBackup = false;
+
+    private final Set<Path> thirdPartyModules =
+            new TreeSet<>(Comparator.comparing(Path::getFileName).thenComparing(Comparator.naturalOrder()));
 
-    private final Set<Path> thirdPartyModules = new HashSet<>();
+    private boolean moduleDeveloperMode = false;
+
+    /** Content hash of each deployed third-party module, by module id. */
+    private final Map<String, String> deployedModules = new HashMap<>();
 
     private boolean licenseAccepted = false;
 
@@ -70,6 +167,13 @@ public class IgnitionContainer extends GenericContainer<IgnitionContainer> {
 
     private Boolean debugMode = false;
 
+    private boolean jmxEnabled = false;
+
+    private Integer jmxPort;
+
+    /** Set while start() relaunches after a JMX port conflict, so the resolved configuration is kept. */
+    private boolean relaunching = false;
+
     private Path gatewayBackup;
 
     private boolean restoreDisabled = false;
@@ -80,6 +184,77 @@ public class IgnitionContainer extends GenericContainer<IgnitionContainer> {
 
     private List<String> additionalArgs;
 
+    private ResourceProfile resourceProfile;
+
+    private DataDirectoryStrategy dataDirectory = DataDirectoryStrategy.DEFAULT;
+
+    private String dataDirectoryVolume;
+
+    private String dataDirectorySeed;
+
+    private boolean reuseEnabled = false;
+
+    private final List<GatewayNetworkConnection> gatewayNetworkConnections = new ArrayList<>();
+
+    /** Gateways connected to this one over the Gateway Network, resumed along with it. */
+    private final Set<IgnitionContainer> gatewayNetworkPeers = ConcurrentHashMap.newKeySet();
+
+    private GatewayNetworkSecurityPolicy gatewayNetworkSecurityPolicy;
+
+    private Boolean gatewayNetworkRequireSsl;
+
+    private String imageCacheKey;
+
+    private IgnitionImageCache imageCache;
+
+    private boolean imageCacheHit = false;
+
+    private boolean failFast = true;
+
+    private List<String> fatalLogPatterns = FatalLogMonitor.DEFAULT_PATTERNS;
+
+    private FatalLogMonitor fatalLogMonitor;
+
+    private final StartupTimer startupTimer = new StartupTimer();
+
+    private StartupReport startupReport;
+
+    private boolean startupReportLogging = false;
+
+    private final ContainerFileStager fileStager = new ContainerFileStager();
+
+    private IgnitionGatewayClient gatewayClient;
+
+    private Path projectSyncDir;
+
+    private String projectSyncName;
+
+    private String projectScanEndpoint;
+
+    private ProjectSync projectSync;
+
+    private IgnitionOpcUaClient opcUaClient;
+
+    private GatewayFlightRecorder flightRecorder;
+
+    private Path flightRecordingDir;
+
+    private FlightRecordingSummary flightRecordingSummary;
+
+    private boolean containerStatsEnabled = false;
+
+    private Path containerStatsExport;
+
+    private ContainerStatsCollector containerStats;
+
+    private Duration idlePauseTimeout;
+
+    private GatewayIdleManager idleManager;
+
+    private final Set<GatewayPort> faultProxyPorts = EnumSet.noneOf(GatewayPort.class);
+
+    private final Map<GatewayPort, GatewayFaultProxy> faultProxies = new EnumMap<>(GatewayPort.class);
+
     /**
      * Creates a new Ignition container with the default image and version.
      *
@@ -108,7 +283,13 @@ public class IgnitionContainer extends GenericContainer<IgnitionContainer> {
         super(dockerImageName);
         dockerImageName.assertCompatibleWith(DEFAULT_IMAGE_NAME);
 
-        this.waitStrategy = Wait.forHealthcheck();
+        this.baseImageName = dockerImageName;
+        this.waitStrategy = new IgnitionWaitStrategy();
+        this.withCreateContainerCmdModifier(this::applySeedEntrypoint);
+        this.withCreateContainerCmdModifier(cmd -> startupTimer.imageResolved());
+        this.withCreateContainerCmdModifier(this::applyResourceLimits);
+        this.withCreateContainerCmdModifier(this::applyDataDirectory);
+        this.withCreateContainerCmdModifier(this::applyJmxPortBinding);
     }
 
     /**
@@ -176,6 +357,83 @@ public class IgnitionContainer extends GenericContainer<IgnitionContainer> {
         return self();
     }
 
+    /**
+     * Enable the commissioned gateway image cache.
+     * The image name is used as the cache key.
+     *
+     * @return this {@link IgnitionContainer} for chaining purposes.
+     * @see #withImageCache(String)
+     */
+    @SuppressWarnings("unused")
+    public IgnitionContainer withImageCache() {
+        return this.withImageCache(baseImageName.asCanonicalNameString());
+    }
+
+    /**
+     * Enable the commissioned gateway image cache.
+     *
+     * <p>After the first successful start, the commissioned gateway (EULA accepted, modules enabled,
+     * backup restored) is committed to a local image tagged with a hash of the container
+     * configuration. Later starts with the same configuration boot from that image and skip the
+     * setup phases. When the configuration for a cache key changes, the stale image is evicted, so
+     * containers with different configurations should use different cache keys.
+     *
+     * @param key the cache key to use.
+     * @return this {@link IgnitionContainer} for chaining purposes.
+     */
+    @SuppressWarnings("unused")
+    public IgnitionContainer withImageCache(String key) {
+        checkNotRunning();
+        this.imageCacheKey = key;
+        return self();
+    }
+
+    /**
+     * Enable or disable fail-fast startup.
+     *
+     * <p>When enabled (the default), the container log is watched while the gateway starts and startup is
+     * aborted with an {@link IgnitionStartupException} as soon as a fatal log pattern is matched, instead of
+     * waiting for the startup timeout.
+     *
+     * @param failFast the fail-fast setting to use.
+     * @return this {@link IgnitionContainer} for chaining purposes.
+     * @see #withFatalLogPatterns(String...)
+     */
+    @SuppressWarnings("unused")
+    public IgnitionContainer withFailFast(boolean failFast) {
+        checkNotRunning();
+        this.failFast = failFast;
+        return self();
+    }
+
+    /**
+     * Set the log patterns that abort startup when fail-fast is enabled.
+     * Replaces the default patterns, which only detect failed backup restores, EULA errors and JVM crashes.
+     * Add patterns for module or license errors that should abort startup, for example
+     * {@code "(?i)\\bmodule\\b.*\\bfaulted\\b"}.
+     *
+     * @param patterns one or more regular expressions, matched anywhere in a log line.
+     * @return this {@link IgnitionContainer} for chaining purposes.
+     */
+    @SuppressWarnings("unused")
+    public IgnitionContainer withFatalLogPatterns(String... patterns) {
+        checkNotRunning();
+        this.fatalLogPatterns = List.of(patterns);
+        return self();
+    }
+
+    /**
+     * Log a summary of the {@link StartupReport} once the container has started.
+     *
+     * @return this {@link IgnitionContainer} for chaining purposes.
+     */
+    @SuppressWarnings("unused")
+    public IgnitionContainer withStartupReportLogging() {
+        checkNotRunning();
+        this.startupReportLogging = true;
+        return self();
+    }
+
     /**
      * Set the gateway edition.
      *
@@ -278,266 +536,1250 @@ public class IgnitionContainer extends GenericContainer<IgnitionContainer> {
     }
 
     /**
-     * Set the GID of the process running the Ignition gateway.
+     * Add an outgoing Gateway Network connection to another gateway.
+     * Uses SSL on the default Gateway Network port.
      *
-     * @param gid the GID to use.
+     * @param host the host of the remote gateway.
      * @return this {@link IgnitionContainer} for chaining purposes.
      */
     @SuppressWarnings("unused")
-    public IgnitionContainer withGid(int gid) {
-        checkNotRunning();
-        this.gid = gid;
-        return self();
+    public IgnitionContainer withGatewayNetworkConnection(String host) {
+        return this.withGatewayNetworkConnection(host, GAN_PORT, true);
     }
 
     /**
-     * Set a license key for the gateway.
+     * Add an outgoing Gateway Network connection to another gateway.
      *
-     * @param key the license key to use.
+     * @param host the host of the remote gateway.
+     * @param port the Gateway Network port of the remote gateway.
+     * @param ssl true to connect using SSL.
      * @return this {@link IgnitionContainer} for chaining purposes.
      */
     @SuppressWarnings("unused")
-    public IgnitionContainer withLicenseKey(String key) {
+    public IgnitionContainer withGatewayNetworkConnection(String host, int port, boolean ssl) {
         checkNotRunning();
-        this.licenseKey = key;
+        this.gatewayNetworkConnections.add(new GatewayNetworkConnection(host, port, ssl));
         return self();
     }
 
     /**
-     * Set the maximum memory usage of the gateway.
+     * Set the Gateway Network security policy for incoming connections.
      *
-     * @param maxMemory the maximum memory to use.
+     * @param policy the security policy to use.
      * @return this {@link IgnitionContainer} for chaining purposes.
      */
     @SuppressWarnings("unused")
-    public IgnitionContainer withMaxMemory(String maxMemory) {
+    public IgnitionContainer withGatewayNetworkSecurityPolicy(GatewayNetworkSecurityPolicy policy) {
         checkNotRunning();
-        this.maxMemory = maxMemory;
+        this.gatewayNetworkSecurityPolicy = policy;
         return self();
     }
 
     /**
-     * Include modules when initializing the gateway.
+     * Set whether incoming Gateway Network connections must use SSL.
      *
-     * @param modules the modules to add.
+     * @param requireSsl true to require SSL for incoming connections.
      * @return this {@link IgnitionContainer} for chaining purposes.
      */
     @SuppressWarnings("unused")
-    public IgnitionContainer withModules(IgnitionModule... modules) {
+    public IgnitionContainer withGatewayNetworkRequireSsl(boolean requireSsl) {
         checkNotRunning();
-        this.modules.clear();
-        this.modules.addAll(List.of(modules));
+        this.gatewayNetworkRequireSsl = requireSsl;
         return self();
     }
 
     /**
-     * Include third party modules when initializing the gateway.
+     * Set the GID of the process running the Ignition gateway.
      *
-     * @param paths the paths to the module files to add.
+     * @param gid the GID to use.
      * @return this {@link IgnitionContainer} for chaining purposes.
-     * @throws FileNotFoundException if a module path does not exist.
      */
     @SuppressWarnings("unused")
-    public IgnitionContainer withThirdPartyModules(Path... paths) throws FileNotFoundException {
+    public IgnitionContainer withGid(int gid) {
         checkNotRunning();
-        this.thirdPartyModules.clear();
-
-        for (Path path : paths) {
-            if (!path.toFile().exists()) {
-                throw new FileNotFoundException(String.format("module '%s' does not exist", path));
-            }
-            this.thirdPartyModules.add(path);
-        }
-
+        this.gid = gid;
         return self();
     }
 
     /**
-     * Include third party modules when initializing the gateway.
+     * Set a license key for the gateway.
      *
-     * @param paths the paths to the module files to add.
+     * @param key the license key to use.
      * @return this {@link IgnitionContainer} for chaining purposes.
-     * @throws FileNotFoundException if a module path does not exist.
      */
-    public IgnitionContainer withThirdPartyModules(String... paths) throws FileNotFoundException {
-        return this.withThirdPartyModules(Arrays.stream(paths).map(Path::of).toArray(Path[]::new));
+    @SuppressWarnings("unused")
+    public IgnitionContainer withLicenseKey(String key) {
+        checkNotRunning();
+        this.licenseKey = key;
+        return self();
     }
 
     /**
-     * Enable or disable quick start mode.
+     * Set the maximum memory usage of the gateway.
      *
+     * @param maxMemory the maximum memory to use.
      * @return this {@link IgnitionContainer} for chaining purposes.
      */
     @SuppressWarnings("unused")
-    public IgnitionContainer withQuickStart() {
+    public IgnitionContainer withMaxMemory(String maxMemory) {
         checkNotRunning();
-        this.quickStartEnabled = true;
+        this.maxMemory = maxMemory;
         return self();
     }
 
     /**
-     * Set quick start mode.
+     * Keep a project directory on the host in sync with the running gateway.
+     * The project is named after the directory.
      *
-     * @param quickStartEnabled the quickstart mode setting to use.
+     * <p>Scans are requested from {@code data/project-scan-endpoint/scan}, which isn't part of Ignition. It is
+     * provided by a third-party project scan module, which must be installed in the gateway (for example with
+     * {@link #withThirdPartyModules(String...)}). Without it, changes are picked up on the gateway's next
+     * scheduled project scan.
+     *
+     * @param hostDir the project directory on the host.
      * @return this {@link IgnitionContainer} for chaining purposes.
+     * @throws FileNotFoundException if the directory does not exist.
+     * @see #withProjectSync(Path, String, String)
      */
     @SuppressWarnings("unused")
-    public IgnitionContainer withQuickStart(boolean quickStartEnabled) {
-        checkNotRunning();
-        this.quickStartEnabled = quickStartEnabled;
-        return self();
+    public IgnitionContainer withProjectSync(Path hostDir) throws FileNotFoundException {
+        return this.withProjectSync(hostDir, hostDir.toAbsolutePath().normalize().getFileName().toString());
     }
 
     /**
-     * Set gateway timezone.
+     * Keep a project directory on the host in sync with the running gateway.
+     * Scans are requested from the endpoint of a third-party project scan module, see
+     * {@link #withProjectSync(Path)}.
      *
-     * @param timezone the gateway timezone to use.
+     * @param hostDir the project directory on the host.
+     * @param projectName the name of the project in the gateway.
      * @return this {@link IgnitionContainer} for chaining purposes.
+     * @throws FileNotFoundException if the directory does not exist.
+     * @see #withProjectSync(Path, String, String)
      */
     @SuppressWarnings("unused")
-    public IgnitionContainer withTimezone(String timezone) {
-        checkNotRunning();
-        this.timezone = timezone;
-        return self();
+    public IgnitionContainer withProjectSync(Path hostDir, String projectName) throws FileNotFoundException {
+        return this.withProjectSync(hostDir, projectName, "data/project-scan-endpoint/scan");
     }
 
     /**
-     * Set the UID of the process running the Ignition gateway.
+     * Keep a project directory on the host in sync with the running gateway.
      *
-     * @param uid the UID to use.
+     * <p>Once the gateway is running, the project is copied into the gateway and the directory is watched. Changed
+     * files are copied into the gateway within a second of being saved, deleted files are removed, and a project
+     * scan is requested with a {@code POST} to the scan endpoint, so the gateway picks up the changes without
+     * waiting for its next scheduled scan. Scan requests are best-effort: if the endpoint is missing or fails, the
+     * changes are still copied and the gateway picks them up on its next scheduled scan.
+     *
+     * @param hostDir the project directory on the host.
+     * @param projectName the name of the project in the gateway.
+     * @param scanEndpoint the gateway path that triggers a project scan.
      * @return this {@link IgnitionContainer} for chaining purposes.
+     * @throws FileNotFoundException if the directory does not exist.
+     * @see #pullSyncedProject()
      */
     @SuppressWarnings("unused")
-    public IgnitionContainer withUid(int uid) {
+    public IgnitionContainer withProjectSync(Path hostDir, String projectName, String scanEndpoint)
+            throws FileNotFoundException {
         checkNotRunning();
-        this.uid = uid;
+        if (!Files.isDirectory(hostDir)) {
+            throw new FileNotFoundException(String.format("project directory '%s' does not exist", hostDir));
+        }
+        this.projectSyncDir = hostDir;
+        this.projectSyncName = projectName;
+        this.projectScanEndpoint = scanEndpoint;
         return self();
     }
 
     /**
-     * Set supplemental JVM/Wrapper/Gateway arguments.
-     * @param additionalArgs one or more additional arguments.
+     * Record the gateway JVM with Java Flight Recorder, using the {@code profile} settings.
+     *
      * @return this {@link IgnitionContainer} for chaining purposes.
+     * @see #withFlightRecorder(String, Path)
      */
-    public IgnitionContainer withAdditionalArgs(String... additionalArgs) {
-        checkNotRunning();
-        this.additionalArgs = List.of(additionalArgs);
-        return self();
+    @SuppressWarnings("unused")
+    public IgnitionContainer withFlightRecorder() {
+        return this.withFlightRecorder("profile");
     }
 
     /**
-     * Get the gateway admin username.
+     * Record the gateway JVM with Java Flight Recorder, writing the recording to the temporary directory.
      *
-     * @return the gateway admin username.
+     * @param settings the recording settings, {@code default}, {@code profile}, or the path of a {@code .jfc} file
+     *     in the container.
+     * @return this {@link IgnitionContainer} for chaining purposes.
+     * @see #withFlightRecorder(String, Path)
      */
     @SuppressWarnings("unused")
-    public String getUsername() {
-        return username;
+    public IgnitionContainer withFlightRecorder(String settings) {
+        return this.withFlightRecorder(settings, Path.of(System.getProperty("java.io.tmpdir")));
     }
 
     /**
-     * Get the gateway admin password.
+     * Record the gateway JVM with Java Flight Recorder from startup.
      *
-     * @return the gateway admin password.
+     * <p>When the container stops, the recording is copied to {@code outputDir} and summarized, see
+     * {@link #getFlightRecordingSummary()}. Recordings can also be taken while the gateway is running with
+     * {@link #dumpFlightRecording(Path)}.
+     *
+     * @param settings the recording settings, {@code default}, {@code profile}, or the path of a {@code .jfc} file
+     *     in the container.
+     * @param outputDir the directory to write the recording to when the container stops.
+     * @return this {@link IgnitionContainer} for chaining purposes.
      */
     @SuppressWarnings("unused")
-    public String getPassword() {
-        return password;
+    public IgnitionContainer withFlightRecorder(String settings, Path outputDir) {
+        checkNotRunning();
+        this.flightRecorder = new GatewayFlightRecorder(settings);
+        this.flightRecordingDir = outputDir;
+        return self();
     }
 
     /**
-     * Get the mapped gateway HTTP port.
+     * Collect CPU, memory, network and block I/O usage from the Docker stats stream while the container runs.
      *
-     * @return the mapped gateway HTTP port.
+     * @return this {@link IgnitionContainer} for chaining purposes.
+     * @see #getContainerStats()
      */
     @SuppressWarnings("unused")
-    public int getMappedGatewayPort() {
-        return getMappedPort(GATEWAY_PORT);
+    public IgnitionContainer withContainerStats() {
+        checkNotRunning();
+        this.containerStatsEnabled = true;
+        return self();
     }
 
     /**
-     * Get the mapped gateway HTTPS port.
+     * Collect CPU, memory, network and block I/O usage from the Docker stats stream while the container runs, and
+     * write the samples as CSV when the container stops.
      *
-     * @return the mapped gateway HTTPS port.
+     * @param exportPath the CSV file to write when the container stops.
+     * @return this {@link IgnitionContainer} for chaining purposes.
+     * @see #getContainerStats()
      */
     @SuppressWarnings("unused")
-    public int getMappedGatewaySslPort() {
-        return getMappedPort(GATEWAY_SSL_PORT);
+    public IgnitionContainer withContainerStats(Path exportPath) {
+        checkNotRunning();
+        this.containerStatsEnabled = true;
+        this.containerStatsExport = exportPath;
+        return self();
     }
 
     /**
-     * Get the mapped gateway GAN (gateway area network) port.
+     * Place an in-process TCP proxy in front of gateway ports, to simulate slow or unreliable links such as a
+     * constrained WAN to a remote edge site.
      *
-     * @return the mapped gateway GAN port.
+     * <p>The proxies start with the container and forward without faults until latency, jitter, a bandwidth cap
+     * or dropped connections are set on them, see {@link #getFaultProxy(GatewayPort)}. The URL and mapped port
+     * getters of proxied ports return the proxy endpoint, so clients created from them use the proxy. The wait
+     * strategy connects to the gateway directly. In an {@link IgnitionCluster}, Gateway Network connections to a
+     * proxied gateway go through the proxy of its {@link GatewayPort#GATEWAY} port, or {@link GatewayPort#GAN} port
+     * with SSL.
+     *
+     * @param ports the ports to proxy.
+     * @return this {@link IgnitionContainer} for chaining purposes.
      */
     @SuppressWarnings("unused")
-    public int getMappedGatewayGanPort() {
-        return getMappedPort(GAN_PORT);
+    public IgnitionContainer withFaultProxy(GatewayPort... ports) {
+        checkNotRunning();
+        this.faultProxyPorts.addAll(List.of(ports));
+        return self();
     }
 
     /**
-     * Get the mapped remote JVM debugging port.
+     * Pause the gateway with {@code docker pause} when it hasn't been used for a while, so an idle gateway doesn't
+     * take CPU from the tests that are running.
      *
-     * @return the mapped remote JVM debugging port.
+     * <p>The gateway is resumed the next time its URL, a mapped port or a client is requested, a request is sent
+     * through its clients, or a command is run in the container. It isn't paused while network traffic reaches it
+     * or a connection through a fault proxy is open. See {@link GatewayIdleManager} for the details.
+     *
+     * @param idleTimeout the time without use after which the gateway is paused.
+     * @return this {@link IgnitionContainer} for chaining purposes.
+     * @see #getIdleManager()
      */
     @SuppressWarnings("unused")
-    public int getMappedDebugPort() {
-        return getMappedPort(DEBUG_PORT);
+    public IgnitionContainer withIdlePause(Duration idleTimeout) {
+        checkNotRunning();
+        if (idleTimeout.isNegative() || idleTimeout.isZero()) {
+            throw new IllegalArgumentException("idleTimeout must be greater than 0");
+        }
+        this.idlePauseTimeout = idleTimeout;
+        return self();
     }
 
     /**
-     * Get the mapped OPC-UA server port.
+     * Set the container memory and CPU limits, and configure the gateway JVM to fit within them.
+     * The gateway heap is derived from the profile unless set with {@link #withMaxMemory(String)}.
      *
-     * @return the mapped OPC-USA server port.
+     * @param resourceProfile the resource profile, for example {@link ResourceProfile#SMALL}.
+     * @return this {@link IgnitionContainer} for chaining purposes.
      */
     @SuppressWarnings("unused")
-    public int getMappedOpcUaPort() {
-        return getMappedPort(OPCUA_PORT);
+    public IgnitionContainer withResourceProfile(ResourceProfile resourceProfile) {
+        checkNotRunning();
+        this.resourceProfile = resourceProfile;
+        return self();
     }
 
     /**
-     * Get the URL of the gateway web interface (using HTTP).
+     * Set where the gateway data directory is stored. Defaults to {@link DataDirectoryStrategy#DEFAULT}, the
+     * volume declared by the image.
      *
-     * @return the URL of the gateway web interface.
+     * <p>The gateway database, logs and restored projects are written to the data directory. Keeping it in memory
+     * with {@link DataDirectoryStrategy#tmpfs()} removes most of the disk I/O from startup and backup restores.
+     *
+     * @param dataDirectory the data directory strategy.
+     * @return this {@link IgnitionContainer} for chaining purposes.
+     * @see StartupReport#getDataDirectory()
      */
     @SuppressWarnings("unused")
-    public String getGatewayUrl() {
-        return String.format("http://%s:%d", getHost(), getMappedGatewayPort());
+    public IgnitionContainer withDataDirectory(DataDirectoryStrategy dataDirectory) {
+        checkNotRunning();
+        this.dataDirectory = Objects.requireNonNull(dataDirectory, "dataDirectory");
+        return self();
     }
 
     /**
-     * Get the gateway's OPC UA URL.
-     * Only valid if {@link GatewayModule#OPC_UA} is enabled.
+     * Reuse a running container with the same configuration, see {@link GenericContainer#withReuse(boolean)}.
+     * The data directory volume of a reusable container is named after its configuration, so it is found again
+     * along with the container.
      *
-     * @return the gateway's OPC UA URL.
+     * @param reusable true to reuse the container.
+     * @return this {@link IgnitionContainer} for chaining purposes.
      */
-    @SuppressWarnings("unused")
-    public String getOpcUaUrl() {
-        return String.format("opc.tcp://%s:%d", getHost(), getMappedOpcUaPort());
+    @Override
+    public IgnitionContainer withReuse(boolean reusable) {
+        this.reuseEnabled = reusable;
+        return super.withReuse(reusable);
     }
 
     /**
-     * Get the gateway's OPC UA Discovery URL.
-     * Only valid if {@link GatewayModule#OPC_UA} is enabled.
+     * Include modules when initializing the gateway.
      *
-     * @return the gateway's OPC UA Discovery URL.
+     * @param modules the modules to add.
+     * @return this {@link IgnitionContainer} for chaining purposes.
      */
     @SuppressWarnings("unused")
-    public String getOpcUaDiscoveryUrl() {
+    public IgnitionContainer withModules(IgnitionModule... modules) {
+        checkNotRunning();
+        this.modules.clear();
+        this.modules.addAll(List.of(modules));
+        return self();
+    }
+
+    /**
+     * Enable only the modules that the gateway backup uses, plus any listed with
+     * {@link #withModules(IgnitionModule...)}.
+     *
+     * <p>The backup's project resources and gateway configuration are scanned when the container is configured.
+     * Modules that are only referenced from scripts can't be detected, and should be listed explicitly.
+     * Starting fails if the backup uses no optional modules and none are listed, since the gateway would then load
+     * every module.
+     *
+     * @return this {@link IgnitionContainer} for chaining purposes.
+     */
+    @SuppressWarnings("unused")
+    public IgnitionContainer withModulesFromGatewayBackup() {
+        checkNotRunning();
+        this.modulesFromGatewayBackup = true;
+        return self();
+    }
+
+    /**
+     * Include third party modules when initializing the gateway.
+     *
+     * @param paths the paths to the module files to add.
+     * @return this {@link IgnitionContainer} for chaining purposes.
+     * @throws FileNotFoundException if a module path does not exist.
+     */
+    @SuppressWarnings("unused")
+    public IgnitionContainer withThirdPartyModules(Path... paths) throws FileNotFoundException {
+        checkNotRunning();
+        this.thirdPartyModules.clear();
+
+        for (Path path : paths) {
+            if (!path.toFile().exists()) {
+                throw new FileNotFoundException(String.format("module '%s' does not exist", path));
+            }
+            this.thirdPartyModules.add(path);
+        }
+
+        return self();
+    }
+
+    /**
+     * Include third party modules when initializing the gateway.
+     *
+     * @param paths the paths to the module files to add.
+     * @return this {@link IgnitionContainer} for chaining purposes.
+     * @throws FileNotFoundException if a module path does not exist.
+     */
+    public IgnitionContainer withThirdPartyModules(String... paths) throws FileNotFoundException {
+        return this.withThirdPartyModules(Arrays.stream(paths).map(Path::of).toArray(Path[]::new));
+    }
+
+    /**
+     * Allow third-party modules to be redeployed into the running gateway with {@link #redeployModule(Path)}.
+     * This enables the gateway's developer module upload and allows unsigned modules.
+     *
+     * @return this {@link IgnitionContainer} for chaining purposes.
+     */
+    @SuppressWarnings("unused")
+    public IgnitionContainer withModuleDeveloperMode() {
+        checkNotRunning();
+        this.moduleDeveloperMode = true;
+        return self();
+    }
+
+    /**
+     * Enable remote JMX on the gateway JVM, for use with {@link GatewayMetricsSampler} or any JMX client.
+     * Authentication and SSL are disabled, so only use this for test gateways.
+     *
+     * <p>JMX over RMI hands clients the port to connect back to, so the JMX port is bound to the same port on the
+     * Docker host and in the container instead of a random mapped port. The port is derived from the configuration
+     * fingerprint, so the command line stays the same for reused and cached containers. If the Docker host already
+     * has the port bound, the gateway is started again on the next port in the range.
+     *
+     * @return this {@link IgnitionContainer} for chaining purposes.
+     * @see #getJmxServiceUrl()
+     */
+    @SuppressWarnings("unused")
+    public IgnitionContainer withJmx() {
+        checkNotRunning();
+        this.jmxEnabled = true;
+        return self();
+    }
+
+    /**
+     * Enable or disable quick start mode.
+     *
+     * @return this {@link IgnitionContainer} for chaining purposes.
+     */
+    @SuppressWarnings("unused")
+    public IgnitionContainer withQuickStart() {
+        checkNotRunning();
+        this.quickStartEnabled = true;
+        return self();
+    }
+
+    /**
+     * Set quick start mode.
+     *
+     * @param quickStartEnabled the quickstart mode setting to use.
+     * @return this {@link IgnitionContainer} for chaining purposes.
+     */
+    @SuppressWarnings("unused")
+    public IgnitionContainer withQuickStart(boolean quickStartEnabled) {
+        checkNotRunning();
+        this.quickStartEnabled = quickStartEnabled;
+        return self();
+    }
+
+    /**
+     * Set gateway timezone.
+     *
+     * @param timezone the gateway timezone to use.
+     * @return this {@link IgnitionContainer} for chaining purposes.
+     */
+    @SuppressWarnings("unused")
+    public IgnitionContainer withTimezone(String timezone) {
+        checkNotRunning();
+        this.timezone = timezone;
+        return self();
+    }
+
+    /**
+     * Set the UID of the process running the Ignition gateway.
+     *
+     * @param uid the UID to use.
+     * @return this {@link IgnitionContainer} for chaining purposes.
+     */
+    @SuppressWarnings("unused")
+    public IgnitionContainer withUid(int uid) {
+        checkNotRunning();
+        this.uid = uid;
+        return self();
+    }
+
+    /**
+     * Set supplemental JVM/Wrapper/Gateway arguments.
+     * @param additionalArgs one or more additional arguments.
+     * @return this {@link IgnitionContainer} for chaining purposes.
+     */
+    public IgnitionContainer withAdditionalArgs(String... additionalArgs) {
+        checkNotRunning();
+        this.additionalArgs = List.of(additionalArgs);
+        return self();
+    }
+
+    /**
+     * Start the container asynchronously.
+     *
+     * @return a future that completes with this container once it has started.
+     */
+    @SuppressWarnings("unused")
+    public CompletableFuture<IgnitionContainer> startAsync() {
+        return this.startAsync(START_EXECUTOR);
+    }
+
+    /**
+     * Start the container asynchronously.
+     *
+     * @param executor the executor to start the container on.
+     * @return a future that completes with this container once it has started.
+     */
+    @SuppressWarnings("unused")
+    public CompletableFuture<IgnitionContainer> startAsync(Executor executor) {
+        return CompletableFuture.supplyAsync(
+                () -> {
+                    start();
+                    return self();
+                },
+                executor);
+    }
+
+    /**
+     * Get the gateway admin username.
+     *
+     * @return the gateway admin username.
+     */
+    @SuppressWarnings("unused")
+    public String getUsername() {
+        return username;
+    }
+
+    /**
+     * Get the gateway admin password.
+     *
+     * @return the gateway admin password.
+     */
+    @SuppressWarnings("unused")
+    public String getPassword() {
+        return password;
+    }
+
+    @Override
+    public Integer getMappedPort(int originalPort) {
+        resumeIfIdle();
+        return super.getMappedPort(originalPort);
+    }
+
+    @Override
+    public Container.ExecResult execInContainer(Charset outputCharset, String... command)
+            throws UnsupportedOperationException, IOException, InterruptedException {
+        resumeIfIdle();
+        return super.execInContainer(outputCharset, command);
+    }
+
+    @Override
+    public Container.ExecResult execInContainerWithUser(String user, String... command)
+            throws UnsupportedOperationException, IOException, InterruptedException {
+        resumeIfIdle();
+        return super.execInContainerWithUser(user, command);
+    }
+
+    /**
+     * Get the mapped gateway HTTP port, or the port of its fault proxy.
+     *
+     * @return the mapped gateway HTTP port.
+     */
+    @SuppressWarnings("unused")
+    public int getMappedGatewayPort() {
+        return getEndpointPort(GatewayPort.GATEWAY);
+    }
+
+    /**
+     * Get the mapped gateway HTTPS port.
+     *
+     * @return the mapped gateway HTTPS port.
+     */
+    @SuppressWarnings("unused")
+    public int getMappedGatewaySslPort() {
+        return getMappedPort(GATEWAY_SSL_PORT);
+    }
+
+    /**
+     * Get the mapped gateway GAN (gateway area network) port, or the port of its fault proxy.
+     *
+     * @return the mapped gateway GAN port.
+     */
+    @SuppressWarnings("unused")
+    public int getMappedGatewayGanPort() {
+        return getEndpointPort(GatewayPort.GAN);
+    }
+
+    /**
+     * Get the mapped remote JVM debugging port.
+     *
+     * @return the mapped remote JVM debugging port.
+     */
+    @SuppressWarnings("unused")
+    public int getMappedDebugPort() {
+        return getMappedPort(DEBUG_PORT);
+    }
+
+    /**
+     * Get the mapped JMX port.
+     *
+     * @return the mapped JMX port.
+     * @throws IllegalStateException if JMX isn't enabled.
+     */
+    @SuppressWarnings("unused")
+    public int getMappedJmxPort() {
+        if (jmxPort == null) {
+            throw new IllegalStateException("JMX is not enabled, enable it with withJmx()");
+        }
+        return getMappedPort(jmxPort);
+    }
+
+    /**
+     * Get the JMX service URL of the gateway JVM.
+     *
+     * @return the JMX service URL.
+     * @throws IllegalStateException if JMX isn't enabled.
+     */
+    public JMXServiceURL getJmxServiceUrl() {
+        String url = String.format("service:jmx:rmi:///jndi/rmi://%s:%d/jmxrmi", getHost(), getMappedJmxPort());
+        try {
+            return new JMXServiceURL(url);
+        } catch (MalformedURLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Get the mapped OPC-UA server port, or the port of its fault proxy.
+     *
+     * @return the mapped OPC-USA server port.
+     */
+    @SuppressWarnings("unused")
+    public int getMappedOpcUaPort() {
+        return getEndpointPort(GatewayPort.OPC_UA);
+    }
+
+    /**
+     * Get the URL of the gateway web interface (using HTTP).
+     *
+     * @return the URL of the gateway web interface.
+     */
+    @SuppressWarnings("unused")
+    public String getGatewayUrl() {
+        return String.format("http://%s:%d", getEndpointHost(GatewayPort.GATEWAY), getMappedGatewayPort());
+    }
+
+    /**
+     * Get the gateway's OPC UA URL.
+     * Only valid if {@link GatewayModule#OPC_UA} is enabled.
+     *
+     * @return the gateway's OPC UA URL.
+     */
+    @SuppressWarnings("unused")
+    public String getOpcUaUrl() {
+        return String.format("opc.tcp://%s:%d", getEndpointHost(GatewayPort.OPC_UA), getMappedOpcUaPort());
+    }
+
+    /**
+     * Get the gateway's OPC UA Discovery URL.
+     * Only valid if {@link GatewayModule#OPC_UA} is enabled.
+     *
+     * @return the gateway's OPC UA Discovery URL.
+     */
+    @SuppressWarnings("unused")
+    public String getOpcUaDiscoveryUrl() {
         return String.format("%s/discovery", getOpcUaUrl());
     }
 
     /**
-     * Get the URL of the gateway web interface.
+     * Get the URL of the gateway web interface.
+     *
+     * @param ssl use HTTPS when `true`
+     * @return the URL of the gateway web interface.
+     */
+    @SuppressWarnings("unused")
+    public String getGatewayUrl(boolean ssl) {
+        if (!ssl) {
+            return getGatewayUrl();
+        }
+        return String.format("https://%s:%d", getHost(), getMappedGatewaySslPort());
+    }
+
+    /**
+     * Get the gateway backup file that is restored when the container is created.
+     *
+     * @return the gateway backup file, or empty if no backup is configured.
+     */
+    @SuppressWarnings("unused")
+    public Optional<Path> getGatewayBackup() {
+        return Optional.ofNullable(gatewayBackup);
+    }
+
+    /**
+     * Read a summary of the configured gateway backup, such as its version, projects and database connections.
+     *
+     * @return the backup summary, or empty if no backup is configured.
+     * @throws IllegalStateException if the backup can't be read or isn't a valid gateway backup.
+     */
+    @SuppressWarnings("unused")
+    public Optional<GatewayBackupInfo> getGatewayBackupInfo() {
+        if (gatewayBackup == null) {
+            return Optional.empty();
+        }
+
+        try {
+            return Optional.of(GatewayBackupInfo.read(gatewayBackup));
+        } catch (IOException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Restore the configured gateway backup into the running gateway and wait for it to restart.
+     *
+     * <p>This resets the gateway to the state it was in after startup, without recreating the container.
+     *
+     * @throws IllegalStateException if the container isn't running or no gateway backup is configured.
+     */
+    @SuppressWarnings("unused")
+    public void restoreGatewayBackup() {
+        if (!isRunning()) {
+            throw new IllegalStateException("Gateway backup can only be restored while the container is running");
+        }
+        if (gatewayBackup == null) {
+            throw new IllegalStateException("No gateway backup is configured");
+        }
+
+        Instant started = Instant.now();
+        try {
+            Container.ExecResult result =
+                    execInContainer(INSTALL_DIR + "/gwcmd.sh", "--restore", RESTORE_PATH, "--promptyes");
+            if (result.getExitCode() != 0) {
+                throw new IllegalStateException(String.format(
+                        "Unable to restore gateway backup (exit code %d): %s",
+                        result.getExitCode(), result.getStderr()));
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to restore gateway backup", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while restoring gateway backup", e);
+        }
+
+        awaitGatewayRestart();
+        new IgnitionWaitStrategy().withStartupTimeout(RESTORE_TIMEOUT).waitUntilReady(this);
+        logger().info(
+                "Gateway backup restored in {} ms ({} data directory).",
+                Duration.between(started, Instant.now()).toMillis(),
+                dataDirectory);
+    }
+
+    /**
+     * Export a backup of the running gateway to a file.
+     *
+     * <p>The backup is taken by the gateway and streamed to disk, so it is never held in memory. Pass the exported
+     * file to {@link #withGatewayBackup(Path)} to start later containers from the gateway as it is now, for
+     * example to build a test fixture once and restore it in every later run.
+     *
+     * @param target the file to write the backup to. Replaced if it exists.
+     * @return the hex encoded SHA-256 hash of the backup.
+     * @throws IllegalStateException if the container isn't running or the backup can't be exported.
+     */
+    @SuppressWarnings("unused")
+    public String exportGatewayBackup(Path target) {
+        if (!isRunning()) {
+            throw new IllegalStateException("Gateway backup can only be exported while the container is running");
+        }
+
+        try {
+            String hash = copyGatewayBackupTo(target);
+            logger().info("Exported gateway backup to '{}' (sha256 {}).", target, hash);
+            return hash;
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to export gateway backup", e);
+        }
+    }
+
+    /**
+     * Install or replace a third-party module in the running gateway, and wait for it to start.
+     *
+     * @param path the path to the module file.
+     * @return true if the module was deployed, or false if the same module file is already deployed.
+     * @throws IllegalStateException if the container isn't running, module developer mode isn't enabled, or the
+     *     module fails to load.
+     * @see #redeployModule(Path, Duration)
+     */
+    @SuppressWarnings("unused")
+    public boolean redeployModule(Path path) {
+        return this.redeployModule(path, MODULE_START_TIMEOUT);
+    }
+
+    /**
+     * Install or replace a third-party module in the running gateway, and wait for it to start.
+     *
+     * <p>The module is only uploaded if its content differs from the module file that was last deployed with the
+     * same module id, either at startup with {@link #withThirdPartyModules(Path...)} or by a previous redeploy.
+     * Only that module is restarted, the gateway keeps running. Errors logged by the module while it loads fail
+     * the redeploy immediately, instead of waiting for the timeout.
+     *
+     * @param path the path to the module file.
+     * @param timeout how long to wait for the module to start.
+     * @return true if the module was deployed, or false if the same module file is already deployed.
+     * @throws IllegalStateException if the container isn't running, module developer mode isn't enabled, or the
+     *     module fails to load.
+     * @see #withModuleDeveloperMode()
+     */
+    @SuppressWarnings("unused")
+    public synchronized boolean redeployModule(Path path, Duration timeout) {
+        if (!isRunning()) {
+            throw new IllegalStateException("Modules can only be redeployed while the container is running");
+        }
+        if (!moduleDeveloperMode) {
+            throw new IllegalStateException(
+                    "Module developer mode is not enabled, enable it with withModuleDeveloperMode()");
+        }
+
+        ModuleFile module;
+        String hash;
+        try {
+            module = ModuleFile.read(path);
+            hash = ContentHash.of(path);
+        } catch (IOException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+
+        if (hash.equals(deployedModules.get(module.getIdentifier()))) {
+            logger().info("Module {} is unchanged, skipping redeploy.", module);
+            return false;
+        }
+
+        ModuleLogMonitor monitor = new ModuleLogMonitor(module);
+        Instant start = Instant.now();
+        try (FrameConsumerResultCallback callback = new FrameConsumerResultCallback()) {
+            callback.addConsumer(OutputFrame.OutputType.STDOUT, monitor);
+            callback.addConsumer(OutputFrame.OutputType.STDERR, monitor);
+            getDockerClient()
+                    .logContainerCmd(getContainerId())
+                    .withStdOut(true)
+                    .withStdErr(true)
+                    .withFollowStream(true)
+                    .withTail(0)
+                    .exec(callback)
+                    .awaitStarted();
+
+            // Attached before the upload and from the end of the log, so only lines about this redeploy are seen.
+            uploadModule(module);
+            monitor.getStarted().get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (IOException e) {
+            throw new IllegalStateException(String.format("Unable to redeploy module %s", module), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while redeploying module", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IllegalStateException) {
+                throw (IllegalStateException) e.getCause();
+            }
+            throw new IllegalStateException(String.format("Unable to redeploy module %s", module), e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException(String.format(
+                    "Module %s did not start within %s%nLog excerpt:%n%s",
+                    module, timeout, String.join(System.lineSeparator(), monitor.getRecentLines())));
+        }
+
+        deployedModules.put(module.getIdentifier(), hash);
+        logger().info("Module {} redeployed in {} ms.", module, Duration.between(start, Instant.now()).toMillis());
+        return true;
+    }
+
+    private void uploadModule(ModuleFile module) throws IOException {
+        IgnitionGatewayClient client = getGatewayClient();
+        HttpRequest request = client.newRequest(MODULE_UPLOAD_PATH)
+                .header("Content-Type", "application/octet-stream")
+                .POST(HttpRequest.BodyPublishers.ofFile(module.getPath()))
+                .build();
+        HttpResponse<String> response;
+        try {
+            response = client.sendAsync(request, HttpResponse.BodyHandlers.ofString()).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IllegalStateException(String.format("Unable to upload module %s", module), e.getCause());
+        }
+
+        if (response.statusCode() / 100 != 2) {
+            throw new IllegalStateException(String.format(
+                    "Gateway rejected module %s (status %d): %s", module, response.statusCode(), response.body()));
+        }
+    }
+
+    /**
+     * Get a client for interacting with the running gateway.
+     * The client is shared by all callers until the container stops.
+     *
+     * @return the gateway client.
+     * @throws IllegalStateException if the container isn't running.
+     */
+    public synchronized IgnitionGatewayClient getGatewayClient() {
+        if (!isRunning()) {
+            throw new IllegalStateException("Gateway client is only available while the container is running");
+        }
+        resumeIfIdle();
+        if (gatewayClient == null) {
+            gatewayClient = new IgnitionGatewayClient(this);
+        }
+        return gatewayClient;
+    }
+
+    /**
+     * Get a client connected to the gateway's OPC UA server.
+     * The client connects once and is shared by all callers until the container stops.
+     *
+     * <p>Requires the {@link GatewayModule#OPC_UA} module and the {@code org.eclipse.milo:sdk-client} library.
+     *
+     * @return the connected OPC UA client.
+     * @throws IllegalStateException if the container isn't running or the client can't connect.
+     */
+    @SuppressWarnings("unused")
+    public synchronized IgnitionOpcUaClient getOpcUaClient() {
+        if (!isRunning()) {
+            throw new IllegalStateException("OPC UA client is only available while the container is running");
+        }
+        resumeIfIdle();
+        if (opcUaClient == null) {
+            opcUaClient = IgnitionOpcUaClient.connect(this);
+        }
+        return opcUaClient;
+    }
+
+    /**
+     * Copy the synced project from the gateway back into its host directory, for example after editing it in the
+     * Designer. Changed files are replaced and files that only exist on the host are kept.
+     *
+     * @throws IllegalStateException if project sync isn't enabled or the container isn't running.
+     */
+    @SuppressWarnings("unused")
+    public synchronized void pullSyncedProject() {
+        if (projectSync == null) {
+            throw new IllegalStateException("Project sync is not running, enable it with withProjectSync(Path)");
+        }
+
+        try {
+            projectSync.pull();
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to pull project from gateway", e);
+        }
+    }
+
+    /**
+     * Dump the flight recording of the running gateway so far, and summarize it.
+     * The recording continues, and is still written when the container stops.
+     *
+     * <p>Requires {@code jcmd} in the gateway image runtime.
+     *
+     * @param target the file to write the recording to.
+     * @return the summary of the recording.
+     * @throws IllegalStateException if the flight recorder isn't enabled, the container isn't running, or the
+     *     recording can't be dumped.
+     * @see #withFlightRecorder(String, Path)
+     */
+    @SuppressWarnings("unused")
+    public FlightRecordingSummary dumpFlightRecording(Path target) {
+        if (flightRecorder == null) {
+            throw new IllegalStateException("Flight recorder is not enabled, enable it with withFlightRecorder()");
+        }
+        if (!isRunning()) {
+            throw new IllegalStateException("Flight recordings can only be dumped while the container is running");
+        }
+
+        try {
+            flightRecorder.dump(this, target);
+            return FlightRecordingSummary.read(target);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to dump flight recording", e);
+        }
+    }
+
+    /**
+     * Get the resource usage collected from the Docker stats stream.
+     * The collector is replaced each time the container starts, and stays available after it stops.
      *
-     * @param ssl use HTTPS when `true`
-     * @return the URL of the gateway web interface.
+     * @return the container stats collector.
+     * @throws IllegalStateException if container stats aren't enabled or the container hasn't started.
+     * @see #withContainerStats()
+     */
+    public synchronized ContainerStatsCollector getContainerStats() {
+        if (containerStats == null) {
+            throw new IllegalStateException(
+                    "Container stats are only available once the container has started with withContainerStats()");
+        }
+        return containerStats;
+    }
+
+    /**
+     * Get the idle manager, which reports how long the gateway was paused and the CPU time that saved.
+     * The manager is replaced each time the container starts, and stays available after it stops.
+     *
+     * @return the idle manager.
+     * @throws IllegalStateException if idle pausing isn't enabled or the container hasn't started.
+     * @see #withIdlePause(Duration)
      */
     @SuppressWarnings("unused")
-    public String getGatewayUrl(boolean ssl) {
-        String mode = ssl ? "https" : "http";
-        Integer port = ssl ? getMappedGatewaySslPort() : getMappedGatewayPort();
-        return String.format("%s://%s:%d", mode, getHost(), port);
+    public synchronized GatewayIdleManager getIdleManager() {
+        if (idleManager == null) {
+            throw new IllegalStateException(
+                    "Idle manager is only available once the container has started with withIdlePause()");
+        }
+        return idleManager;
+    }
+
+    /**
+     * Get the fault proxy in front of a gateway port, to change its latency, jitter, bandwidth or drop connections
+     * while the container runs.
+     *
+     * @param port the proxied port.
+     * @return the fault proxy.
+     * @throws IllegalStateException if the port isn't proxied or the container isn't running.
+     * @see #withFaultProxy(GatewayPort...)
+     */
+    @SuppressWarnings("unused")
+    public synchronized GatewayFaultProxy getFaultProxy(GatewayPort port) {
+        GatewayFaultProxy proxy = faultProxies.get(port);
+        if (proxy == null) {
+            throw new IllegalStateException(String.format(
+                    "Port %s is only proxied while the container is running with withFaultProxy(%s)",
+                    port, port.name()));
+        }
+        return proxy;
+    }
+
+    private synchronized String getEndpointHost(GatewayPort port) {
+        GatewayFaultProxy proxy = faultProxies.get(port);
+        return proxy != null ? proxy.getHost() : getHost();
+    }
+
+    private synchronized int getEndpointPort(GatewayPort port) {
+        GatewayFaultProxy proxy = faultProxies.get(port);
+        if (proxy == null) {
+            return getMappedPort(port.getPort());
+        }
+        resumeIfIdle();
+        return proxy.getPort();
+    }
+
+    /**
+     * Record that the gateway is being used, resuming it and its Gateway Network peers if they are paused.
+     */
+    void resumeIfIdle() {
+        GatewayIdleManager manager = idleManager;
+        if (manager != null) {
+            manager.touch();
+        }
+        for (IgnitionContainer peer : gatewayNetworkPeers) {
+            GatewayIdleManager peerManager = peer.idleManager;
+            if (peerManager != null) {
+                peerManager.touch();
+            }
+        }
+    }
+
+    /**
+     * Add a gateway that this gateway talks to over the Gateway Network. Neither is paused while the other is used.
+     *
+     * @param peer the other gateway.
+     */
+    void addGatewayNetworkPeer(IgnitionContainer peer) {
+        if (peer != this) {
+            gatewayNetworkPeers.add(peer);
+            peer.gatewayNetworkPeers.add(this);
+        }
+    }
+
+    /**
+     * Check if a connection through a fault proxy is open, which keeps the gateway from being paused.
+     *
+     * @return true if a proxied connection is open.
+     */
+    synchronized boolean hasOpenConnections() {
+        return faultProxies.values().stream().anyMatch(proxy -> proxy.getOpenConnectionCount() > 0);
+    }
+
+    /**
+     * Get the summary of the flight recording taken when the container last stopped.
+     *
+     * @return the recording summary, or empty if the flight recorder isn't enabled or the container hasn't stopped.
+     */
+    public Optional<FlightRecordingSummary> getFlightRecordingSummary() {
+        return Optional.ofNullable(flightRecordingSummary);
+    }
+
+    /**
+     * Take a gateway backup inside the container and stream it to a host file.
+     *
+     * <p>The backup is written to a temporary file next to the target and moved into place once it is complete, so
+     * a failed backup never replaces the target with a partial file.
+     *
+     * @param target the file to write the backup to. Replaced if it exists.
+     * @return the hex encoded SHA-256 hash of the backup.
+     * @throws IOException if the backup can't be taken or copied.
+     */
+    String copyGatewayBackupTo(Path target) throws IOException {
+        String backupPath = "/tmp/testcontainers-" + UUID.randomUUID() + ".gwbk";
+        Path directory = target.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path partial = Files.createTempFile(directory, target.getFileName().toString(), ".partial");
+        try {
+            Container.ExecResult result =
+                    execInContainer(INSTALL_DIR + "/gwcmd.sh", "--backup", backupPath, "--promptyes");
+            if (result.getExitCode() != 0) {
+                throw new IOException(String.format(
+                        "Unable to take gateway backup (exit code %d): %s", result.getExitCode(), result.getStderr()));
+            }
+
+            MessageDigest digest = ContentHash.newDigest();
+            copyFileFromContainer(
+                    backupPath,
+                    in -> Files.copy(new DigestInputStream(in, digest), partial, StandardCopyOption.REPLACE_EXISTING));
+
+            Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return ContentHash.toHex(digest.digest());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while taking gateway backup", e);
+        } finally {
+            Files.deleteIfExists(partial);
+            removeGatewayBackup(backupPath);
+        }
+    }
+
+    private void removeGatewayBackup(String backupPath) {
+        // Also removes a partial backup left by a failed gwcmd, so it doesn't fill up the container.
+        try {
+            execInContainer("rm", "-f", backupPath);
+        } catch (IOException e) {
+            logger().warn("Unable to remove gateway backup '{}' from the container.", backupPath, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private synchronized void startFaultProxies() {
+        for (GatewayPort port : faultProxyPorts) {
+            openFaultProxy(port).connectTo(getHost(), getMappedPort(port.getPort()));
+        }
+    }
+
+    /**
+     * Check if a port is placed behind a fault proxy.
+     *
+     * @param port the gateway port.
+     * @return true if the port is proxied.
+     */
+    boolean hasFaultProxy(GatewayPort port) {
+        return faultProxyPorts.contains(port);
+    }
+
+    /**
+     * Get the fault proxy of a port, starting it if needed. A proxy started before the container only forwards
+     * connections once the container has started.
+     *
+     * @param port the proxied port.
+     * @return the fault proxy.
+     */
+    synchronized GatewayFaultProxy openFaultProxy(GatewayPort port) {
+        GatewayFaultProxy proxy = faultProxies.get(port);
+        if (proxy == null) {
+            try {
+                proxy = GatewayFaultProxy.listen(port, this::resumeIfIdle);
+            } catch (IOException e) {
+                throw new ContainerLaunchException("Unable to start fault proxy for port " + port, e);
+            }
+            faultProxies.put(port, proxy);
+        }
+        return proxy;
+    }
+
+    private synchronized void closeFaultProxies() {
+        faultProxies.values().forEach(GatewayFaultProxy::close);
+        faultProxies.clear();
+    }
+
+    private synchronized void startIdleManager() {
+        if (idleManager != null) {
+            idleManager.close();
+        }
+        idleManager = new GatewayIdleManager(this, idlePauseTimeout);
+        idleManager.start();
+    }
+
+    private synchronized void startContainerStats() {
+        containerStats = new ContainerStatsCollector(CONTAINER_STATS_CAPACITY);
+        containerStats.start(this);
+    }
+
+    private void saveContainerStats() {
+        containerStats.close();
+        logger().info(containerStats.toSummary());
+        if (containerStatsExport != null) {
+            try {
+                containerStats.writeCsv(containerStatsExport);
+            } catch (IOException e) {
+                logger().warn("Unable to export container stats to '{}'.", containerStatsExport, e);
+            }
+        }
+    }
+
+    private void saveFlightRecording() {
+        String name = (this.name != null ? this.name : getContainerName()).replaceAll("[^A-Za-z0-9._-]", "");
+        Path target = flightRecordingDir.resolve(String.format("%s-%d.jfr", name, System.currentTimeMillis()));
+        try {
+            flightRecorder.stop(this, target);
+            flightRecordingSummary = FlightRecordingSummary.read(target);
+            logger().info(flightRecordingSummary.toSummary());
+        } catch (IOException | RuntimeException e) {
+            logger().warn("Unable to save flight recording.", e);
+        }
+    }
+
+    private synchronized void startProjectSync() {
+        projectSync = new ProjectSync(
+                this, projectSyncDir, DATA_DIR + "/projects/" + projectSyncName, projectScanEndpoint);
+        try {
+            projectSync.start();
+        } catch (IOException e) {
+            projectSync.close();
+            projectSync = null;
+            throw new ContainerLaunchException(String.format("Unable to sync project '%s'", projectSyncDir), e);
+        }
+        logger().info("Syncing project '{}' from {}.", projectSyncName, projectSyncDir);
+    }
+
+    private synchronized void recordDeployedModules() {
+        deployedModules.clear();
+        for (Path path : thirdPartyModules) {
+            try {
+                deployedModules.put(ModuleFile.read(path).getIdentifier(), ContentHash.of(path));
+            } catch (IOException e) {
+                logger().debug("Unable to read module '{}'.", path, e);
+            }
+        }
+    }
+
+    private void awaitGatewayRestart() {
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest request = IgnitionWaitStrategy.newStatusPingRequest(getGatewayUrl());
+        Instant deadline = Instant.now().plus(RESTART_DETECTION_TIMEOUT);
+
+        while (Instant.now().isBefore(deadline)) {
+            if (!IgnitionWaitStrategy.RUNNING.equals(IgnitionWaitStrategy.getGatewayState(client, request))) {
+                return;
+            }
+
+            try {
+                Thread.sleep(250);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for gateway", e);
+            }
+        }
     }
 
     /**
@@ -550,54 +1792,425 @@ public class IgnitionContainer extends GenericContainer<IgnitionContainer> {
         }
     }
 
+    /**
+     * Get the timings of each phase of the last container startup.
+     * Not available for reused containers.
+     *
+     * @return the startup report, or empty if the container hasn't started.
+     */
+    @SuppressWarnings("unused")
+    public Optional<StartupReport> getStartupReport() {
+        return Optional.ofNullable(startupReport);
+    }
+
+    /**
+     * Get where the gateway data directory is stored.
+     *
+     * @return the data directory strategy.
+     */
+    @SuppressWarnings("unused")
+    public DataDirectoryStrategy getDataDirectory() {
+        return dataDirectory;
+    }
+
+    /**
+     * Check if this container was started from the commissioned gateway image cache.
+     *
+     * @return true if this container was started from a cached image.
+     */
+    @SuppressWarnings("unused")
+    public boolean isImageCacheHit() {
+        return imageCacheHit;
+    }
+
+    @Override
+    public void start() {
+        try {
+            for (int conflicts = 0; ; conflicts++) {
+                try {
+                    super.start();
+                    return;
+                } catch (ContainerLaunchException e) {
+                    if (jmxPort == null || conflicts + 1 >= JMX_PORT_ATTEMPTS || !isPortConflict(e)) {
+                        throw e;
+                    }
+                    logger().warn("JMX port {} is already bound on the Docker host, trying the next port.", jmxPort);
+
+                    // The gateway never ran, so only the container is replaced. The image, the data volume and
+                    // everything else resolved by configure() is kept for the next attempt.
+                    relaunching = true;
+                    stop();
+                    resolveJmxPort(getLabels().get(FINGERPRINT_LABEL), conflicts + 1);
+                }
+            }
+        } finally {
+            relaunching = false;
+        }
+    }
+
     @Override
     protected void configure() {
         super.configure();
 
+        startupReport = null;
+        startupTimer.requested(dataDirectory);
+        validateGatewayBackup();
+
+        if (!relaunching) {
+            String fingerprint = getConfigurationFingerprint();
+            withLabel(FINGERPRINT_LABEL, fingerprint);
+            resolveImageCache(fingerprint);
+            resolveDataDirectory(fingerprint);
+            resolveJmxPort(fingerprint, 0);
+        }
+        resolveEnabledModules();
+
         applyCommands();
         applyEnvironmentVariables();
 
         exposePorts();
 
-        mapGatewayBackup();
-        mapThirdPartyModules();
+        fileStager.clear();
+        if (!imageCacheHit) {
+            mapGatewayBackup();
+            mapThirdPartyModules();
+        }
+    }
+
+    /**
+     * Get a stable fingerprint of the container configuration.
+     *
+     * <p>The fingerprint covers everything that is applied to the container during configuration and
+     * is independent of the order that modules were listed in. The gateway backup and third party
+     * modules are fingerprinted by content rather than by path, so identical configurations produce
+     * identical fingerprints across JVMs and machines.
+     *
+     * @return the hex encoded configuration fingerprint.
+     */
+    public String getConfigurationFingerprint() {
+        ContentHash.Builder hash = ContentHash.builder()
+                .put("image", baseImageName.asCanonicalNameString())
+                .put("edition", edition)
+                .put("username", username)
+                .put("password", password)
+                .put("uid", uid)
+                .put("gid", gid)
+                .put("name", name)
+                .put("timezone", timezone)
+                .put("maxMemory", maxMemory)
+                .put("licenseAccepted", licenseAccepted)
+                .put("quickStartEnabled", quickStartEnabled)
+                .put("debugMode", debugMode)
+                .put("jmxEnabled", jmxEnabled)
+                .put("activationToken", activationToken)
+                .put("licenseKey", licenseKey)
+                .put("additionalArgs", additionalArgs)
+                .put("resourceProfile", resourceProfile)
+                .put("dataDirectory", dataDirectory)
+                .put("moduleDeveloperMode", moduleDeveloperMode)
+                .put("flightRecorder", flightRecorder == null ? null : flightRecorder.getSettings())
+                .put("restoreDisabled", restoreDisabled)
+                .put("gatewayNetworkConnections", gatewayNetworkConnections)
+                .put("gatewayNetworkSecurityPolicy", gatewayNetworkSecurityPolicy)
+                .put("gatewayNetworkRequireSsl", gatewayNetworkRequireSsl)
+                .putFile("gatewayBackup", gatewayBackup);
+
+        modules.forEach(module -> hash.put("module", module.getIdentifier()));
+        hash.put("modulesFromGatewayBackup", modulesFromGatewayBackup);
+        thirdPartyModules.forEach(path -> hash.putFile("thirdPartyModule:" + path.getFileName(), path));
+
+        return hash.build();
+    }
+
+    private void resolveImageCache(String fingerprint) {
+        imageCacheHit = false;
+        imageCache = null;
+
+        if (imageCacheKey == null) {
+            return;
+        }
+
+        imageCache = new IgnitionImageCache(getDockerClient(), imageCacheKey, fingerprint);
+        if (imageCache.find().isPresent()) {
+            imageCacheHit = true;
+            setDockerImageName(imageCache.getImageName().asCanonicalNameString());
+            logger().info("Using cached gateway image {}.", imageCache.getImageName());
+        } else {
+            setDockerImageName(baseImageName.asCanonicalNameString());
+            logger().info("No cached gateway image for this configuration, it will be created after startup.");
+        }
+    }
+
+    private void applyResourceLimits(CreateContainerCmd cmd) {
+        if (resourceProfile == null || cmd.getHostConfig() == null) {
+            return;
+        }
+
+        // Disable swap, so the gateway is limited to the profile memory rather than paging on the host.
+        cmd.getHostConfig()
+                .withMemory(resourceProfile.getMemoryBytes())
+                .withMemorySwap(resourceProfile.getMemoryBytes())
+                .withNanoCPUs(resourceProfile.getNanoCpus());
+    }
+
+    private void resolveDataDirectory(String fingerprint) {
+        // Named after the configuration, so a reused container finds the volume it was created with.
+        // Containers that aren't reused get their own volume, even if they share a configuration.
+        String name = "ignition-data-" + fingerprint.substring(0, 16);
+        if (!reuseEnabled) {
+            name += "-" + UUID.randomUUID().toString().substring(0, 8);
+        }
+        dataDirectoryVolume = dataDirectory.createVolume(getDockerClient(), name, reuseEnabled);
+        dataDirectorySeed = dataDirectory.getSeedVolume(getDockerClient(), imageCacheHit ? null : getDockerImageName());
+    }
+
+    private void applyDataDirectory(CreateContainerCmd cmd) {
+        if (dataDirectoryVolume == null || cmd.getHostConfig() == null) {
+            return;
+        }
+
+        List<Mount> mounts = new ArrayList<>();
+        if (cmd.getHostConfig().getMounts() != null) {
+            mounts.addAll(cmd.getHostConfig().getMounts());
+        }
+        Mount dataMount = new Mount().withType(MountType.VOLUME).withSource(dataDirectoryVolume).withTarget(DATA_DIR);
+        if (dataDirectorySeed != null) {
+            // Seeded by the entrypoint, so Docker doesn't need to copy the data directory of the image first.
+            dataMount.withVolumeOptions(new VolumeOptions().withNoCopy(true));
+            mounts.add(new Mount()
+                    .withType(MountType.VOLUME)
+                    .withSource(dataDirectorySeed)
+                    .withTarget(DATA_SEED_DIR)
+                    .withReadOnly(true));
+        }
+        mounts.add(dataMount);
+        cmd.getHostConfig().withMounts(mounts);
+    }
+
+    private void applySeedEntrypoint(CreateContainerCmd cmd) {
+        String seedDir = dataDirectorySeed != null ? DATA_SEED_DIR : imageCacheHit ? DATA_SNAPSHOT_DIR : null;
+        if (seedDir == null) {
+            return;
+        }
+
+        // The data directory is a volume, so it isn't part of a committed image, and Docker's copy of the image
+        // data into a tmpfs volume is gone by the time the container runs. Copy it from the seed instead, either
+        // the snapshot taken before an image cache commit or a mounted seed volume, then hand off to the original
+        // entrypoint. A persistent data directory that already holds gateway data is left as it is.
+        List<String> entrypoint = new ArrayList<>(List.of(
+                "sh",
+                "-c",
+                String.format(
+                        "if [ ! -e %3$s ]; then cp -a %1$s/. %2$s/ || exit 1; fi && exec \"$0\" \"$@\"",
+                        seedDir, DATA_DIR, DATA_SEEDED_MARKER)));
+        String[] imageEntrypoint = getDockerClient()
+                .inspectImageCmd(cmd.getImage())
+                .exec()
+                .getConfig()
+                .getEntrypoint();
+        if (imageEntrypoint != null) {
+            entrypoint.addAll(List.of(imageEntrypoint));
+        }
+        cmd.withEntrypoint(entrypoint.toArray(String[]::new));
+    }
+
+    private void commitImageCache() {
+        // The gateway keeps writing to its internal database while it runs, so a plain copy can be torn.
+        // Stop every other process in the container for the copy, so the snapshot is a single point in time
+        // that the gateway recovers from the same way as after a power loss. The trap resumes them however
+        // the copy ends.
+        try {
+            Container.ExecResult result = execInContainer(
+                    "sh",
+                    "-c",
+                    String.format(
+                            "pids=; for p in /proc/[0-9]*; do p=${p#/proc/}; "
+                                    + "[ \"$p\" = \"$$\" ] || pids=\"$pids $p\"; done; "
+                                    + "trap 'kill -CONT $pids 2>/dev/null' EXIT; kill -STOP $pids 2>/dev/null; "
+                                    + "rm -rf %1$s && mkdir -p %1$s && cp -a %2$s/. %1$s/",
+                            DATA_SNAPSHOT_DIR, DATA_DIR));
+            if (result.getExitCode() != 0) {
+                throw new ContainerLaunchException("Unable to snapshot gateway data: " + result.getStderr());
+            }
+        } catch (IOException e) {
+            throw new ContainerLaunchException("Unable to snapshot gateway data", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ContainerLaunchException("Interrupted while snapshotting gateway data", e);
+        }
+
+        imageCache.commit(getContainerId());
+    }
+
+    private void markDataDirectorySeeded() {
+        try {
+            Container.ExecResult result = execInContainer("touch", DATA_SEEDED_MARKER);
+            if (result.getExitCode() != 0) {
+                logger().warn("Unable to mark the data directory as seeded: {}", result.getStderr());
+            }
+        } catch (IOException e) {
+            logger().warn("Unable to mark the data directory as seeded.", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void validateGatewayBackup() {
+        Optional<GatewayBackupInfo> info = getGatewayBackupInfo();
+        if (info.isEmpty()) {
+            return;
+        }
+
+        if (!info.get().isCompatibleWith(baseImageName)) {
+            throw new IllegalStateException(String.format(
+                    "gateway backup '%s' is from Ignition %s, which is newer than image %s",
+                    gatewayBackup, info.get().getVersion(), baseImageName.asCanonicalNameString()));
+        }
+        info.get()
+                .getEdition()
+                .filter(backupEdition -> !backupEdition.equalsIgnoreCase(edition.toString()))
+                .ifPresent(backupEdition -> logger().warn(
+                        "Gateway backup is from a {} edition gateway, but the container is {} edition.",
+                        backupEdition,
+                        edition));
+    }
+
+    private void resolveEnabledModules() {
+        enabledModules.clear();
+        enabledModules.addAll(modules);
+
+        if (!modulesFromGatewayBackup) {
+            return;
+        }
+        if (gatewayBackup == null) {
+            throw new IllegalStateException("Modules can only be derived from a gateway backup if one is configured");
+        }
+
+        try {
+            Set<GatewayModule> backupModules = GatewayBackupModules.of(gatewayBackup);
+            enabledModules.addAll(backupModules);
+            logger().info(
+                    "Gateway backup uses modules: {}.",
+                    backupModules.isEmpty() ? "none" : getEnabledModulesString(backupModules));
+        } catch (IOException e) {
+            throw new IllegalStateException(String.format("Unable to read gateway backup '%s'", gatewayBackup), e);
+        }
+        GatewayBackupModules.checkNotEmpty(enabledModules, gatewayBackup);
     }
 
     private void exposePorts() {
         addExposedPorts(GATEWAY_PORT, GATEWAY_SSL_PORT);
 
-        if (modules.contains(GatewayModule.OPC_UA)) {
+        if (enabledModules.contains(GatewayModule.OPC_UA)) {
             addExposedPorts(OPCUA_PORT);
         }
 
         if (debugMode) {
             addExposedPorts(DEBUG_PORT);
         }
+
+        for (GatewayPort port : faultProxyPorts) {
+            addExposedPorts(port.getPort());
+        }
     }
 
     private void mapGatewayBackup() {
         if (gatewayBackup != null) {
-            this.withCopyFileToContainer(MountableFile.forHostPath(gatewayBackup.toString()), "/restore.gwbk");
+            fileStager.add(RESTORE_PATH, gatewayBackup);
         }
     }
 
     private void mapThirdPartyModules() {
         for (Path path : thirdPartyModules) {
-            MountableFile file = MountableFile.forHostPath(path);
-            String containerPath = Path.of(
-                            INSTALL_DIR, "user-lib", "modules", path.toFile().getName())
-                    .toString();
-            this.withCopyFileToContainer(file, containerPath);
+            fileStager.add(MODULES_DIR + "/" + path.getFileName(), path);
+        }
+    }
+
+    private void resolveJmxPort(String fingerprint, int conflicts) {
+        releaseJmxPort();
+        if (!jmxEnabled) {
+            return;
+        }
+
+        // Derived from the fingerprint rather than asked from the OS, so the command line and the reuse hash
+        // are the same on every start. A port can't be checked on a remote Docker host, so a port that is
+        // already bound there is only found when the container starts, see start(), which skips one port for
+        // each conflict.
+        int offset = Math.floorMod(fingerprint.hashCode(), JMX_PORT_RANGE_SIZE) + conflicts;
+        for (int i = 0; i < JMX_PORT_RANGE_SIZE; i++) {
+            int port = JMX_PORT_RANGE_START + (offset + i) % JMX_PORT_RANGE_SIZE;
+            if (JMX_PORTS_IN_USE.add(port)) {
+                jmxPort = port;
+                return;
+            }
+        }
+        throw new ContainerLaunchException("No free port left for JMX");
+    }
+
+    private void releaseJmxPort() {
+        if (jmxPort != null) {
+            JMX_PORTS_IN_USE.remove(jmxPort);
+            jmxPort = null;
         }
     }
 
+    private void applyJmxPortBinding(CreateContainerCmd cmd) {
+        if (jmxPort == null || cmd.getHostConfig() == null) {
+            return;
+        }
+
+        // Bound here rather than with addFixedExposedPort, so the binding follows the port picked on each start.
+        ExposedPort port = ExposedPort.tcp(jmxPort);
+        List<ExposedPort> exposedPorts = new ArrayList<>();
+        if (cmd.getExposedPorts() != null) {
+            exposedPorts.addAll(List.of(cmd.getExposedPorts()));
+        }
+        exposedPorts.add(port);
+        cmd.withExposedPorts(exposedPorts);
+
+        Ports bindings = cmd.getHostConfig().getPortBindings() != null
+                ? cmd.getHostConfig().getPortBindings()
+                : new Ports();
+        bindings.bind(port, Ports.Binding.bindPort(jmxPort));
+        cmd.getHostConfig().withPortBindings(bindings);
+    }
+
+    private static boolean isPortConflict(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            String message = cause.getMessage();
+            if (message != null
+                    && (message.contains("port is already allocated") || message.contains("address already in use"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private List<String> getJmxArgs() {
+        return List.of(
+                "-Dcom.sun.management.jmxremote",
+                "-Dcom.sun.management.jmxremote.port=" + jmxPort,
+                "-Dcom.sun.management.jmxremote.rmi.port=" + jmxPort,
+                "-Dcom.sun.management.jmxremote.authenticate=false",
+                "-Dcom.sun.management.jmxremote.ssl=false",
+                "-Djava.rmi.server.hostname=" + getHost());
+    }
+
     private void applyCommands() {
         StringJoiner commands = new StringJoiner(" ");
         if (debugMode) commands.add("-d");
         if (maxMemory != null) commands.add("-m").add(maxMemory);
+        else if (resourceProfile != null) commands.add("-m").add(String.valueOf(resourceProfile.getHeapMegabytes()));
         if (name != null) commands.add("-n").add(name);
-        if (gatewayBackup != null) commands.add("-r").add("/restore.gwbk");
-        if (additionalArgs != null) commands.add("--").add(String.join(" ", additionalArgs));
+        if (gatewayBackup != null && !imageCacheHit) commands.add("-r").add(RESTORE_PATH);
+
+        List<String> args = new ArrayList<>();
+        if (resourceProfile != null) args.addAll(resourceProfile.getAdditionalArgs());
+        if (moduleDeveloperMode) args.addAll(MODULE_DEVELOPER_ARGS);
+        if (flightRecorder != null) args.add(flightRecorder.getJvmArg());
+        if (jmxPort != null) args.addAll(getJmxArgs());
+        if (additionalArgs != null) args.addAll(additionalArgs);
+        if (!args.isEmpty()) commands.add("--").add(String.join(" ", args));
         this.withCommand(commands.toString());
     }
 
@@ -611,6 +2224,17 @@ public class IgnitionContainer extends GenericContainer<IgnitionContainer> {
         addEnv("GATEWAY_HTTP_PORT", String.valueOf(GATEWAY_PORT));
         addEnv("GATEWAY_HTTPS_PORT", String.valueOf(GATEWAY_SSL_PORT));
 
+        if (gatewayNetworkSecurityPolicy != null)
+            addEnv("GATEWAY_NETWORK_SECURITYPOLICY", gatewayNetworkSecurityPolicy.toString());
+        if (gatewayNetworkRequireSsl != null)
+            addEnv("GATEWAY_NETWORK_REQUIRESSL", String.valueOf(gatewayNetworkRequireSsl));
+        for (int i = 0; i < gatewayNetworkConnections.size(); i++) {
+            GatewayNetworkConnection connection = gatewayNetworkConnections.get(i);
+            addEnv(String.format("GATEWAY_NETWORK_%d_HOST", i), connection.host);
+            addEnv(String.format("GATEWAY_NETWORK_%d_PORT", i), String.valueOf(connection.port));
+            addEnv(String.format("GATEWAY_NETWORK_%d_ENABLESSL", i), String.valueOf(connection.ssl));
+        }
+
         if (gatewayBackup != null) addEnv("GATEWAY_RESTORE_DISABLED", String.valueOf(restoreDisabled));
         addEnv("GATEWAY_MODULES_ENABLED", getEnabledModulesString());
 
@@ -625,16 +2249,172 @@ public class IgnitionContainer extends GenericContainer<IgnitionContainer> {
     }
 
     private String getEnabledModulesString() {
+        return getEnabledModulesString(enabledModules);
+    }
+
+    private static String getEnabledModulesString(Collection<? extends IgnitionModule> modules) {
         return modules.stream().map(IgnitionModule::getIdentifier).collect(Collectors.joining(","));
     }
 
     @Override
-    protected void containerIsStarting(final InspectContainerResponse containerInfo) {
+    protected void containerIsCreated(final String containerId) {
+        startupTimer.created();
+        fileStager.upload(getDockerClient(), containerId);
+    }
+
+    @Override
+    protected void containerIsStarting(final InspectContainerResponse containerInfo, final boolean reused) {
+        fatalLogMonitor = null;
+        if (reused) {
+            logger().info("Reusing existing Ignition container with configuration {}.", getConfigurationFingerprint());
+            return;
+        }
         logger().debug("Ignition container is starting, performing configuration.");
+
+        startupTimer.starting();
+        Consumer<OutputFrame> logConsumer = startupTimer;
+        if (failFast && !fatalLogPatterns.isEmpty()) {
+            fatalLogMonitor = new FatalLogMonitor(fatalLogPatterns);
+            logConsumer = logConsumer.andThen(fatalLogMonitor);
+        }
+        followOutput(logConsumer);
+    }
+
+    @Override
+    protected void waitUntilContainerStarted() {
+        if (fatalLogMonitor == null) {
+            super.waitUntilContainerStarted();
+            return;
+        }
+
+        CompletableFuture<Void> ready = new CompletableFuture<>();
+        Thread waiter = new Thread(
+                () -> {
+                    try {
+                        super.waitUntilContainerStarted();
+                        ready.complete(null);
+                    } catch (Throwable e) {
+                        ready.completeExceptionally(e);
+                    }
+                },
+                "ignition-startup-wait");
+        waiter.setDaemon(true);
+        waiter.start();
+
+        try {
+            CompletableFuture.anyOf(ready, fatalLogMonitor.getFailure()).get();
+        } catch (InterruptedException e) {
+            waiter.interrupt();
+            Thread.currentThread().interrupt();
+            throw new ContainerLaunchException("Interrupted while waiting for gateway", e);
+        } catch (ExecutionException e) {
+            // The wait strategy failed. Prefer a fatal log failure, it explains why.
+        } finally {
+            fatalLogMonitor.stop();
+        }
+
+        IgnitionStartupException failure = fatalLogMonitor.getFailure().getNow(null);
+        if (failure != null) {
+            waiter.interrupt();
+            throw failure;
+        }
+
+        try {
+            ready.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new ContainerLaunchException("Gateway failed to start", e.getCause());
+        }
     }
 
     @Override
-    protected void containerIsStarted(final InspectContainerResponse containerInfo) {
+    protected synchronized void containerIsStopping(final InspectContainerResponse containerInfo) {
+        if (idleManager != null) {
+            idleManager.close();
+            logger().info(idleManager.toSummary());
+        }
+        closeFaultProxies();
+        if (projectSync != null) {
+            projectSync.close();
+            projectSync = null;
+        }
+        if (containerStats != null) {
+            saveContainerStats();
+        }
+        if (flightRecorder != null) {
+            saveFlightRecording();
+        }
+        gatewayClient = null;
+        if (opcUaClient != null) {
+            opcUaClient.close();
+            opcUaClient = null;
+        }
+    }
+
+    @Override
+    protected void containerIsStopped(final InspectContainerResponse containerInfo) {
+        if (relaunching) {
+            return;
+        }
+        dataDirectory.removeVolume(getDockerClient(), dataDirectoryVolume);
+        dataDirectoryVolume = null;
+        dataDirectorySeed = null;
+        releaseJmxPort();
+    }
+
+    @Override
+    protected void containerIsStarted(final InspectContainerResponse containerInfo, final boolean reused) {
+        // First, so every client created from here on, including the shared gateway client, uses the proxies.
+        startFaultProxies();
+
+        if (!reused) {
+            startupReport = startupTimer.ready();
+            if (startupReportLogging) {
+                logger().info(startupReport.toSummary());
+            }
+        }
+
+        if (imageCache != null && !imageCacheHit && !reused) {
+            commitImageCache();
+        }
+
+        if (dataDirectory.isPersistent() && !reused) {
+            markDataDirectorySeeded();
+        }
+
+        if (containerStatsEnabled) {
+            startContainerStats();
+        }
+
+        if (projectSyncDir != null) {
+            startProjectSync();
+        }
+
+        recordDeployedModules();
+
         logger().info("Ignition container is ready! Gateway Web UI is available at: {}", getGatewayUrl());
+
+        if (idlePauseTimeout != null) {
+            startIdleManager();
+        }
+    }
+
+    private static final class GatewayNetworkConnection {
+        private final String host;
+        private final int port;
+        private final boolean ssl;
+
+        private GatewayNetworkConnection(String host, int port, boolean ssl) {
+            this.host = host;
+            this.port = port;
+            this.ssl = ssl;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s:%d (ssl=%s)", host, port, ssl);
+        }
     }
 }
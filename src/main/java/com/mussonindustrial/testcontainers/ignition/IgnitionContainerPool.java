@@ -0,0 +1,451 @@
+package com.mussonindustrial.testcontainers.ignition;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A warm pool of started Ignition gateways, keyed by configuration fingerprint.
+ *
+ * <p>Gateways are leased to tests and reset to a known state when the lease is closed, instead of being
+ * recreated. By default a gateway is reset by restoring its configured gateway backup through the gateway.
+ * A gateway without a gateway backup can't be reset that way, so it is stopped when its lease is closed and
+ * the next lease starts a new gateway, unless a reset action is set with {@link #withResetAction(Consumer)}.
+ *
+ * <pre>{@code
+ * try (IgnitionContainerPool.Lease lease = pool.acquire(() -> new IgnitionContainer(image)
+ *         .withGatewayBackup("./path/to/backup.gwbk")
+ *         .acceptLicense())) {
+ *     String url = lease.getContainer().getGatewayUrl();
+ *     // ... do something with your gateway!
+ * }
+ * }</pre>
+ */
+public class IgnitionContainerPool implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(IgnitionContainerPool.class);
+
+    private static final Consumer<IgnitionContainer> RESTORE_GATEWAY_BACKUP = IgnitionContainer::restoreGatewayBackup;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition released = lock.newCondition();
+
+    private final Map<String, Deque<PooledGateway>> idle = new HashMap<>();
+
+    private final Set<IgnitionContainer> leased = new HashSet<>();
+
+    private final ScheduledExecutorService evictor;
+
+    private int size = 0;
+
+    private int maxSize = 4;
+
+    private Duration idleTimeout = Duration.ofMinutes(10);
+
+    private Duration acquireTimeout = Duration.ofMinutes(10);
+
+    private Consumer<IgnitionContainer> resetAction = RESTORE_GATEWAY_BACKUP;
+
+    private boolean closed = false;
+
+    /**
+     * Create a new, empty Ignition container pool.
+     */
+    public IgnitionContainerPool() {
+        this.evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ignition-pool-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.evictor.scheduleWithFixedDelay(this::evictIdle, 1, 1, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Set the maximum number of gateways, leased and idle, across all configurations.
+     *
+     * @param maxSize the maximum number of gateways.
+     * @return this {@link IgnitionContainerPool} for chaining purposes.
+     */
+    @SuppressWarnings("unused")
+    public IgnitionContainerPool withMaxSize(int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be at least 1");
+        }
+        this.maxSize = maxSize;
+        return this;
+    }
+
+    /**
+     * Set how long a gateway may stay idle in the pool before it is stopped.
+     *
+     * @param idleTimeout the idle timeout.
+     * @return this {@link IgnitionContainerPool} for chaining purposes.
+     */
+    @SuppressWarnings("unused")
+    public IgnitionContainerPool withIdleTimeout(Duration idleTimeout) {
+        this.idleTimeout = Objects.requireNonNull(idleTimeout);
+        return this;
+    }
+
+    /**
+     * Set how long {@link #acquire(Supplier)} waits for a gateway when the pool is full.
+     *
+     * @param acquireTimeout the acquire timeout.
+     * @return this {@link IgnitionContainerPool} for chaining purposes.
+     */
+    @SuppressWarnings("unused")
+    public IgnitionContainerPool withAcquireTimeout(Duration acquireTimeout) {
+        this.acquireTimeout = Objects.requireNonNull(acquireTimeout);
+        return this;
+    }
+
+    /**
+     * Set the action used to reset a gateway when its lease is closed.
+     * Defaults to restoring the configured gateway backup. Without a reset action, gateways that have no
+     * gateway backup are discarded instead of being returned to the pool dirty.
+     *
+     * @param resetAction the reset action to use.
+     * @return this {@link IgnitionContainerPool} for chaining purposes.
+     */
+    @SuppressWarnings("unused")
+    public IgnitionContainerPool withResetAction(Consumer<IgnitionContainer> resetAction) {
+        this.resetAction = Objects.requireNonNull(resetAction);
+        return this;
+    }
+
+    /**
+     * Start gateways ahead of time so later calls to {@link #acquire(Supplier)} don't wait for a boot.
+     *
+     * @param factory creates unstarted containers with the configuration to warm.
+     * @param count the number of gateways to start.
+     */
+    @SuppressWarnings("unused")
+    public void warm(Supplier<IgnitionContainer> factory, int count) {
+        for (int i = 0; i < count; i++) {
+            IgnitionContainer container = factory.get();
+            String key = container.getConfigurationFingerprint();
+            List<IgnitionContainer> evicted = new ArrayList<>();
+
+            lock.lock();
+            try {
+                checkNotClosed();
+                if (!reserve(key, evicted)) {
+                    logger.warn("Ignition container pool is full, warmed {} of {} gateways.", i, count);
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            evicted.forEach(IgnitionContainerPool::stopQuietly);
+            startReserved(container);
+
+            boolean closedWhileStarting;
+            lock.lock();
+            try {
+                // The pool may have been closed during the start, after it stopped its idle gateways.
+                closedWhileStarting = closed;
+                if (closedWhileStarting) {
+                    size--;
+                } else {
+                    addIdle(key, container);
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (closedWhileStarting) {
+                stopQuietly(container);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Lease a started gateway with the configuration produced by {@code factory}.
+     *
+     * <p>An idle gateway with the same configuration is reused if one is available. Otherwise a new
+     * gateway is started, evicting idle gateways with other configurations if the pool is full.
+     *
+     * @param factory creates an unstarted container with the required configuration.
+     * @return a lease on a started gateway. Close it to return the gateway to the pool.
+     * @throws IllegalStateException if no gateway becomes available within the acquire timeout.
+     */
+    public Lease acquire(Supplier<IgnitionContainer> factory) {
+        IgnitionContainer template = factory.get();
+        String key = template.getConfigurationFingerprint();
+        Instant deadline = Instant.now().plus(acquireTimeout);
+        List<IgnitionContainer> evicted = new ArrayList<>();
+
+        lock.lock();
+        try {
+            while (true) {
+                checkNotClosed();
+
+                Deque<PooledGateway> candidates = idle.get(key);
+                if (candidates != null && !candidates.isEmpty()) {
+                    IgnitionContainer container = candidates.pollFirst().container;
+                    leased.add(container);
+                    return new Lease(key, container);
+                }
+
+                if (reserve(key, evicted)) {
+                    break;
+                }
+
+                long remaining = Duration.between(Instant.now(), deadline).toNanos();
+                if (remaining <= 0) {
+                    throw new IllegalStateException(String.format(
+                            "Timed out waiting for a gateway, all %d pooled gateways are leased", maxSize));
+                }
+                released.awaitNanos(remaining);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a gateway", e);
+        } finally {
+            lock.unlock();
+        }
+
+        evicted.forEach(IgnitionContainerPool::stopQuietly);
+        startReserved(template);
+
+        lock.lock();
+        try {
+            leased.add(template);
+        } finally {
+            lock.unlock();
+        }
+        return new Lease(key, template);
+    }
+
+    /**
+     * Get the number of gateways in the pool, leased and idle.
+     *
+     * @return the number of gateways in the pool.
+     */
+    @SuppressWarnings("unused")
+    public int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stop all gateways and shut down the pool.
+     * Gateways that are still leased are stopped when their lease is closed.
+     */
+    @Override
+    public void close() {
+        List<IgnitionContainer> toStop = new ArrayList<>();
+        lock.lock();
+        try {
+            closed = true;
+            idle.values().forEach(gateways -> gateways.forEach(gateway -> toStop.add(gateway.container)));
+            size -= toStop.size();
+            idle.clear();
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        evictor.shutdownNow();
+        toStop.forEach(IgnitionContainerPool::stopQuietly);
+    }
+
+    private void release(String key, IgnitionContainer container) {
+        boolean reset;
+        lock.lock();
+        try {
+            leased.remove(container);
+            reset = !closed;
+        } finally {
+            lock.unlock();
+        }
+
+        if (reset && resetAction == RESTORE_GATEWAY_BACKUP && container.getGatewayBackup().isEmpty()) {
+            logger.debug("Pooled gateway has no gateway backup to reset it with, it will be discarded.");
+            reset = false;
+        } else if (reset) {
+            try {
+                resetAction.accept(container);
+            } catch (RuntimeException e) {
+                logger.warn("Unable to reset pooled gateway, it will be discarded.", e);
+                reset = false;
+            }
+        }
+
+        lock.lock();
+        try {
+            if (reset && !closed) {
+                addIdle(key, container);
+                return;
+            }
+            size--;
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        stopQuietly(container);
+    }
+
+    /**
+     * Reserve a slot for a new gateway, evicting an idle gateway with another configuration if needed.
+     * Must be called while holding the lock. Evicted gateways must be stopped after releasing the lock.
+     */
+    private boolean reserve(String key, List<IgnitionContainer> evicted) {
+        checkNotClosed();
+        if (size >= maxSize) {
+            IgnitionContainer leastRecentlyUsed = pollLeastRecentlyUsed(key);
+            if (leastRecentlyUsed == null) {
+                return false;
+            }
+            logger.debug("Evicting idle gateway to make room for a new configuration.");
+            evicted.add(leastRecentlyUsed);
+            size--;
+        }
+        size++;
+        return true;
+    }
+
+    private void startReserved(IgnitionContainer container) {
+        try {
+            container.start();
+        } catch (RuntimeException e) {
+            lock.lock();
+            try {
+                size--;
+                released.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            throw e;
+        }
+    }
+
+    private void addIdle(String key, IgnitionContainer container) {
+        idle.computeIfAbsent(key, k -> new ArrayDeque<>()).addFirst(new PooledGateway(container));
+        released.signalAll();
+    }
+
+    private IgnitionContainer pollLeastRecentlyUsed(String excludedKey) {
+        PooledGateway oldest = null;
+        Deque<PooledGateway> owner = null;
+
+        for (Map.Entry<String, Deque<PooledGateway>> entry : idle.entrySet()) {
+            if (entry.getKey().equals(excludedKey) || entry.getValue().isEmpty()) {
+                continue;
+            }
+            PooledGateway candidate = entry.getValue().peekLast();
+            if (oldest == null || candidate.idleSince.isBefore(oldest.idleSince)) {
+                oldest = candidate;
+                owner = entry.getValue();
+            }
+        }
+
+        if (oldest == null) {
+            return null;
+        }
+        owner.pollLast();
+        return oldest.container;
+    }
+
+    private void evictIdle() {
+        List<IgnitionContainer> toStop = new ArrayList<>();
+        Instant cutoff = Instant.now().minus(idleTimeout);
+
+        lock.lock();
+        try {
+            for (Deque<PooledGateway> gateways : idle.values()) {
+                while (!gateways.isEmpty() && gateways.peekLast().idleSince.isBefore(cutoff)) {
+                    toStop.add(gateways.pollLast().container);
+                }
+            }
+            size -= toStop.size();
+            if (!toStop.isEmpty()) {
+                released.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (!toStop.isEmpty()) {
+            logger.debug("Stopping {} idle pooled gateway(s).", toStop.size());
+        }
+        toStop.forEach(IgnitionContainerPool::stopQuietly);
+    }
+
+    private void checkNotClosed() {
+        if (closed) {
+            throw new IllegalStateException("Ignition container pool is closed");
+        }
+    }
+
+    private static void stopQuietly(IgnitionContainer container) {
+        try {
+            container.stop();
+        } catch (RuntimeException e) {
+            logger.warn("Unable to stop pooled gateway.", e);
+        }
+    }
+
+    private static final class PooledGateway {
+        private final IgnitionContainer container;
+        private final Instant idleSince = Instant.now();
+
+        private PooledGateway(IgnitionContainer container) {
+            this.container = container;
+        }
+    }
+
+    /**
+     * A lease on a pooled gateway. Closing the lease resets the gateway and returns it to the pool.
+     */
+    public final class Lease implements AutoCloseable {
+
+        private final String key;
+
+        private final IgnitionContainer container;
+
+        private boolean returned = false;
+
+        private Lease(String key, IgnitionContainer container) {
+            this.key = key;
+            this.container = container;
+        }
+
+        /**
+         * Get the leased container.
+         *
+         * @return the leased container.
+         */
+        public IgnitionContainer getContainer() {
+            return container;
+        }
+
+        /**
+         * Reset the gateway and return it to the pool.
+         */
+        @Override
+        public synchronized void close() {
+            if (returned) {
+                return;
+            }
+            returned = true;
+            release(key, container);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.mussonindustrial.testcontainers.ignition;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+/**
+ * Injects a started, shared Ignition gateway into a JUnit 5 test field or parameter of type
+ * {@link IgnitionContainer}.
+ *
+ * <p>Gateways are shared by every test in the JVM that declares the same configuration, including tests running in
+ * parallel, and are stopped when the test run ends. Static fields hold a gateway for the whole test class, instance
+ * fields and parameters hold it for a single test.
+ *
+ * <pre>{@code
+ * class MyTest {
+ *     @IgnitionGateway(
+ *             image = "inductiveautomation/ignition:8.1.43",
+ *             modules = GatewayModule.PERSPECTIVE,
+ *             acceptLicense = true)
+ *     static IgnitionContainer ignition;
+ *
+ *     @Test
+ *     void test() {
+ *         String url = ignition.getGatewayUrl();
+ *         // ... do something with your gateway!
+ *     }
+ * }
+ * }</pre>
+ *
+ * <p>If a {@link #reset()} action is set, each test that uses the gateway has it to itself, and the action runs
+ * after the test so the next test starts from a known state. Without one, tests use the gateway concurrently.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.PARAMETER})
+@ExtendWith(IgnitionGatewayExtension.class)
+public @interface IgnitionGateway {
+
+    /**
+     * The gateway image, for example {@code inductiveautomation/ignition:8.1.43}.
+     *
+     * @return the gateway image.
+     */
+    String image();
+
+    /**
+     * The gateway edition.
+     *
+     * @return the gateway edition.
+     */
+    GatewayEdition edition() default GatewayEdition.STANDARD;
+
+    /**
+     * The modules to enable.
+     *
+     * @return the modules to enable.
+     */
+    GatewayModule[] modules() default {};
+
+    /**
+     * The path to a gateway backup to restore at startup.
+     *
+     * @return the gateway backup path, or empty for none.
+     */
+    String gatewayBackup() default "";
+
+    /**
+     * The paths to third-party modules to install at startup.
+     *
+     * @return the third-party module paths.
+     */
+    String[] thirdPartyModules() default {};
+
+    /**
+     * Supplemental JVM/Wrapper/Gateway arguments.
+     *
+     * @return the additional arguments.
+     */
+    String[] additionalArgs() default {};
+
+    /**
+     * Automatically accept the Ignition EULA.
+     *
+     * @return true to accept the EULA.
+     * @see IgnitionContainer#acceptLicense()
+     */
+    boolean acceptLicense() default false;
+
+    /**
+     * The action that resets the gateway after each test that uses it.
+     * The class needs a public no-argument constructor.
+     *
+     * @return the reset action.
+     * @see RestoreGatewayBackup
+     */
+    Class<? extends Consumer<IgnitionContainer>> reset() default NoReset.class;
+
+    /** Leaves the gateway as it is between tests. */
+    final class NoReset implements Consumer<IgnitionContainer> {
+        @Override
+        public void accept(IgnitionContainer container) {}
+    }
+
+    /** Restores the configured gateway backup between tests. */
+    final class RestoreGatewayBackup implements Consumer<IgnitionContainer> {
+        @Override
+        public void accept(IgnitionContainer container) {
+            container.restoreGatewayBackup();
+        }
+    }
+}
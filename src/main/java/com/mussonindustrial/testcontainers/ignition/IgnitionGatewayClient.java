@@ -0,0 +1,218 @@
+package com.mussonindustrial.testcontainers.ignition;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import org.testcontainers.containers.Container;
+
+/**
+ * A shared client for interacting with a running Ignition gateway.
+ *
+ * <p>All requests share one HTTP client, which negotiates HTTP/2 where the gateway supports it and otherwise
+ * keeps HTTP/1.1 connections alive between requests. If the container has credentials, they are sent
+ * preemptively with every request, and session cookies set by the gateway are retained.
+ *
+ * <p>Obtain an instance with {@link IgnitionContainer#getGatewayClient()}.
+ */
+public class IgnitionGatewayClient {
+
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(5);
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "ignition-gateway-client-" + THREAD_COUNT.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final IgnitionContainer container;
+
+    private final URI baseUri;
+
+    private final HttpClient httpClient;
+
+    private final String authorization;
+
+    IgnitionGatewayClient(IgnitionContainer container) {
+        this.container = container;
+        this.baseUri = URI.create(container.getGatewayUrl() + "/");
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(CONNECT_TIMEOUT)
+                .cookieHandler(new CookieManager())
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .executor(EXECUTOR)
+                .build();
+
+        if (container.getUsername() != null && container.getPassword() != null) {
+            String credentials = container.getUsername() + ":" + container.getPassword();
+            this.authorization = "Basic "
+                    + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8));
+        } else {
+            this.authorization = null;
+        }
+    }
+
+    /**
+     * Get the underlying HTTP client.
+     *
+     * @return the underlying HTTP client.
+     */
+    @SuppressWarnings("unused")
+    public HttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    /**
+     * Create a request builder for a gateway path, with authentication applied.
+     *
+     * @param path the path relative to the gateway root, for example {@code "StatusPing"}.
+     * @return a request builder.
+     */
+    public HttpRequest.Builder newRequest(String path) {
+        HttpRequest.Builder builder =
+                HttpRequest.newBuilder(baseUri.resolve(path.replaceFirst("^/+", ""))).timeout(REQUEST_TIMEOUT);
+        if (authorization != null) {
+            builder.header("Authorization", authorization);
+        }
+        return builder;
+    }
+
+    /**
+     * Send a request to the gateway.
+     *
+     * @param request the request to send.
+     * @param bodyHandler the response body handler.
+     * @param <T> the response body type.
+     * @return a future that completes with the response.
+     */
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(
+            HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler) {
+        container.resumeIfIdle();
+        return httpClient.sendAsync(request, bodyHandler);
+    }
+
+    /**
+     * Get the gateway state reported by {@code /StatusPing}, for example {@code RUNNING}.
+     *
+     * @return a future that completes with the gateway state.
+     */
+    @SuppressWarnings("unused")
+    public CompletableFuture<String> getStatusAsync() {
+        return sendAsync(newRequest("StatusPing").GET().build(), HttpResponse.BodyHandlers.ofString())
+                .thenApply(response -> IgnitionWaitStrategy.parseGatewayState(response.body()));
+    }
+
+    /**
+     * Get the gateway information reported by {@code /system/gwinfo}, such as version, edition and state.
+     *
+     * @return a future that completes with the gateway information, by key.
+     */
+    @SuppressWarnings("unused")
+    public CompletableFuture<Map<String, String>> getGatewayInfoAsync() {
+        return sendAsync(newRequest("system/gwinfo").GET().build(), HttpResponse.BodyHandlers.ofString())
+                .thenApply(response -> parseGatewayInfo(response.body()));
+    }
+
+    /**
+     * List the module files installed in the gateway.
+     *
+     * @return a future that completes with the installed module file names.
+     */
+    @SuppressWarnings("unused")
+    public CompletableFuture<List<String>> getModulesAsync() {
+        return CompletableFuture.supplyAsync(
+                () -> {
+                    try {
+                        Container.ExecResult result =
+                                container.execInContainer("ls", "-1", IgnitionContainer.MODULES_DIR);
+                        return result.getStdout()
+                                .lines()
+                                .map(String::trim)
+                                .filter(line -> line.endsWith(".modl"))
+                                .sorted()
+                                .collect(Collectors.toList());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException("Interrupted while listing gateway modules", e);
+                    }
+                },
+                EXECUTOR);
+    }
+
+    /**
+     * Take a gateway backup and stream it to a file.
+     *
+     * @param target the file to write the backup to. Replaced if it exists.
+     * @return a future that completes with the target path.
+     */
+    @SuppressWarnings("unused")
+    public CompletableFuture<Path> downloadBackupAsync(Path target) {
+        return CompletableFuture.supplyAsync(
+                () -> {
+                    try {
+                        container.copyGatewayBackupTo(target);
+                        return target;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                },
+                EXECUTOR);
+    }
+
+    /**
+     * Send a GET request to a WebDev endpoint.
+     *
+     * @param project the WebDev project name.
+     * @param path the resource path within the project.
+     * @return a future that completes with the response.
+     */
+    @SuppressWarnings("unused")
+    public CompletableFuture<HttpResponse<String>> getWebDevAsync(String project, String path) {
+        return sendWebDevAsync(project, path, "GET", HttpRequest.BodyPublishers.noBody());
+    }
+
+    /**
+     * Send a request to a WebDev endpoint.
+     *
+     * @param project the WebDev project name.
+     * @param path the resource path within the project.
+     * @param method the HTTP method.
+     * @param body the request body.
+     * @return a future that completes with the response.
+     */
+    public CompletableFuture<HttpResponse<String>> sendWebDevAsync(
+            String project, String path, String method, HttpRequest.BodyPublisher body) {
+        String resource = String.format("system/webdev/%s/%s", project, path.replaceFirst("^/+", ""));
+        return sendAsync(newRequest(resource).method(method, body).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    static Map<String, String> parseGatewayInfo(String body) {
+        Map<String, String> info = new LinkedHashMap<>();
+        for (String pair : body.trim().split(";")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0) {
+                info.put(pair.substring(0, separator).trim(), pair.substring(separator + 1).trim());
+            }
+        }
+        return info;
+    }
+}
@@ -0,0 +1,201 @@
+package com.mussonindustrial.testcontainers.ignition;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Parameter;
+import java.util.*;
+import org.junit.jupiter.api.extension.*;
+import org.junit.platform.commons.support.AnnotationSupport;
+import org.junit.platform.commons.support.ModifierSupport;
+
+/**
+ * JUnit 5 extension that injects shared gateways into fields and parameters annotated with {@link IgnitionGateway}.
+ *
+ * <p>Static fields are injected before all tests of a class. Instance fields and test method parameters are leased
+ * before each test, and the exclusive gateways among them are locked together in a fixed order, so tests that
+ * share several gateways can't deadlock. Leases are released when the class or test that took them finishes, and
+ * the gateways are stopped when the test run ends.
+ */
+public class IgnitionGatewayExtension
+        implements BeforeAllCallback, BeforeEachCallback, AfterEachCallback, ParameterResolver {
+
+    private static final ExtensionContext.Namespace NAMESPACE =
+            ExtensionContext.Namespace.create(IgnitionGatewayExtension.class);
+
+    @Override
+    public void beforeAll(ExtensionContext context) {
+        Class<?> testClass = context.getRequiredTestClass();
+        Leases leases = getLeases(context);
+        for (Field field : findGatewayFields(testClass, true)) {
+            IgnitionGatewayRegistry.Lease lease = leases.acquire(context, field.getAnnotation(IgnitionGateway.class));
+            inject(field, null, lease.getContainer());
+        }
+    }
+
+    @Override
+    public void beforeEach(ExtensionContext context) {
+        Leases leases = getLeases(context);
+        for (Object instance : context.getRequiredTestInstances().getAllInstances()) {
+            for (Field field : findGatewayFields(instance.getClass(), false)) {
+                IgnitionGatewayRegistry.Lease lease =
+                        leases.acquire(context, field.getAnnotation(IgnitionGateway.class));
+                inject(field, instance, lease.getContainer());
+            }
+        }
+
+        ParameterGateways parameters = getParameterGateways(context);
+        Parameter[] methodParameters = context.getRequiredTestMethod().getParameters();
+        for (int i = 0; i < methodParameters.length; i++) {
+            Optional<IgnitionGateway> annotation =
+                    AnnotationSupport.findAnnotation(methodParameters[i], IgnitionGateway.class);
+            if (annotation.isPresent() && methodParameters[i].getType().isAssignableFrom(IgnitionContainer.class)) {
+                parameters.containers.put(i, leases.acquire(context, annotation.get()).getContainer());
+            }
+        }
+
+        // Take exclusive gateways in a fixed order, so tests sharing several of them can't deadlock.
+        List<IgnitionGatewayRegistry.Lease> used = new ArrayList<>();
+        for (Optional<ExtensionContext> current = Optional.of(context);
+                current.isPresent();
+                current = current.get().getParent()) {
+            Leases scoped = current.get().getStore(NAMESPACE).get(current.get().getUniqueId(), Leases.class);
+            if (scoped != null) {
+                synchronized (scoped.leases) {
+                    used.addAll(scoped.leases);
+                }
+            }
+        }
+        used.sort(Comparator.comparing(IgnitionGatewayRegistry.Lease::getKey));
+        TestLocks locks = getTestLocks(context);
+        used.forEach(locks::lock);
+    }
+
+    @Override
+    public void afterEach(ExtensionContext context) {
+        getTestLocks(context).resetAndUnlock();
+    }
+
+    @Override
+    public boolean supportsParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
+        return parameterContext.isAnnotated(IgnitionGateway.class)
+                && parameterContext.getParameter().getType().isAssignableFrom(IgnitionContainer.class);
+    }
+
+    @Override
+    public Object resolveParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
+        // Test method parameters were leased and locked in beforeEach.
+        if (extensionContext.getTestMethod().isPresent()
+                && parameterContext.getDeclaringExecutable().equals(extensionContext.getRequiredTestMethod())) {
+            IgnitionContainer container =
+                    getParameterGateways(extensionContext).containers.get(parameterContext.getIndex());
+            if (container != null) {
+                return container;
+            }
+        }
+
+        IgnitionGateway annotation = parameterContext.findAnnotation(IgnitionGateway.class).orElseThrow();
+        IgnitionGatewayRegistry.Lease lease = getLeases(extensionContext).acquire(extensionContext, annotation);
+        if (extensionContext.getTestMethod().isPresent()) {
+            getTestLocks(extensionContext).lock(lease);
+        }
+        return lease.getContainer();
+    }
+
+    private static List<Field> findGatewayFields(Class<?> testClass, boolean isStatic) {
+        List<Field> fields = AnnotationSupport.findAnnotatedFields(
+                testClass, IgnitionGateway.class, field -> ModifierSupport.isStatic(field) == isStatic);
+        for (Field field : fields) {
+            if (!field.getType().isAssignableFrom(IgnitionContainer.class)) {
+                throw new ExtensionConfigurationException(String.format(
+                        "@IgnitionGateway field '%s' must be of type IgnitionContainer", field.getName()));
+            }
+        }
+        return fields;
+    }
+
+    private static void inject(Field field, Object instance, IgnitionContainer container) {
+        try {
+            field.setAccessible(true);
+            field.set(instance, container);
+        } catch (IllegalAccessException | RuntimeException e) {
+            throw new ExtensionConfigurationException(
+                    String.format("Unable to inject @IgnitionGateway field '%s'", field.getName()), e);
+        }
+    }
+
+    private static IgnitionGatewayRegistry getRegistry(ExtensionContext context) {
+        return context.getRoot()
+                .getStore(NAMESPACE)
+                .getOrComputeIfAbsent(
+                        IgnitionGatewayRegistry.class,
+                        key -> new IgnitionGatewayRegistry(),
+                        IgnitionGatewayRegistry.class);
+    }
+
+    private static Leases getLeases(ExtensionContext context) {
+        // Keyed by the context itself, since store lookups fall back to parent contexts.
+        return context.getStore(NAMESPACE)
+                .getOrComputeIfAbsent(context.getUniqueId(), key -> new Leases(), Leases.class);
+    }
+
+    private static TestLocks getTestLocks(ExtensionContext context) {
+        return context.getStore(NAMESPACE)
+                .getOrComputeIfAbsent(TestLocks.class, key -> new TestLocks(), TestLocks.class);
+    }
+
+    private static ParameterGateways getParameterGateways(ExtensionContext context) {
+        return context.getStore(NAMESPACE)
+                .getOrComputeIfAbsent(ParameterGateways.class, key -> new ParameterGateways(), ParameterGateways.class);
+    }
+
+    /** The leases taken in one extension context, released when the context closes. */
+    private static final class Leases implements ExtensionContext.Store.CloseableResource {
+        private final List<IgnitionGatewayRegistry.Lease> leases = Collections.synchronizedList(new ArrayList<>());
+
+        private IgnitionGatewayRegistry.Lease acquire(ExtensionContext context, IgnitionGateway annotation) {
+            IgnitionGatewayRegistry.Lease lease = getRegistry(context).acquire(annotation);
+            leases.add(lease);
+            return lease;
+        }
+
+        @Override
+        public void close() {
+            synchronized (leases) {
+                leases.forEach(IgnitionGatewayRegistry.Lease::close);
+                leases.clear();
+            }
+        }
+    }
+
+    /** The gateways leased for the parameters of one test method, by parameter index. */
+    private static final class ParameterGateways {
+        private final Map<Integer, IgnitionContainer> containers = new HashMap<>();
+    }
+
+    /** The exclusive gateways held by one test, by configuration, reset and released after the test. */
+    private static final class TestLocks {
+        private final Map<String, IgnitionGatewayRegistry.Lease> locked = new LinkedHashMap<>();
+
+        private synchronized void lock(IgnitionGatewayRegistry.Lease lease) {
+            if (!locked.containsKey(lease.getKey())) {
+                lease.lockForTest();
+                locked.put(lease.getKey(), lease);
+            }
+        }
+
+        private synchronized void resetAndUnlock() {
+            RuntimeException failure = null;
+            for (IgnitionGatewayRegistry.Lease lease : locked.values()) {
+                try {
+                    lease.resetAndUnlock();
+                } catch (RuntimeException e) {
+                    if (failure == null) failure = e;
+                    else failure.addSuppressed(e);
+                }
+            }
+            locked.clear();
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+}
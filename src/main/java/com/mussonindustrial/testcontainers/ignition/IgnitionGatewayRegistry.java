@@ -0,0 +1,192 @@
+package com.mussonindustrial.testcontainers.ignition;
+
+import java.io.FileNotFoundException;
+import java.util.*;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.extension.ExtensionConfigurationException;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The gateways declared with {@link IgnitionGateway} in a test run, keyed by configuration fingerprint.
+ *
+ * <p>Each gateway counts the leases held on it. Gateways are kept running when their last lease is released, so a
+ * later test class with the same configuration can reuse them, and are stopped when the test run ends.
+ */
+final class IgnitionGatewayRegistry implements ExtensionContext.Store.CloseableResource {
+
+    private static final Logger logger = LoggerFactory.getLogger(IgnitionGatewayRegistry.class);
+
+    private final Map<String, SharedGateway> gateways = new HashMap<>();
+
+    private boolean closed = false;
+
+    /**
+     * Lease a started gateway with the configuration declared by an annotation.
+     * The gateway is started if this is the first lease on it.
+     *
+     * @param annotation the gateway configuration.
+     * @return a lease on the started gateway.
+     */
+    Lease acquire(IgnitionGateway annotation) {
+        IgnitionContainer container = createContainer(annotation);
+        String key = container.getConfigurationFingerprint() + ":" + annotation.reset().getName();
+
+        SharedGateway gateway;
+        synchronized (gateways) {
+            if (closed) {
+                throw new IllegalStateException("Ignition gateway registry is closed");
+            }
+            gateway = gateways.computeIfAbsent(key, k -> new SharedGateway(k, container, createReset(annotation)));
+            gateway.references++;
+        }
+
+        try {
+            gateway.start();
+        } catch (RuntimeException e) {
+            synchronized (gateways) {
+                gateway.references--;
+            }
+            throw e;
+        }
+        return new Lease(gateway);
+    }
+
+    /**
+     * Stop all gateways. Called by JUnit when the test run ends.
+     */
+    @Override
+    public void close() {
+        List<SharedGateway> toStop;
+        synchronized (gateways) {
+            closed = true;
+            toStop = new ArrayList<>(gateways.values());
+            gateways.clear();
+        }
+
+        for (SharedGateway gateway : toStop) {
+            if (gateway.references > 0) {
+                logger.warn("Stopping shared gateway with {} unreleased leases.", gateway.references);
+            }
+            try {
+                gateway.container.stop();
+            } catch (RuntimeException e) {
+                logger.warn("Unable to stop shared gateway.", e);
+            }
+        }
+    }
+
+    private static IgnitionContainer createContainer(IgnitionGateway annotation) {
+        IgnitionContainer container = new IgnitionContainer(annotation.image());
+        container.withEdition(annotation.edition()).withModules(annotation.modules());
+
+        try {
+            if (!annotation.gatewayBackup().isEmpty()) container.withGatewayBackup(annotation.gatewayBackup());
+            if (annotation.thirdPartyModules().length > 0)
+                container.withThirdPartyModules(annotation.thirdPartyModules());
+        } catch (FileNotFoundException e) {
+            throw new ExtensionConfigurationException(e.getMessage(), e);
+        }
+
+        if (annotation.additionalArgs().length > 0) container.withAdditionalArgs(annotation.additionalArgs());
+        if (annotation.acceptLicense()) container.acceptLicense();
+        return container;
+    }
+
+    private static Consumer<IgnitionContainer> createReset(IgnitionGateway annotation) {
+        try {
+            return annotation.reset().getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new ExtensionConfigurationException(
+                    String.format("Unable to create reset action %s", annotation.reset().getName()), e);
+        }
+    }
+
+    private final class SharedGateway {
+        private final String key;
+        private final IgnitionContainer container;
+        private final Consumer<IgnitionContainer> reset;
+        private final Semaphore exclusive = new Semaphore(1, true);
+        private int references = 0;
+
+        private SharedGateway(String key, IgnitionContainer container, Consumer<IgnitionContainer> reset) {
+            this.key = key;
+            this.container = container;
+            this.reset = reset;
+        }
+
+        private synchronized void start() {
+            if (!container.isRunning()) {
+                container.start();
+            }
+        }
+
+        private boolean isExclusive() {
+            return !(reset instanceof IgnitionGateway.NoReset);
+        }
+    }
+
+    /**
+     * A lease on a shared gateway. Release it once the test class or test that acquired it is finished.
+     */
+    final class Lease implements ExtensionContext.Store.CloseableResource {
+
+        private final SharedGateway gateway;
+
+        private boolean released = false;
+
+        private Lease(SharedGateway gateway) {
+            this.gateway = gateway;
+        }
+
+        IgnitionContainer getContainer() {
+            return gateway.container;
+        }
+
+        /**
+         * Take the gateway for a single test, if it has a reset action.
+         * Blocks while another test has it.
+         */
+        void lockForTest() {
+            if (!gateway.isExclusive()) {
+                return;
+            }
+            try {
+                gateway.exclusive.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for a shared gateway", e);
+            }
+        }
+
+        /**
+         * Reset the gateway after a test, then let the next test take it.
+         */
+        void resetAndUnlock() {
+            if (!gateway.isExclusive()) {
+                return;
+            }
+            try {
+                gateway.reset.accept(gateway.container);
+            } finally {
+                gateway.exclusive.release();
+            }
+        }
+
+        String getKey() {
+            return gateway.key;
+        }
+
+        @Override
+        public void close() {
+            synchronized (gateways) {
+                if (!released) {
+                    released = true;
+                    gateway.references--;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.mussonindustrial.testcontainers.ignition;
+
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.model.Image;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.utility.DockerImageName;
+
+/**
+ * Local Docker image cache of commissioned Ignition gateways.
+ *
+ * <p>Entries are tagged with the configuration hash of the gateway that produced them and labelled
+ * with a cache key. When an entry is committed, any other entry with the same cache key but a
+ * different configuration hash is stale and is removed.
+ */
+final class IgnitionImageCache {
+
+    static final String REPOSITORY = "testcontainers-ignition-cache";
+
+    static final String KEY_LABEL = "com.mussonindustrial.testcontainers.ignition.cache.key";
+
+    static final String HASH_LABEL = "com.mussonindustrial.testcontainers.ignition.cache.hash";
+
+    private static final int TAG_LENGTH = 32;
+
+    private static final Logger logger = LoggerFactory.getLogger(IgnitionImageCache.class);
+
+    private final DockerClient dockerClient;
+
+    private final String key;
+
+    private final String hash;
+
+    IgnitionImageCache(DockerClient dockerClient, String key, String hash) {
+        this.dockerClient = dockerClient;
+        this.key = key;
+        this.hash = hash;
+    }
+
+    /**
+     * Get the image name of this cache entry.
+     *
+     * @return the image name of this cache entry.
+     */
+    DockerImageName getImageName() {
+        return DockerImageName.parse(REPOSITORY).withTag(hash.substring(0, TAG_LENGTH));
+    }
+
+    /**
+     * Find the cached image for this entry, if one has been committed.
+     *
+     * @return the cached image, or empty on a cache miss.
+     */
+    Optional<Image> find() {
+        List<Image> images = dockerClient
+                .listImagesCmd()
+                .withLabelFilter(Map.of(KEY_LABEL, key, HASH_LABEL, hash))
+                .exec();
+        return images.stream().findFirst();
+    }
+
+    /**
+     * Commit a running container as this cache entry and evict stale entries for the same key.
+     *
+     * @param containerId the ID of the container to commit.
+     */
+    void commit(String containerId) {
+        DockerImageName imageName = getImageName();
+
+        // Committed images inherit the container's labels. Clear the session label so the
+        // resource reaper doesn't remove the cache entry at the end of this test session.
+        String imageId = dockerClient
+                .commitCmd(containerId)
+                .withRepository(imageName.getUnversionedPart())
+                .withTag(imageName.getVersionPart())
+                .withLabels(Map.of(
+                        KEY_LABEL, key, HASH_LABEL, hash, DockerClientFactory.TESTCONTAINERS_SESSION_ID_LABEL, ""))
+                .withPause(true)
+                .exec();
+
+        logger.info("Committed gateway to image cache as {} ({}).", imageName, imageId);
+        evictStale();
+    }
+
+    private void evictStale() {
+        List<Image> images =
+                dockerClient.listImagesCmd().withLabelFilter(Map.of(KEY_LABEL, key)).exec();
+
+        for (Image image : images) {
+            Map<String, String> labels = image.getLabels();
+            if (labels != null && hash.equals(labels.get(HASH_LABEL))) {
+                continue;
+            }
+
+            try {
+                dockerClient.removeImageCmd(image.getId()).withForce(true).exec();
+                logger.info("Evicted stale image cache entry {} for key '{}'.", image.getId(), key);
+            } catch (RuntimeException e) {
+                logger.warn("Unable to evict stale image cache entry {}.", image.getId(), e);
+            }
+        }
+    }
+}
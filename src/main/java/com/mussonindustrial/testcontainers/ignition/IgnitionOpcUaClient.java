@@ -0,0 +1,379 @@
+package com.mussonindustrial.testcontainers.ignition;
+
+import static org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.Unsigned.uint;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import org.eclipse.milo.opcua.sdk.client.OpcUaClient;
+import org.eclipse.milo.opcua.sdk.client.api.config.OpcUaClientConfigBuilder;
+import org.eclipse.milo.opcua.sdk.client.api.subscriptions.UaMonitoredItem;
+import org.eclipse.milo.opcua.sdk.client.api.subscriptions.UaSubscription;
+import org.eclipse.milo.opcua.stack.core.AttributeId;
+import org.eclipse.milo.opcua.stack.core.UaException;
+import org.eclipse.milo.opcua.stack.core.security.SecurityPolicy;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
+import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+import org.eclipse.milo.opcua.stack.core.types.builtin.QualifiedName;
+import org.eclipse.milo.opcua.stack.core.types.builtin.StatusCode;
+import org.eclipse.milo.opcua.stack.core.types.builtin.Variant;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.MonitoringMode;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.TimestampsToReturn;
+import org.eclipse.milo.opcua.stack.core.types.structured.MonitoredItemCreateRequest;
+import org.eclipse.milo.opcua.stack.core.types.structured.MonitoringParameters;
+import org.eclipse.milo.opcua.stack.core.types.structured.ReadValueId;
+import org.eclipse.milo.opcua.stack.core.util.EndpointUtil;
+
+/**
+ * A connected OPC UA client for the gateway's OPC UA server, with batched reads and writes and
+ * queued subscriptions.
+ *
+ * <p>Requires the {@code org.eclipse.milo:sdk-client} library on the classpath and the
+ * {@link GatewayModule#OPC_UA} module enabled. Obtain an instance with {@link IgnitionContainer#getOpcUaClient()}.
+ *
+ * <pre>{@code
+ * IgnitionOpcUaClient client = ignition.getOpcUaClient();
+ * List<NodeId> tags = List.of(NodeId.parse("ns=2;s=[default]Tag1"), NodeId.parse("ns=2;s=[default]Tag2"));
+ * client.writeValues(tags, List.of(1, 2));
+ * List<DataValue> values = client.readValues(tags);
+ * }</pre>
+ */
+public class IgnitionOpcUaClient implements AutoCloseable {
+
+    private static final int DEFAULT_BATCH_SIZE = 500;
+
+    private final OpcUaClient client;
+
+    /** Called before each request and poll, to resume a paused gateway. */
+    private final Runnable activity;
+
+    private final List<Subscription> subscriptions = Collections.synchronizedList(new ArrayList<>());
+
+    private final AtomicInteger clientHandles = new AtomicInteger();
+
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    private IgnitionOpcUaClient(OpcUaClient client, Runnable activity) {
+        this.client = client;
+        this.activity = activity;
+    }
+
+    /**
+     * Connect to the unsecured endpoint of a gateway's OPC UA server.
+     *
+     * @param container the running gateway container.
+     * @return the connected client.
+     * @throws IllegalStateException if the client can't connect.
+     */
+    static IgnitionOpcUaClient connect(IgnitionContainer container) {
+        // The server advertises its container address, connect to the mapped or proxied endpoint instead.
+        URI endpoint = URI.create(container.getOpcUaUrl());
+        try {
+            OpcUaClient client = OpcUaClient.create(
+                    container.getOpcUaDiscoveryUrl(),
+                    endpoints -> endpoints.stream()
+                            .filter(e -> Objects.equals(e.getSecurityPolicyUri(), SecurityPolicy.None.getUri()))
+                            .findFirst()
+                            .map(e -> EndpointUtil.updateUrl(e, endpoint.getHost(), endpoint.getPort())),
+                    OpcUaClientConfigBuilder::build);
+            client.connect().get();
+            return new IgnitionOpcUaClient(client, container::resumeIfIdle);
+        } catch (UaException | ExecutionException e) {
+            throw new IllegalStateException("Unable to connect to gateway OPC UA server", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while connecting to gateway OPC UA server", e);
+        }
+    }
+
+    /**
+     * Set the maximum number of nodes sent in a single read or write request.
+     * Larger operations are split into batches that are sent concurrently. Defaults to 500.
+     *
+     * @param batchSize the maximum number of nodes per request.
+     * @return this {@link IgnitionOpcUaClient} for chaining purposes.
+     */
+    @SuppressWarnings("unused")
+    public IgnitionOpcUaClient withBatchSize(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be at least 1");
+        }
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * Get the underlying Eclipse Milo client.
+     *
+     * @return the underlying client.
+     */
+    @SuppressWarnings("unused")
+    public OpcUaClient getClient() {
+        return client;
+    }
+
+    /**
+     * Read the values of many nodes.
+     *
+     * @param nodeIds the nodes to read.
+     * @return the values, in the same order as the nodes.
+     */
+    public List<DataValue> readValues(List<NodeId> nodeIds) {
+        return join(readValuesAsync(nodeIds));
+    }
+
+    /**
+     * Read the values of many nodes, in batches.
+     *
+     * @param nodeIds the nodes to read.
+     * @return a future that completes with the values, in the same order as the nodes.
+     */
+    public CompletableFuture<List<DataValue>> readValuesAsync(List<NodeId> nodeIds) {
+        activity.run();
+        List<CompletableFuture<List<DataValue>>> batches = new ArrayList<>();
+        for (List<NodeId> batch : partition(nodeIds)) {
+            batches.add(client.readValues(0.0, TimestampsToReturn.Both, batch));
+        }
+        return concat(batches);
+    }
+
+    /**
+     * Write the values of many nodes.
+     *
+     * @param nodeIds the nodes to write.
+     * @param values the values to write, in the same order as the nodes.
+     * @return the write results, in the same order as the nodes.
+     */
+    public List<StatusCode> writeValues(List<NodeId> nodeIds, List<?> values) {
+        return join(writeValuesAsync(nodeIds, values));
+    }
+
+    /**
+     * Write the values of many nodes, in batches.
+     *
+     * @param nodeIds the nodes to write.
+     * @param values the values to write, in the same order as the nodes.
+     * @return a future that completes with the write results, in the same order as the nodes.
+     */
+    public CompletableFuture<List<StatusCode>> writeValuesAsync(List<NodeId> nodeIds, List<?> values) {
+        if (nodeIds.size() != values.size()) {
+            throw new IllegalArgumentException("nodeIds and values must be the same size");
+        }
+
+        List<DataValue> dataValues = values.stream()
+                .map(value -> value instanceof DataValue
+                        ? (DataValue) value
+                        : DataValue.valueOnly(value instanceof Variant ? (Variant) value : new Variant(value)))
+                .collect(Collectors.toList());
+
+        activity.run();
+        List<CompletableFuture<List<StatusCode>>> batches = new ArrayList<>();
+        for (int i = 0; i < nodeIds.size(); i += batchSize) {
+            int end = Math.min(i + batchSize, nodeIds.size());
+            batches.add(client.writeValues(nodeIds.subList(i, end), dataValues.subList(i, end)));
+        }
+        return concat(batches);
+    }
+
+    /**
+     * Subscribe to value changes of many nodes.
+     *
+     * <p>Changes are queued until they are taken. If the queue is full, the oldest change is dropped.
+     *
+     * @param nodeIds the nodes to monitor.
+     * @param samplingInterval the rate at which the server samples each node.
+     * @param queueCapacity the maximum number of changes to hold.
+     * @return the subscription.
+     */
+    public Subscription subscribe(List<NodeId> nodeIds, Duration samplingInterval, int queueCapacity) {
+        activity.run();
+        double interval = samplingInterval.toMillis();
+        Subscription subscription = new Subscription(queueCapacity);
+        try {
+            subscription.subscription =
+                    client.getSubscriptionManager().createSubscription(interval).get();
+
+            List<MonitoredItemCreateRequest> requests = new ArrayList<>();
+            for (NodeId nodeId : nodeIds) {
+                ReadValueId readValueId =
+                        new ReadValueId(nodeId, AttributeId.Value.uid(), null, QualifiedName.NULL_VALUE);
+                MonitoringParameters parameters = new MonitoringParameters(
+                        uint(clientHandles.incrementAndGet()), interval, null, uint(10), true);
+                requests.add(new MonitoredItemCreateRequest(readValueId, MonitoringMode.Reporting, parameters));
+            }
+
+            List<CompletableFuture<List<UaMonitoredItem>>> batches = new ArrayList<>();
+            for (int i = 0; i < requests.size(); i += batchSize) {
+                batches.add(subscription.subscription.createMonitoredItems(
+                        TimestampsToReturn.Both,
+                        requests.subList(i, Math.min(i + batchSize, requests.size())),
+                        (item, index) -> item.setValueConsumer((monitoredItem, value) -> subscription.offer(
+                                monitoredItem.getReadValueId().getNodeId(), value))));
+            }
+            for (UaMonitoredItem item : join(concat(batches))) {
+                if (item.getStatusCode().isBad()) {
+                    throw new IllegalStateException(String.format(
+                            "Unable to monitor node %s: %s",
+                            item.getReadValueId().getNodeId(), item.getStatusCode()));
+                }
+            }
+        } catch (ExecutionException e) {
+            subscription.close();
+            throw new IllegalStateException("Unable to create subscription", e.getCause());
+        } catch (InterruptedException e) {
+            subscription.close();
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while creating subscription", e);
+        } catch (RuntimeException e) {
+            subscription.close();
+            throw e;
+        }
+
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    /** Delete all subscriptions and disconnect from the server. */
+    @Override
+    public void close() {
+        new ArrayList<>(subscriptions).forEach(Subscription::close);
+        try {
+            client.disconnect().get(5, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private List<List<NodeId>> partition(List<NodeId> nodeIds) {
+        List<List<NodeId>> batches = new ArrayList<>();
+        for (int i = 0; i < nodeIds.size(); i += batchSize) {
+            batches.add(nodeIds.subList(i, Math.min(i + batchSize, nodeIds.size())));
+        }
+        return batches;
+    }
+
+    private static <T> CompletableFuture<List<T>> concat(List<CompletableFuture<List<T>>> batches) {
+        return CompletableFuture.allOf(batches.toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> batches.stream()
+                        .flatMap(batch -> batch.join().stream())
+                        .collect(Collectors.toList()));
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("OPC UA request failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted during OPC UA request", e);
+        }
+    }
+
+    /** A change in the value of a monitored node. */
+    public static final class ValueChange {
+        private final NodeId nodeId;
+        private final DataValue value;
+
+        ValueChange(NodeId nodeId, DataValue value) {
+            this.nodeId = nodeId;
+            this.value = value;
+        }
+
+        /**
+         * Get the node that changed.
+         *
+         * @return the node ID.
+         */
+        public NodeId getNodeId() {
+            return nodeId;
+        }
+
+        /**
+         * Get the new value of the node.
+         *
+         * @return the new value.
+         */
+        public DataValue getValue() {
+            return value;
+        }
+
+        @Override
+        public String toString() {
+            return nodeId + "=" + value.getValue().getValue();
+        }
+    }
+
+    /** A subscription that queues value changes of its monitored nodes. */
+    public final class Subscription implements AutoCloseable {
+        private final BlockingQueue<ValueChange> queue;
+        private final AtomicLong dropped = new AtomicLong();
+        private UaSubscription subscription;
+
+        private Subscription(int queueCapacity) {
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        }
+
+        private void offer(NodeId nodeId, DataValue value) {
+            ValueChange change = new ValueChange(nodeId, value);
+            while (!queue.offer(change)) {
+                if (queue.poll() != null) {
+                    dropped.incrementAndGet();
+                }
+            }
+        }
+
+        /**
+         * Take the next value change, waiting if necessary.
+         *
+         * @param timeout the maximum time to wait.
+         * @return the next value change, or empty if none arrived in time.
+         * @throws InterruptedException if interrupted while waiting.
+         */
+        public Optional<ValueChange> poll(Duration timeout) throws InterruptedException {
+            activity.run();
+            return Optional.ofNullable(queue.poll(timeout.toNanos(), TimeUnit.NANOSECONDS));
+        }
+
+        /**
+         * Take all queued value changes without waiting.
+         *
+         * @return the queued value changes, oldest first.
+         */
+        public List<ValueChange> drain() {
+            activity.run();
+            List<ValueChange> changes = new ArrayList<>(queue.size());
+            queue.drainTo(changes);
+            return changes;
+        }
+
+        /**
+         * Get the number of value changes dropped because the queue was full.
+         *
+         * @return the number of dropped value changes.
+         */
+        public long getDroppedCount() {
+            return dropped.get();
+        }
+
+        /** Delete the subscription from the server. */
+        @Override
+        public void close() {
+            subscriptions.remove(this);
+            if (subscription != null) {
+                client.getSubscriptionManager().deleteSubscription(subscription.getSubscriptionId());
+                subscription = null;
+            }
+        }
+    }
+}
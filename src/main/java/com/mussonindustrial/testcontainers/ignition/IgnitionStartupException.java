@@ -0,0 +1,59 @@
+package com.mussonindustrial.testcontainers.ignition;
+
+import java.util.List;
+import org.testcontainers.containers.ContainerLaunchException;
+
+/**
+ * Thrown when a fatal pattern is detected in the gateway log while the container is starting.
+ */
+public class IgnitionStartupException extends ContainerLaunchException {
+
+    private final String pattern;
+
+    private final String line;
+
+    private final List<String> logExcerpt;
+
+    /**
+     * Create a new startup exception.
+     *
+     * @param pattern the fatal log pattern that matched.
+     * @param line the log line that matched.
+     * @param logExcerpt the log lines leading up to and including the matched line.
+     */
+    public IgnitionStartupException(String pattern, String line, List<String> logExcerpt) {
+        super(String.format(
+                "Gateway startup failed, log matched fatal pattern '%s': %s%nLog excerpt:%n%s",
+                pattern, line, String.join(System.lineSeparator(), logExcerpt)));
+        this.pattern = pattern;
+        this.line = line;
+        this.logExcerpt = List.copyOf(logExcerpt);
+    }
+
+    /**
+     * Get the fatal log pattern that matched.
+     *
+     * @return the fatal log pattern that matched.
+     */
+    public String getPattern() {
+        return pattern;
+    }
+
+    /**
+     * Get the log line that matched.
+     *
+     * @return the log line that matched.
+     */
+    public String getLine() {
+        return line;
+    }
+
+    /**
+     * Get the log lines leading up to and including the matched line.
+     *
+     * @return the log excerpt.
+     */
+    public List<String> getLogExcerpt() {
+        return logExcerpt;
+    }
+}
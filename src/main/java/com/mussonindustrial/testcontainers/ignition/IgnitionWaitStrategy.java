@@ -0,0 +1,224 @@
+package com.mussonindustrial.testcontainers.ignition;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import org.testcontainers.containers.ContainerLaunchException;
+import org.testcontainers.containers.output.FrameConsumerResultCallback;
+import org.testcontainers.containers.output.OutputFrame;
+import org.testcontainers.containers.wait.strategy.AbstractWaitStrategy;
+
+/**
+ * Waits for an Ignition gateway by polling its {@code /StatusPing} endpoint until it reports {@code RUNNING}.
+ *
+ * <p>Polling starts quickly and backs off towards a maximum interval, reusing a single HTTP client (and its
+ * keep-alive connection) for every request. Optionally, the strategy also waits for named modules to report
+ * that they started in the gateway log, which is streamed while waiting rather than fetched on every poll.
+ */
+public class IgnitionWaitStrategy extends AbstractWaitStrategy {
+
+    static final String RUNNING = "RUNNING";
+
+    private static final Pattern STATUS_PING_STATE = Pattern.compile("\"state\"\\s*:\\s*\"(\\w+)\"");
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(2);
+
+    private static final double BACKOFF_MULTIPLIER = 1.5;
+
+    private int port = IgnitionContainer.GATEWAY_PORT;
+
+    private Duration initialPollInterval = Duration.ofMillis(50);
+
+    private Duration maxPollInterval = Duration.ofSeconds(1);
+
+    private final List<String> modules = new ArrayList<>();
+
+    /**
+     * Set the container port the gateway HTTP server listens on.
+     *
+     * @param port the gateway HTTP port.
+     * @return this {@link IgnitionWaitStrategy} for chaining purposes.
+     */
+    @SuppressWarnings("unused")
+    public IgnitionWaitStrategy forPort(int port) {
+        this.port = port;
+        return this;
+    }
+
+    /**
+     * Set the polling intervals. Polling starts at the initial interval and backs off to the maximum interval.
+     *
+     * @param initial the initial poll interval.
+     * @param max the maximum poll interval.
+     * @return this {@link IgnitionWaitStrategy} for chaining purposes.
+     */
+    @SuppressWarnings("unused")
+    public IgnitionWaitStrategy withPollInterval(Duration initial, Duration max) {
+        if (initial.compareTo(max) > 0) {
+            throw new IllegalArgumentException("initial poll interval must not exceed max poll interval");
+        }
+        this.initialPollInterval = Objects.requireNonNull(initial);
+        this.maxPollInterval = Objects.requireNonNull(max);
+        return this;
+    }
+
+    /**
+     * Also wait for modules to be loaded. A module is considered loaded once the gateway is running and the
+     * gateway log reports that a module with that name or identifier started.
+     *
+     * @param names the names or identifiers of the modules to wait for.
+     * @return this {@link IgnitionWaitStrategy} for chaining purposes.
+     */
+    @SuppressWarnings("unused")
+    public IgnitionWaitStrategy withModulesLoaded(String... names) {
+        this.modules.addAll(List.of(names));
+        return this;
+    }
+
+    @Override
+    protected void waitUntilReady() {
+        if (modules.isEmpty()) {
+            waitUntilReady(Set.of());
+            return;
+        }
+
+        Set<String> startedModuleLines = ConcurrentHashMap.newKeySet();
+        LogLineConsumer consumer = new LogLineConsumer() {
+            @Override
+            void acceptLine(String line) {
+                if (StartupTimer.MODULE_STARTED.matcher(line).find()) {
+                    startedModuleLines.add(line.toLowerCase(Locale.ROOT));
+                }
+            }
+        };
+
+        try (FrameConsumerResultCallback callback = new FrameConsumerResultCallback()) {
+            callback.addConsumer(OutputFrame.OutputType.STDOUT, consumer);
+            callback.addConsumer(OutputFrame.OutputType.STDERR, consumer);
+            waitStrategyTarget
+                    .getDockerClient()
+                    .logContainerCmd(waitStrategyTarget.getContainerId())
+                    .withStdOut(true)
+                    .withStdErr(true)
+                    .withFollowStream(true)
+                    .exec(callback);
+
+            waitUntilReady(startedModuleLines);
+        } catch (IOException e) {
+            throw new ContainerLaunchException("Unable to follow the gateway log", e);
+        }
+    }
+
+    private void waitUntilReady(Set<String> startedModuleLines) {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(REQUEST_TIMEOUT)
+                .build();
+        HttpRequest request = newStatusPingRequest(
+                String.format("http://%s:%d", waitStrategyTarget.getHost(), waitStrategyTarget.getMappedPort(port)));
+
+        Instant deadline = Instant.now().plus(startupTimeout);
+        Duration interval = initialPollInterval;
+        String state;
+        List<String> missingModules = modules;
+
+        while (true) {
+            state = getGatewayState(client, request);
+            if (RUNNING.equals(state)) {
+                missingModules = getMissingModules(startedModuleLines);
+                if (missingModules.isEmpty()) {
+                    return;
+                }
+            }
+
+            Duration remaining = Duration.between(Instant.now(), deadline);
+            if (remaining.isNegative() || remaining.isZero()) {
+                break;
+            }
+
+            sleep(interval.compareTo(remaining) < 0 ? interval : remaining);
+            interval = Duration.ofNanos(Math.min(
+                    (long) (interval.toNanos() * BACKOFF_MULTIPLIER), maxPollInterval.toNanos()));
+        }
+
+        if (RUNNING.equals(state)) {
+            throw new ContainerLaunchException(String.format(
+                    "Timed out waiting for gateway modules to load: %s", String.join(", ", missingModules)));
+        }
+        throw new ContainerLaunchException(
+                String.format("Timed out waiting for gateway to be RUNNING, last state was %s", state));
+    }
+
+    private List<String> getMissingModules(Set<String> startedModuleLines) {
+        return modules.stream()
+                .filter(module -> startedModuleLines.stream()
+                        .noneMatch(line -> line.contains(module.toLowerCase(Locale.ROOT))))
+                .collect(Collectors.toList());
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ContainerLaunchException("Interrupted while waiting for gateway", e);
+        }
+    }
+
+    /**
+     * Create a {@code /StatusPing} request for a gateway.
+     *
+     * @param gatewayUrl the URL of the gateway web interface.
+     * @return the {@code /StatusPing} request.
+     */
+    static HttpRequest newStatusPingRequest(String gatewayUrl) {
+        return HttpRequest.newBuilder()
+                .uri(URI.create(gatewayUrl + "/StatusPing"))
+                .timeout(REQUEST_TIMEOUT)
+                .build();
+    }
+
+    /**
+     * Get the gateway state reported by {@code /StatusPing}.
+     *
+     * @param client the HTTP client to use.
+     * @param request the {@code /StatusPing} request.
+     * @return the gateway state, {@code UNKNOWN} if the response couldn't be parsed, or {@code UNREACHABLE} if
+     *     the request failed.
+     */
+    static String getGatewayState(HttpClient client, HttpRequest request) {
+        try {
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            return parseGatewayState(response.body());
+        } catch (IOException e) {
+            return "UNREACHABLE";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ContainerLaunchException("Interrupted while waiting for gateway", e);
+        }
+    }
+
+    /**
+     * Parse the gateway state from a {@code /StatusPing} response body.
+     *
+     * @param body the response body.
+     * @return the gateway state, or {@code UNKNOWN} if the body couldn't be parsed.
+     */
+    static String parseGatewayState(String body) {
+        Matcher matcher = STATUS_PING_STATE.matcher(body);
+        return matcher.find() ? matcher.group(1) : "UNKNOWN";
+    }
+}
@@ -0,0 +1,36 @@
+package com.mussonindustrial.testcontainers.ignition;
+
+import java.util.function.Consumer;
+import org.testcontainers.containers.output.OutputFrame;
+
+/**
+ * Splits container output frames into complete, non-empty log lines.
+ */
+abstract class LogLineConsumer implements Consumer<OutputFrame> {
+
+    private final StringBuilder partialLine = new StringBuilder();
+
+    @Override
+    public synchronized void accept(OutputFrame frame) {
+        if (frame.getType() == OutputFrame.OutputType.END) {
+            return;
+        }
+
+        partialLine.append(frame.getUtf8String());
+        int newline;
+        while ((newline = partialLine.indexOf("\n")) >= 0) {
+            String line = partialLine.substring(0, newline).stripTrailing();
+            partialLine.delete(0, newline + 1);
+            if (!line.isEmpty()) {
+                acceptLine(line);
+            }
+        }
+    }
+
+    /**
+     * Handle a complete log line.
+     *
+     * @param line the log line, without its line ending.
+     */
+    abstract void acceptLine(String line);
+}
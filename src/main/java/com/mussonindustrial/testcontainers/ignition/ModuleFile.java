@@ -0,0 +1,112 @@
+package com.mussonindustrial.testcontainers.ignition;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import org.w3c.dom.Document;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+/**
+ * The identity of a third-party module file ({@code .modl}), read from its {@code module.xml} descriptor.
+ */
+final class ModuleFile implements IgnitionModule {
+
+    private static final String DESCRIPTOR = "module.xml";
+
+    private final Path path;
+
+    private final String identifier;
+
+    private final String name;
+
+    private final String version;
+
+    private ModuleFile(Path path, String identifier, String name, String version) {
+        this.path = path;
+        this.identifier = identifier;
+        this.name = name;
+        this.version = version;
+    }
+
+    /**
+     * Read the descriptor of a module file.
+     *
+     * @param path the module file.
+     * @return the module file.
+     * @throws IOException if the file can't be read or isn't a valid module.
+     */
+    static ModuleFile read(Path path) throws IOException {
+        try (ZipFile zip = new ZipFile(path.toFile())) {
+            ZipEntry descriptor = zip.getEntry(DESCRIPTOR);
+            if (descriptor == null) {
+                throw new IOException(String.format("'%s' is not a module, it has no %s", path, DESCRIPTOR));
+            }
+
+            Document document;
+            try (InputStream in = zip.getInputStream(descriptor)) {
+                DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+                factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+                document = factory.newDocumentBuilder().parse(in);
+            } catch (ParserConfigurationException | SAXException e) {
+                throw new IOException(String.format("'%s' has an invalid %s", path, DESCRIPTOR), e);
+            }
+
+            String identifier = getElementText(document, "id");
+            if (identifier == null) {
+                throw new IOException(String.format("'%s' has no module id in %s", path, DESCRIPTOR));
+            }
+
+            String name = getElementText(document, "name");
+            return new ModuleFile(
+                    path, identifier, name == null ? identifier : name, getElementText(document, "version"));
+        } catch (ZipException e) {
+            throw new IOException(String.format("'%s' is not a valid module", path), e);
+        }
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    @Override
+    public String getIdentifier() {
+        return identifier;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    String getVersion() {
+        return version;
+    }
+
+    @Override
+    public String toString() {
+        return version == null
+                ? String.format("%s (%s)", name, identifier)
+                : String.format("%s (%s) v%s", name, identifier, version);
+    }
+
+    private static String getElementText(Document document, String name) {
+        // Descriptors are <modules><module>...</module></modules>, only direct children of the module are read.
+        NodeList modules = document.getElementsByTagName("module");
+        if (modules.getLength() == 0) {
+            return null;
+        }
+        NodeList elements = modules.item(0).getChildNodes();
+        for (int i = 0; i < elements.getLength(); i++) {
+            if (name.equals(elements.item(i).getNodeName())) {
+                String text = elements.item(i).getTextContent().trim();
+                return text.isEmpty() ? null : text;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,87 @@
+package com.mussonindustrial.testcontainers.ignition;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Pattern;
+
+/**
+ * Watches the container log stream for a module to start or fail after it has been redeployed.
+ *
+ * <p>Only lines logged after the stream was attached are expected, see
+ * {@link IgnitionContainer#redeployModule(java.nio.file.Path, java.time.Duration)}.
+ */
+final class ModuleLogMonitor extends LogLineConsumer {
+
+    private static final Pattern STARTED = Pattern.compile("(?i)\\b(started|is running)\\b");
+
+    private static final Pattern FAILED = Pattern.compile("(?i)\\b(error|exception|failed|faulted)\\b");
+
+    /** The level of a gateway log line, for example {@code E [M.ModuleManager]} or {@code ERROR [...]}. */
+    private static final Pattern WARN_OR_ERROR = Pattern.compile("(?:^|[|\\s])(W|E|WARN|ERROR)\\s+\\[");
+
+    /** The ModuleManager message for a module that faulted, logged whatever the level. */
+    private static final Pattern FAULTED =
+            Pattern.compile("(?i)\\bmodule\\b.*\\b(faulted|failed to (start|load))\\b");
+
+    private static final int EXCERPT_LINES = 40;
+
+    private final ModuleFile module;
+
+    private final Deque<String> recentLines = new ArrayDeque<>(EXCERPT_LINES);
+
+    private final CompletableFuture<Void> started = new CompletableFuture<>();
+
+    ModuleLogMonitor(ModuleFile module) {
+        this.module = module;
+    }
+
+    /**
+     * Get a future that completes when the module has started, or completes exceptionally with an
+     * {@link IllegalStateException} when the module logs an error.
+     *
+     * @return the module startup future.
+     */
+    CompletableFuture<Void> getStarted() {
+        return started;
+    }
+
+    @Override
+    void acceptLine(String line) {
+        if (started.isDone()) {
+            return;
+        }
+
+        if (recentLines.size() == EXCERPT_LINES) {
+            recentLines.removeFirst();
+        }
+        recentLines.addLast(line);
+
+        if (!mentionsModule(line)) {
+            return;
+        }
+
+        if (isFailure(line)) {
+            started.completeExceptionally(new IllegalStateException(String.format(
+                    "Module %s failed to load: %s%nLog excerpt:%n%s",
+                    module, line, String.join(System.lineSeparator(), new ArrayList<>(recentLines)))));
+        } else if (STARTED.matcher(line).find()) {
+            started.complete(null);
+        }
+    }
+
+    private static boolean isFailure(String line) {
+        return FAULTED.matcher(line).find()
+                || (WARN_OR_ERROR.matcher(line).find() && FAILED.matcher(line).find());
+    }
+
+    private boolean mentionsModule(String line) {
+        return line.contains(module.getIdentifier()) || line.contains(module.getName());
+    }
+
+    synchronized List<String> getRecentLines() {
+        return List.copyOf(recentLines);
+    }
+}
@@ -0,0 +1,41 @@
+package com.mussonindustrial.testcontainers.ignition;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
+import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+import org.eclipse.milo.opcua.stack.core.types.builtin.StatusCode;
+
+/** Reads and writes tags through the gateway OPC UA server. */
+final class OpcUaTagClient implements TagClient {
+
+    private static final int TAG_NAMESPACE = 2;
+
+    private final IgnitionOpcUaClient client;
+
+    OpcUaTagClient(IgnitionOpcUaClient client) {
+        this.client = client;
+    }
+
+    @Override
+    public void read(List<String> tagPaths) {
+        for (DataValue value : client.readValues(toNodeIds(tagPaths))) {
+            if (!value.getStatusCode().isGood()) {
+                throw new IllegalStateException("Tag read failed: " + value.getStatusCode());
+            }
+        }
+    }
+
+    @Override
+    public void write(List<String> tagPaths, List<Integer> values) {
+        for (StatusCode status : client.writeValues(toNodeIds(tagPaths), values)) {
+            if (!status.isGood()) {
+                throw new IllegalStateException("Tag write failed: " + status);
+            }
+        }
+    }
+
+    private static List<NodeId> toNodeIds(List<String> tagPaths) {
+        return tagPaths.stream().map(path -> new NodeId(TAG_NAMESPACE, path)).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,284 @@
+package com.mussonindustrial.testcontainers.ignition;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testcontainers.containers.Container;
+
+/**
+ * Keeps a project directory on the host in sync with a project in a running gateway.
+ *
+ * <p>Host changes are collected until the directory has been quiet for a short time, then only the changed files
+ * are uploaded as a single tar archive and deleted files are removed, followed by a best-effort project scan
+ * request that nothing waits for. Files pulled back from the gateway are recorded as synced, so they aren't
+ * pushed straight back.
+ */
+final class ProjectSync implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProjectSync.class);
+
+    private static final Duration DEBOUNCE = Duration.ofMillis(250);
+
+    private final IgnitionContainer container;
+
+    private final Path hostDir;
+
+    private final String containerDir;
+
+    private final String scanEndpoint;
+
+    /** Content hash of each synced file, by path relative to the project directory. */
+    private final Map<String, String> synced = new HashMap<>();
+
+    private WatchService watchService;
+
+    private Thread watcher;
+
+    private volatile boolean scanEndpointMissing = false;
+
+    ProjectSync(IgnitionContainer container, Path hostDir, String containerDir, String scanEndpoint) {
+        this.container = container;
+        this.hostDir = hostDir.toAbsolutePath().normalize();
+        this.containerDir = containerDir;
+        this.scanEndpoint = scanEndpoint;
+    }
+
+    /**
+     * Push the whole project to the gateway, then watch for changes.
+     *
+     * @throws IOException if the project directory can't be read or watched.
+     */
+    void start() throws IOException {
+        watchService = hostDir.getFileSystem().newWatchService();
+        registerAll(hostDir);
+
+        try (Stream<Path> files = Files.walk(hostDir)) {
+            push(files.filter(Files::isRegularFile).collect(Collectors.toList()), List.of());
+        }
+
+        watcher = new Thread(this::watch, "ignition-project-sync");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    /**
+     * Copy the project from the gateway into the host directory, replacing changed files.
+     * Files that only exist on the host are kept.
+     *
+     * @throws IOException if the project can't be copied.
+     */
+    synchronized void pull() throws IOException {
+        try (InputStream in = container.getDockerClient()
+                        .copyArchiveFromContainerCmd(container.getContainerId(), containerDir)
+                        .exec();
+                TarArchiveInputStream tar = new TarArchiveInputStream(in)) {
+            TarArchiveEntry entry;
+            while ((entry = tar.getNextTarEntry()) != null) {
+                if (!entry.isFile()) {
+                    continue;
+                }
+
+                // Entries are prefixed with the name of the copied directory.
+                String name = entry.getName();
+                String relative = name.substring(name.indexOf('/') + 1);
+                Path target = hostDir.resolve(relative).normalize();
+                if (!target.startsWith(hostDir)) {
+                    throw new IOException(String.format("refusing to write '%s' outside of '%s'", name, hostDir));
+                }
+
+                Files.createDirectories(target.getParent());
+                Files.copy(tar, target, StandardCopyOption.REPLACE_EXISTING);
+                synced.put(relative, ContentHash.of(target));
+            }
+        }
+        logger.info("Pulled project from gateway into {}.", hostDir);
+    }
+
+    @Override
+    public void close() {
+        if (watcher != null) {
+            watcher.interrupt();
+        }
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                logger.debug("Unable to close project watch service.", e);
+            }
+        }
+    }
+
+    private void watch() {
+        Set<Path> changed = new HashSet<>();
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                // Block for the first change, then keep collecting until the directory is quiet.
+                WatchKey key = changed.isEmpty()
+                        ? watchService.take()
+                        : watchService.poll(DEBOUNCE.toMillis(), TimeUnit.MILLISECONDS);
+
+                if (key == null) {
+                    pushChanges(changed);
+                    changed.clear();
+                    continue;
+                }
+
+                Path dir = (Path) key.watchable();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == OVERFLOW) {
+                        try (Stream<Path> files = Files.walk(hostDir)) {
+                            files.forEach(changed::add);
+                        }
+                        continue;
+                    }
+
+                    Path path = dir.resolve((Path) event.context());
+                    if (event.kind() == ENTRY_CREATE && Files.isDirectory(path)) {
+                        registerAll(path);
+                        try (Stream<Path> files = Files.walk(path)) {
+                            files.forEach(changed::add);
+                        }
+                    }
+                    changed.add(path);
+                }
+                key.reset();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Stopped.
+        } catch (IOException | RuntimeException e) {
+            logger.error("Project sync stopped.", e);
+        }
+    }
+
+    private void pushChanges(Set<Path> changed) {
+        List<Path> updated = new ArrayList<>();
+        List<String> deleted = new ArrayList<>();
+        for (Path path : changed) {
+            if (Files.isRegularFile(path)) {
+                updated.add(path);
+            } else if (!Files.exists(path)) {
+                deleted.add(relativize(path));
+            }
+        }
+
+        try {
+            push(updated, deleted);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Unable to sync project changes to gateway.", e);
+        }
+    }
+
+    private synchronized void push(List<Path> updated, List<String> deleted) throws IOException {
+        ContainerFileStager stager = new ContainerFileStager();
+        Map<String, String> hashes = new HashMap<>();
+        for (Path path : updated) {
+            String relative = relativize(path);
+            String hash = ContentHash.of(path);
+            if (!hash.equals(synced.get(relative))) {
+                stager.add(containerDir + "/" + relative, path);
+                hashes.put(relative, hash);
+            }
+        }
+
+        List<String> removed = deleted.stream()
+                .filter(relative -> synced.keySet().stream()
+                        .anyMatch(file -> file.equals(relative) || file.startsWith(relative + "/")))
+                .collect(Collectors.toList());
+
+        if (stager.isEmpty() && removed.isEmpty()) {
+            return;
+        }
+
+        stager.upload(container.getDockerClient(), container.getContainerId());
+        synced.putAll(hashes);
+
+        if (!removed.isEmpty()) {
+            List<String> command = new ArrayList<>(List.of("rm", "-rf", "--"));
+            removed.forEach(relative -> command.add(containerDir + "/" + relative));
+            exec(command.toArray(String[]::new));
+            synced.keySet().removeIf(file -> removed.stream()
+                    .anyMatch(relative -> file.equals(relative) || file.startsWith(relative + "/")));
+        }
+
+        // Uploaded files are owned by root, give them to the user that owns the gateway data.
+        exec("sh", "-c", String.format("chown -R \"$(stat -c %%u:%%g %s/..)\" %s", containerDir, containerDir));
+
+        logger.info("Synced {} changed and {} deleted project files.", hashes.size(), removed.size());
+        requestScan();
+    }
+
+    private void requestScan() {
+        if (scanEndpointMissing) {
+            return;
+        }
+
+        IgnitionGatewayClient client = container.getGatewayClient();
+        HttpRequest request =
+                client.newRequest(scanEndpoint).POST(HttpRequest.BodyPublishers.noBody()).build();
+        client.sendAsync(request, HttpResponse.BodyHandlers.ofString()).whenComplete((response, e) -> {
+            if (e != null) {
+                logger.warn("Project scan request failed, changes will be picked up on the gateway's next "
+                        + "scheduled scan.", e);
+            } else {
+                checkScanResponse(response);
+            }
+        });
+    }
+
+    private void checkScanResponse(HttpResponse<String> response) {
+        if (response.statusCode() == 404) {
+            scanEndpointMissing = true;
+            logger.warn(
+                    "Project scan endpoint '{}' was not found, changes will be picked up on the gateway's next "
+                            + "scheduled scan. Install a project scan module, or set the endpoint with "
+                            + "withProjectSync(hostDir, projectName, scanEndpoint).",
+                    scanEndpoint);
+        } else if (response.statusCode() / 100 != 2) {
+            logger.warn("Project scan request failed with status {}: {}", response.statusCode(), response.body());
+        }
+    }
+
+    private void exec(String... command) throws IOException {
+        try {
+            Container.ExecResult result = container.execInContainer(command);
+            if (result.getExitCode() != 0) {
+                throw new IOException(String.format(
+                        "'%s' failed (exit code %d): %s",
+                        String.join(" ", command), result.getExitCode(), result.getStderr()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while syncing project", e);
+        }
+    }
+
+    private void registerAll(Path root) throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attributes) throws IOException {
+                dir.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private String relativize(Path path) {
+        return hostDir.relativize(path.toAbsolutePath().normalize()).toString().replace('\\', '/');
+    }
+
+}
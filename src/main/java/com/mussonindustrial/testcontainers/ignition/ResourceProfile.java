@@ -0,0 +1,185 @@
+package com.mussonindustrial.testcontainers.ignition;
+
+import java.util.List;
+
+/**
+ * Container memory and CPU limits, with a gateway JVM configuration derived to fit within them.
+ *
+ * <p>The wrapper heap ({@code -m}) is sized as a fraction of the container memory, leaving room for metaspace,
+ * thread stacks, native memory and the wrapper process. The JVM is told how many processors it may use, so
+ * thread pools and GC threads are sized to the CPU quota instead of the host.
+ */
+public final class ResourceProfile {
+
+    /** A constrained edge gateway: 1 GB, 1 CPU, serial GC. */
+    public static final ResourceProfile EDGE = new ResourceProfile("edge", 1024, 1.0, GarbageCollector.SERIAL, 0.6);
+
+    /** A small gateway: 2 GB, 2 CPUs, G1 GC. */
+    public static final ResourceProfile SMALL = new ResourceProfile("small", 2048, 2.0, GarbageCollector.G1, 0.6);
+
+    /** A large gateway: 4 GB, 4 CPUs, G1 GC. */
+    public static final ResourceProfile LARGE = new ResourceProfile("large", 4096, 4.0, GarbageCollector.G1, 0.6);
+
+    private static final long BYTES_PER_MEGABYTE = 1024 * 1024;
+
+    private static final long MINIMUM_MEMORY_MEGABYTES = 512;
+
+    private static final String GC_WRAPPER_PROPERTY = "wrapper.java.additional.1";
+
+    private final String name;
+
+    private final long memoryMegabytes;
+
+    private final double cpus;
+
+    private final GarbageCollector garbageCollector;
+
+    private final double heapRatio;
+
+    private ResourceProfile(
+            String name, long memoryMegabytes, double cpus, GarbageCollector garbageCollector, double heapRatio) {
+        if (memoryMegabytes < MINIMUM_MEMORY_MEGABYTES) {
+            throw new IllegalArgumentException(
+                    String.format("memory must be at least %d MB", MINIMUM_MEMORY_MEGABYTES));
+        }
+        if (cpus <= 0) {
+            throw new IllegalArgumentException("cpus must be greater than 0");
+        }
+        if (heapRatio <= 0 || heapRatio >= 1) {
+            throw new IllegalArgumentException("heapRatio must be between 0 and 1");
+        }
+        this.name = name;
+        this.memoryMegabytes = memoryMegabytes;
+        this.cpus = cpus;
+        this.garbageCollector = garbageCollector;
+        this.heapRatio = heapRatio;
+    }
+
+    /**
+     * Create a custom profile. The garbage collector is chosen from the limits, serial for a single CPU or less
+     * than 2 GB and G1 otherwise.
+     *
+     * @param memoryMegabytes the container memory limit, in megabytes.
+     * @param cpus the container CPU limit, which may be fractional.
+     * @return the profile.
+     */
+    public static ResourceProfile custom(long memoryMegabytes, double cpus) {
+        GarbageCollector gc =
+                cpus < 2 || memoryMegabytes < 2048 ? GarbageCollector.SERIAL : GarbageCollector.G1;
+        return new ResourceProfile("custom", memoryMegabytes, cpus, gc, 0.6);
+    }
+
+    /**
+     * Use a different garbage collector.
+     *
+     * @param garbageCollector the garbage collector.
+     * @return a copy of this profile with the garbage collector.
+     */
+    @SuppressWarnings("unused")
+    public ResourceProfile withGarbageCollector(GarbageCollector garbageCollector) {
+        return new ResourceProfile(name, memoryMegabytes, cpus, garbageCollector, heapRatio);
+    }
+
+    /**
+     * Use a different fraction of the container memory for the gateway heap. Defaults to 0.6.
+     *
+     * @param heapRatio the fraction of memory used for the heap, between 0 and 1.
+     * @return a copy of this profile with the heap ratio.
+     */
+    @SuppressWarnings("unused")
+    public ResourceProfile withHeapRatio(double heapRatio) {
+        return new ResourceProfile(name, memoryMegabytes, cpus, garbageCollector, heapRatio);
+    }
+
+    /**
+     * Get the container memory limit.
+     *
+     * @return the memory limit, in megabytes.
+     */
+    public long getMemoryMegabytes() {
+        return memoryMegabytes;
+    }
+
+    /**
+     * Get the container CPU limit.
+     *
+     * @return the number of CPUs.
+     */
+    public double getCpus() {
+        return cpus;
+    }
+
+    /**
+     * Get the garbage collector used by the gateway.
+     *
+     * @return the garbage collector.
+     */
+    public GarbageCollector getGarbageCollector() {
+        return garbageCollector;
+    }
+
+    /**
+     * Get the maximum gateway heap, passed to the wrapper as {@code -m}.
+     *
+     * @return the maximum heap, in megabytes.
+     */
+    public long getHeapMegabytes() {
+        return (long) (memoryMegabytes * heapRatio);
+    }
+
+    long getMemoryBytes() {
+        return memoryMegabytes * BYTES_PER_MEGABYTE;
+    }
+
+    long getNanoCpus() {
+        return (long) (cpus * 1e9);
+    }
+
+    /**
+     * Get the gateway arguments that apply this profile, as passed to
+     * {@link IgnitionContainer#withAdditionalArgs(String...)}.
+     *
+     * <p>The garbage collector replaces the first {@code wrapper.java.additional} entry of {@code ignition.conf},
+     * which selects the collector in the stock configuration. Adding a second collector flag would stop the JVM
+     * from starting.
+     *
+     * @return the additional arguments.
+     */
+    public List<String> getAdditionalArgs() {
+        return List.of(
+                GC_WRAPPER_PROPERTY + "=" + garbageCollector,
+                "-XX:ActiveProcessorCount=" + Math.max(1, (int) Math.ceil(cpus)));
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "%s(memory=%dMB, cpus=%s, heap=%dMB, gc=%s)",
+                name, memoryMegabytes, cpus, getHeapMegabytes(), garbageCollector.name());
+    }
+
+    /** Garbage collectors for the gateway JVM. */
+    public enum GarbageCollector {
+        /** Single threaded, lowest overhead. Suits one CPU and small heaps. */
+        SERIAL("-XX:+UseSerialGC"),
+
+        /** Throughput oriented, with parallel stop-the-world collections. */
+        PARALLEL("-XX:+UseParallelGC"),
+
+        /** Balanced pause times and throughput. The Ignition default. */
+        G1("-XX:+UseG1GC"),
+
+        /** Low pause times, at the cost of memory and CPU overhead. */
+        ZGC("-XX:+UseZGC");
+
+        private final String value;
+
+        GarbageCollector(String value) {
+            this.value = value;
+        }
+
+        public String toString() {
+            return this.value;
+        }
+    }
+}
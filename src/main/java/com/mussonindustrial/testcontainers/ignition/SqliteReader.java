@@ -0,0 +1,295 @@
+package com.mussonindustrial.testcontainers.ignition;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * A minimal read-only reader for SQLite database files.
+ *
+ * <p>Only what is needed to list rows of ordinary tables is supported: table b-trees, overflow pages and the
+ * record format. Indexes, WAL files and {@code WITHOUT ROWID} tables are ignored, and {@code INTEGER PRIMARY KEY}
+ * columns read as null because SQLite stores them as the rowid. Pages are read on demand, so
+ * reading a small table from a large database only touches the pages of that table. A truncated or corrupt
+ * database fails with an {@link IOException}, including page loops that would otherwise never end.
+ *
+ * @see <a href="https://www.sqlite.org/fileformat.html">Database File Format</a>
+ */
+final class SqliteReader implements Closeable {
+
+    private static final byte[] MAGIC = "SQLite format 3\0".getBytes(StandardCharsets.US_ASCII);
+
+    private static final int HEADER_SIZE = 100;
+
+    private static final byte INTERIOR_TABLE_PAGE = 0x05;
+
+    private static final byte LEAF_TABLE_PAGE = 0x0D;
+
+    private final FileChannel channel;
+
+    private final int pageSize;
+
+    private final int usableSize;
+
+    private final Charset charset;
+
+    SqliteReader(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = read(0, HEADER_SIZE);
+            byte[] magic = new byte[MAGIC.length];
+            header.get(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("not an SQLite database");
+            }
+
+            int size = Short.toUnsignedInt(header.getShort(16));
+            this.pageSize = size == 1 ? 65536 : size;
+            if (pageSize < 512 || Integer.bitCount(pageSize) != 1) {
+                throw new IOException(String.format("invalid page size %d", pageSize));
+            }
+            this.usableSize = pageSize - Byte.toUnsignedInt(header.get(20));
+
+            switch (header.getInt(56)) {
+                case 2:
+                    this.charset = StandardCharsets.UTF_16LE;
+                    break;
+                case 3:
+                    this.charset = StandardCharsets.UTF_16BE;
+                    break;
+                default:
+                    this.charset = StandardCharsets.UTF_8;
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Read all rows of a table.
+     *
+     * @param table the table name, matched case-insensitively.
+     * @return the rows, with values by case-insensitive column name, or empty if the table doesn't exist.
+     * @throws IOException if the database can't be read.
+     */
+    List<Map<String, Object>> readTable(String table) throws IOException {
+        try {
+            for (List<Object> schema : readRows(1)) {
+                // sqlite_schema columns: type, name, tbl_name, rootpage, sql
+                if (schema.size() > 4
+                        && "table".equals(schema.get(0))
+                        && table.equalsIgnoreCase(String.valueOf(schema.get(1)))
+                        && schema.get(3) instanceof Long) {
+                    List<String> columns = parseColumnNames(String.valueOf(schema.get(4)));
+                    List<Map<String, Object>> rows = new ArrayList<>();
+                    for (List<Object> values : readRows(((Long) schema.get(3)).intValue())) {
+                        Map<String, Object> row = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+                        for (int i = 0; i < columns.size() && i < values.size(); i++) {
+                            row.put(columns.get(i), values.get(i));
+                        }
+                        rows.add(row);
+                    }
+                    return rows;
+                }
+            }
+            return List.of();
+        } catch (BufferUnderflowException
+                | BufferOverflowException
+                | IndexOutOfBoundsException
+                | IllegalArgumentException
+                | NegativeArraySizeException e) {
+            // Offsets and sizes read from a truncated or corrupt file point outside their page or record.
+            throw new IOException("malformed database", e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private List<List<Object>> readRows(int rootPage) throws IOException {
+        List<List<Object>> rows = new ArrayList<>();
+        Set<Integer> visited = new HashSet<>();
+        Deque<Integer> pages = new ArrayDeque<>();
+        pages.push(rootPage);
+
+        while (!pages.isEmpty()) {
+            int pageNumber = pages.pop();
+            if (!visited.add(pageNumber)) {
+                throw new IOException(String.format("page %d is referenced more than once", pageNumber));
+            }
+            ByteBuffer page = readPage(pageNumber);
+            int headerOffset = pageNumber == 1 ? HEADER_SIZE : 0;
+            byte type = page.get(headerOffset);
+            int cellCount = Short.toUnsignedInt(page.getShort(headerOffset + 3));
+
+            if (type == INTERIOR_TABLE_PAGE) {
+                // Push children in reverse, so rows are returned in rowid order.
+                pages.push(page.getInt(headerOffset + 8));
+                for (int i = cellCount - 1; i >= 0; i--) {
+                    int cell = Short.toUnsignedInt(page.getShort(headerOffset + 12 + i * 2));
+                    pages.push(page.getInt(cell));
+                }
+            } else if (type == LEAF_TABLE_PAGE) {
+                for (int i = 0; i < cellCount; i++) {
+                    int cell = Short.toUnsignedInt(page.getShort(headerOffset + 8 + i * 2));
+                    rows.add(readRecord(readPayload(page, cell)));
+                }
+            } else {
+                throw new IOException(String.format("unexpected page type %d on page %d", type, pageNumber));
+            }
+        }
+        return rows;
+    }
+
+    private ByteBuffer readPayload(ByteBuffer page, int cell) throws IOException {
+        page.position(cell);
+        long payloadSize = readVarint(page);
+        readVarint(page); // rowid
+        if (payloadSize < 0 || payloadSize > Integer.MAX_VALUE) {
+            throw new IOException(String.format("invalid payload size %d", payloadSize));
+        }
+
+        int maxLocal = usableSize - 35;
+        int local;
+        if (payloadSize <= maxLocal) {
+            local = (int) payloadSize;
+        } else {
+            int minLocal = ((usableSize - 12) * 32 / 255) - 23;
+            int k = (int) (minLocal + ((payloadSize - minLocal) % (usableSize - 4)));
+            local = k <= maxLocal ? k : minLocal;
+        }
+
+        ByteBuffer payload = ByteBuffer.allocate((int) payloadSize);
+        payload.put(page.slice().limit(local));
+        int overflow = local < payloadSize ? page.getInt(page.position() + local) : 0;
+
+        Set<Integer> visited = new HashSet<>();
+        while (overflow != 0 && payload.hasRemaining()) {
+            if (!visited.add(overflow)) {
+                throw new IOException(String.format("overflow page %d is referenced more than once", overflow));
+            }
+            ByteBuffer overflowPage = readPage(overflow);
+            overflow = overflowPage.getInt(0);
+            int length = Math.min(payload.remaining(), usableSize - 4);
+            payload.put(overflowPage.position(4).slice().limit(length));
+        }
+        return payload.flip();
+    }
+
+    private List<Object> readRecord(ByteBuffer record) {
+        long headerSize = readVarint(record);
+        List<Long> serialTypes = new ArrayList<>();
+        while (record.position() < headerSize) {
+            serialTypes.add(readVarint(record));
+        }
+
+        List<Object> values = new ArrayList<>(serialTypes.size());
+        for (long serialType : serialTypes) {
+            values.add(readValue(record, serialType));
+        }
+        return values;
+    }
+
+    private Object readValue(ByteBuffer record, long serialType) {
+        switch ((int) Math.min(serialType, 12)) {
+            case 0:
+                return null;
+            case 1:
+                return (long) record.get();
+            case 2:
+                return (long) record.getShort();
+            case 3:
+                return (long) ((record.get() << 16) | (Short.toUnsignedInt(record.getShort())));
+            case 4:
+                return (long) record.getInt();
+            case 5:
+                return ((long) record.getShort() << 32) | Integer.toUnsignedLong(record.getInt());
+            case 6:
+                return record.getLong();
+            case 7:
+                return record.getDouble();
+            case 8:
+                return 0L;
+            case 9:
+                return 1L;
+            default:
+                boolean text = serialType >= 13 && serialType % 2 == 1;
+                byte[] bytes = new byte[(int) ((serialType - (text ? 13 : 12)) / 2)];
+                record.get(bytes);
+                return text ? new String(bytes, charset) : bytes;
+        }
+    }
+
+    private ByteBuffer readPage(int pageNumber) throws IOException {
+        if (pageNumber < 1) {
+            throw new IOException(String.format("invalid page number %d", pageNumber));
+        }
+        return read((long) (pageNumber - 1) * pageSize, pageSize);
+    }
+
+    private ByteBuffer read(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("unexpected end of database file");
+            }
+        }
+        return buffer.flip();
+    }
+
+    private static long readVarint(ByteBuffer buffer) {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            int b = Byte.toUnsignedInt(buffer.get());
+            value = (value << 7) | (b & 0x7F);
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        return (value << 8) | Byte.toUnsignedInt(buffer.get());
+    }
+
+    static List<String> parseColumnNames(String createTable) {
+        int start = createTable.indexOf('(');
+        int end = createTable.lastIndexOf(')');
+        if (start < 0 || end <= start) {
+            return List.of();
+        }
+
+        List<String> definitions = new ArrayList<>();
+        int depth = 0;
+        int from = start + 1;
+        for (int i = from; i < end; i++) {
+            char c = createTable.charAt(i);
+            if (c == '(') depth++;
+            else if (c == ')') depth--;
+            else if (c == ',' && depth == 0) {
+                definitions.add(createTable.substring(from, i));
+                from = i + 1;
+            }
+        }
+        definitions.add(createTable.substring(from, end));
+
+        List<String> columns = new ArrayList<>();
+        for (String definition : definitions) {
+            String trimmed = definition.trim();
+            String keyword = trimmed.split("\\s+")[0].toUpperCase(Locale.ROOT);
+            if (List.of("CONSTRAINT", "PRIMARY", "UNIQUE", "CHECK", "FOREIGN").contains(keyword)) {
+                continue;
+            }
+            columns.add(trimmed.split("\\s+")[0].replaceAll("^[\"`\\[]|[\"`\\]]$", ""));
+        }
+        return columns;
+    }
+}
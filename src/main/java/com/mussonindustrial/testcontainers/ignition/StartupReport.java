@@ -0,0 +1,245 @@
+package com.mussonindustrial.testcontainers.ignition;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.StringJoiner;
+
+/**
+ * Timings of each phase of an Ignition container startup.
+ *
+ * <p>Container phases are recorded from lifecycle callbacks. Gateway phases are recorded from the container log
+ * stream as it is received, so their timestamps are accurate to the log delivery latency. Phases that don't appear
+ * in the log (for example, no backup restore) are omitted.
+ *
+ * <p>The report records where the gateway data directory was stored, since it dominates the cost of the backup
+ * restore and gateway start phases.
+ */
+public final class StartupReport {
+
+    /** Resolving (and if needed pulling) the image. */
+    public static final String IMAGE_PULL = "image-pull";
+
+    /** Creating the container. */
+    public static final String CONTAINER_CREATE = "container-create";
+
+    /** Copying files into the container and starting it. */
+    public static final String FILE_COPY = "file-copy";
+
+    /** From container start until the Ignition wrapper has launched the JVM. */
+    public static final String WRAPPER_START = "wrapper-start";
+
+    /** Restoring the gateway backup. */
+    public static final String BACKUP_RESTORE = "backup-restore";
+
+    /** Prefix of the phase recorded for each module, followed by the module identifier. */
+    public static final String MODULE_PREFIX = "module:";
+
+    /** From the wrapper launching the JVM until the gateway reports RUNNING. */
+    public static final String GATEWAY_START = "gateway-start";
+
+    /** From the gateway reporting RUNNING until the wait strategy is satisfied. */
+    public static final String READY_WAIT = "ready-wait";
+
+    private final Instant startedAt;
+
+    private final Instant readyAt;
+
+    private final DataDirectoryStrategy dataDirectory;
+
+    private final List<Phase> phases;
+
+    StartupReport(Instant startedAt, Instant readyAt, DataDirectoryStrategy dataDirectory, List<Phase> phases) {
+        this.startedAt = startedAt;
+        this.readyAt = readyAt;
+        this.dataDirectory = dataDirectory;
+        this.phases = List.copyOf(phases);
+    }
+
+    /**
+     * Get the time the container start was requested.
+     *
+     * @return the time the container start was requested.
+     */
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    /**
+     * Get the time the container was ready.
+     *
+     * @return the time the container was ready.
+     */
+    public Instant getReadyAt() {
+        return readyAt;
+    }
+
+    /**
+     * Get the total time from requesting the container start until it was ready.
+     *
+     * @return the total startup duration.
+     */
+    public Duration getTotalDuration() {
+        return Duration.between(startedAt, readyAt);
+    }
+
+    /**
+     * Get where the gateway data directory was stored.
+     *
+     * @return the data directory strategy.
+     */
+    public DataDirectoryStrategy getDataDirectory() {
+        return dataDirectory;
+    }
+
+    /**
+     * Get the recorded phases, in the order they started.
+     *
+     * @return the recorded phases.
+     */
+    public List<Phase> getPhases() {
+        return phases;
+    }
+
+    /**
+     * Get a recorded phase by name.
+     *
+     * @param name the phase name.
+     * @return the phase, or empty if it wasn't recorded.
+     */
+    public Optional<Phase> getPhase(String name) {
+        return phases.stream().filter(phase -> phase.getName().equals(name)).findFirst();
+    }
+
+    /**
+     * Get a human-readable summary of the startup phases.
+     *
+     * @return the summary.
+     */
+    public String toSummary() {
+        StringBuilder summary = new StringBuilder(
+                String.format(
+                        "Ignition startup took %d ms (%s data directory):",
+                        getTotalDuration().toMillis(), dataDirectory));
+        for (Phase phase : phases) {
+            summary.append(String.format("%n  %-40s %8d ms", phase.getName(), phase.getDuration().toMillis()));
+        }
+        return summary.toString();
+    }
+
+    /**
+     * Get the report as JSON.
+     *
+     * @return the report as a JSON object.
+     */
+    public String toJson() {
+        StringJoiner phaseJson = new StringJoiner(",", "[", "]");
+        for (Phase phase : phases) {
+            phaseJson.add(String.format(
+                    "{\"name\":%s,\"start\":%s,\"end\":%s,\"durationMillis\":%d}",
+                    quote(phase.getName()),
+                    quote(phase.getStart().toString()),
+                    quote(phase.getEnd().toString()),
+                    phase.getDuration().toMillis()));
+        }
+
+        return String.format(
+                "{\"startedAt\":%s,\"readyAt\":%s,\"totalMillis\":%d,\"dataDirectory\":%s,\"phases\":%s}",
+                quote(startedAt.toString()),
+                quote(readyAt.toString()),
+                getTotalDuration().toMillis(),
+                quote(dataDirectory.toString()),
+                phaseJson);
+    }
+
+    /**
+     * Write the report as JSON.
+     *
+     * @param path the file to write.
+     * @throws IOException if the file cannot be written.
+     */
+    public void writeJson(Path path) throws IOException {
+        Files.writeString(path, toJson(), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String toString() {
+        return toSummary();
+    }
+
+    static String quote(String value) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    /** A single timed startup phase. */
+    public static final class Phase {
+
+        private final String name;
+
+        private final Instant start;
+
+        private final Instant end;
+
+        Phase(String name, Instant start, Instant end) {
+            this.name = name;
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * Get the phase name.
+         *
+         * @return the phase name.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Get the time the phase started.
+         *
+         * @return the time the phase started.
+         */
+        public Instant getStart() {
+            return start;
+        }
+
+        /**
+         * Get the time the phase ended.
+         *
+         * @return the time the phase ended.
+         */
+        public Instant getEnd() {
+            return end;
+        }
+
+        /**
+         * Get the phase duration.
+         *
+         * @return the phase duration.
+         */
+        public Duration getDuration() {
+            return Duration.between(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s (%d ms)", name, getDuration().toMillis());
+        }
+    }
+}
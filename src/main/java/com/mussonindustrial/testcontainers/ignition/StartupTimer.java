@@ -0,0 +1,176 @@
+package com.mussonindustrial.testcontainers.ignition;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Records startup phase timestamps from container lifecycle callbacks and the container log stream.
+ */
+final class StartupTimer extends LogLineConsumer {
+
+    private static final Pattern WRAPPER_STARTED =
+            Pattern.compile("(?i)\\bwrapper\\b.*\\b(wrapper started|launching a jvm)\\b");
+
+    private static final Pattern RESTORE_STARTED = Pattern.compile("(?i)\\brestor(e|ing)\\b.*\\b(gwbk|backup)\\b");
+
+    private static final Pattern MODULE_STARTING = Pattern.compile("(?i)\\bstarting up module '([^']+)'");
+
+    static final Pattern MODULE_STARTED = Pattern.compile("(?i)\\bmodule '([^']+)'.*\\bstarted\\b");
+
+    private static final Pattern GATEWAY_RUNNING =
+            Pattern.compile("(?i)(ContextState\\s*=\\s*RUNNING|state=RUNNING|gateway started)");
+
+    private DataDirectoryStrategy dataDirectory = DataDirectoryStrategy.DEFAULT;
+
+    private Instant requested;
+
+    private Instant imageResolved;
+
+    private Instant created;
+
+    private Instant starting;
+
+    private Instant wrapperStarted;
+
+    private Instant restoreStarted;
+
+    private Instant restoreEnded;
+
+    private Instant running;
+
+    private final Map<String, Instant> moduleStarts = new LinkedHashMap<>();
+
+    private final Map<String, Instant> moduleEnds = new LinkedHashMap<>();
+
+    private volatile boolean active = false;
+
+    /** The container start was requested. Resets any previous timings. */
+    synchronized void requested() {
+        requested(DataDirectoryStrategy.DEFAULT);
+    }
+
+    /**
+     * The container start was requested. Resets any previous timings.
+     *
+     * @param dataDirectory where the gateway data directory is stored for this start.
+     */
+    synchronized void requested(DataDirectoryStrategy dataDirectory) {
+        this.dataDirectory = dataDirectory;
+        requested = Instant.now();
+        imageResolved = null;
+        created = null;
+        starting = null;
+        wrapperStarted = null;
+        restoreStarted = null;
+        restoreEnded = null;
+        running = null;
+        moduleStarts.clear();
+        moduleEnds.clear();
+        active = true;
+    }
+
+    /** The image was resolved and the container is about to be created. */
+    synchronized void imageResolved() {
+        imageResolved = Instant.now();
+    }
+
+    /** The container was created. */
+    synchronized void created() {
+        created = Instant.now();
+    }
+
+    /** The container was started and files were copied. */
+    synchronized void starting() {
+        starting = Instant.now();
+    }
+
+    @Override
+    synchronized void acceptLine(String line) {
+        if (!active) {
+            return;
+        }
+
+        Instant now = Instant.now();
+        if (wrapperStarted == null && WRAPPER_STARTED.matcher(line).find()) {
+            wrapperStarted = now;
+            return;
+        }
+
+        if (restoreStarted == null && RESTORE_STARTED.matcher(line).find()) {
+            restoreStarted = now;
+            return;
+        }
+
+        Matcher moduleStarting = MODULE_STARTING.matcher(line);
+        if (moduleStarting.find()) {
+            endRestore(now);
+            moduleStarts.putIfAbsent(moduleStarting.group(1), now);
+            return;
+        }
+
+        Matcher moduleStarted = MODULE_STARTED.matcher(line);
+        if (moduleStarted.find()) {
+            moduleEnds.putIfAbsent(moduleStarted.group(1), now);
+            return;
+        }
+
+        if (running == null && GATEWAY_RUNNING.matcher(line).find()) {
+            endRestore(now);
+            running = now;
+        }
+    }
+
+    private void endRestore(Instant now) {
+        if (restoreStarted != null && restoreEnded == null) {
+            restoreEnded = now;
+        }
+    }
+
+    /**
+     * The container is ready. Stops recording and builds the report.
+     *
+     * @return the startup report.
+     */
+    synchronized StartupReport ready() {
+        active = false;
+        Instant ready = Instant.now();
+        Instant gatewayRunning = running != null ? running : ready;
+
+        List<StartupReport.Phase> phases = new ArrayList<>();
+        addPhase(phases, StartupReport.IMAGE_PULL, requested, imageResolved);
+        addPhase(phases, StartupReport.CONTAINER_CREATE, imageResolved, created);
+        addPhase(phases, StartupReport.FILE_COPY, created, starting);
+        addPhase(phases, StartupReport.WRAPPER_START, starting, wrapperStarted);
+        addPhase(phases, StartupReport.BACKUP_RESTORE, restoreStarted, restoreEnded);
+
+        moduleStarts.forEach((module, start) -> {
+            Instant end = moduleEnds.getOrDefault(module, nextModuleStart(start, gatewayRunning));
+            addPhase(phases, StartupReport.MODULE_PREFIX + module, start, end);
+        });
+
+        addPhase(phases, StartupReport.GATEWAY_START, wrapperStarted != null ? wrapperStarted : starting, running);
+        addPhase(phases, StartupReport.READY_WAIT, running, ready);
+
+        phases.sort(Comparator.comparing(StartupReport.Phase::getStart));
+        return new StartupReport(requested != null ? requested : ready, ready, dataDirectory, phases);
+    }
+
+    private Instant nextModuleStart(Instant start, Instant fallback) {
+        return moduleStarts.values().stream()
+                .filter(other -> other.isAfter(start))
+                .min(Comparator.naturalOrder())
+                .orElse(fallback);
+    }
+
+    private static void addPhase(List<StartupReport.Phase> phases, String name, Instant start, Instant end) {
+        if (start != null && end != null && !end.isBefore(start)) {
+            phases.add(new StartupReport.Phase(name, start, end));
+        }
+    }
+}
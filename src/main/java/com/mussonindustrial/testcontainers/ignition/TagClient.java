@@ -0,0 +1,24 @@
+package com.mussonindustrial.testcontainers.ignition;
+
+import java.util.List;
+
+/** Reads and writes gateway tags for {@link TagLoadGenerator}. */
+interface TagClient {
+
+    /**
+     * Read the values of tags.
+     *
+     * @param tagPaths the full paths of the tags, for example {@code [default]LoadTest/Tag0}.
+     * @throws Exception if the read fails.
+     */
+    void read(List<String> tagPaths) throws Exception;
+
+    /**
+     * Write the values of tags.
+     *
+     * @param tagPaths the full paths of the tags.
+     * @param values the values to write, in the same order as the tags.
+     * @throws Exception if the write fails.
+     */
+    void write(List<String> tagPaths, List<Integer> values) throws Exception;
+}
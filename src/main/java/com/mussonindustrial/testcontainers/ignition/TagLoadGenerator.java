@@ -0,0 +1,446 @@
+package com.mussonindustrial.testcontainers.ignition;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Drives tag reads and writes against a running gateway at a target rate and reports throughput and latency.
+ *
+ * <p>The tags are named {@code <folder>/Tag0} to {@code <folder>/Tag<n-1>}. Either create them before each run
+ * through a WebDev resource with {@link #withTagCreation()}, or load them into the gateway up front with a gateway
+ * backup or a tag export created with {@link #writeTagExport(Path, String, int)}. A run fails before applying any
+ * load if the first or last tag can't be read.
+ *
+ * <pre>{@code
+ * TagLoadReport report = new TagLoadGenerator(ignition)
+ *         .withTransport(TagLoadTransport.OPC_UA)
+ *         .withTagCount(1000)
+ *         .withClientCount(8)
+ *         .withTargetRate(2000)
+ *         .run();
+ * }</pre>
+ *
+ * <p>Clients run on virtual threads when the JVM supports them, otherwise on platform threads.
+ */
+public class TagLoadGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(TagLoadGenerator.class);
+
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final IgnitionContainer container;
+
+    private TagLoadTransport transport = TagLoadTransport.OPC_UA;
+
+    private String provider = "default";
+
+    private String folder = "LoadTest";
+
+    private String webDevProject;
+
+    private String webDevResource;
+
+    private boolean tagCreation = false;
+
+    private int tagCount = 100;
+
+    private int clientCount = 1;
+
+    private int targetRate = 100;
+
+    private int batchSize = 1;
+
+    private double readRatio = 0.5;
+
+    private Duration warmup = Duration.ofSeconds(5);
+
+    private Duration duration = Duration.ofSeconds(30);
+
+    /**
+     * Create a load generator for a gateway.
+     *
+     * @param container the running gateway container.
+     */
+    public TagLoadGenerator(IgnitionContainer container) {
+        this.container = container;
+    }
+
+    /**
+     * Set the transport used to read and write tags. Defaults to {@link TagLoadTransport#OPC_UA}.
+     *
+     * @param transport the transport.
+     * @return this {@link TagLoadGenerator} for chaining purposes.
+     */
+    @SuppressWarnings("unused")
+    public TagLoadGenerator withTransport(TagLoadTransport transport) {
+        this.transport = transport;
+        return this;
+    }
+
+    /**
+     * Set the WebDev resource used by the {@link TagLoadTransport#WEBDEV} transport and by
+     * {@link #withTagCreation()}.
+     *
+     * <p>The resource must read the tags listed in the comma separated {@code paths} query parameter on
+     * {@code GET}, and write {@code {"paths":[...],"values":[...]}} on {@code POST}. Reads of tags that don't
+     * exist must fail with a non-2xx status. For tag creation, it must also configure the tags in the body of a
+     * {@code PUT} in the provider named by the {@code provider} query parameter, for example with
+     * {@code system.tag.configure("[" + provider + "]", tags, "o")}. The body is a tag export, the same as
+     * {@link #writeTagExport(Path, String, int)} writes.
+     *
+     * @param project the WebDev project name.
+     * @param resource the resource path within the project.
+     * @return this {@link TagLoadGenerator} for chaining purposes.
+     */
+    @SuppressWarnings("unused")
+    public TagLoadGenerator withWebDevResource(String project, String resource) {
+        this.webDevProject = project;
+        this.webDevResource = resource;
+        return this;
+    }
+
+    /**
+     * Create the tags through the WebDev resource before each run, replacing tags that already exist. The tags
+     * are Int4 memory tags. Requires {@link #withWebDevResource(String, String)}, whatever the transport.
+     *
+     * @return this {@link TagLoadGenerator} for chaining purposes.
+     */
+    @SuppressWarnings("unused")
+    public TagLoadGenerator withTagCreation() {
+        this.tagCreation = true;
+        return this;
+    }
+
+    /**
+     * Set the tag provider and folder containing the tags. Defaults to {@code [default]LoadTest}.
+     *
+     * @param provider the tag provider name.
+     * @param folder the folder containing the tags.
+     * @return this {@link TagLoadGenerator} for chaining purposes.
+     */
+    @SuppressWarnings("unused")
+    public TagLoadGenerator withTagFolder(String provider, String folder) {
+        this.provider = provider;
+        this.folder = folder;
+        return this;
+    }
+
+    /**
+     * Set the number of tags to spread operations across. Defaults to 100.
+     *
+     * @param tagCount the number of tags.
+     * @return this {@link TagLoadGenerator} for chaining purposes.
+     */
+    @SuppressWarnings("unused")
+    public TagLoadGenerator withTagCount(int tagCount) {
+        this.tagCount = requirePositive("tagCount", tagCount);
+        return this;
+    }
+
+    /**
+     * Set the number of concurrent clients. Defaults to 1.
+     *
+     * @param clientCount the number of clients.
+     * @return this {@link TagLoadGenerator} for chaining purposes.
+     */
+    @SuppressWarnings("unused")
+    public TagLoadGenerator withClientCount(int clientCount) {
+        this.clientCount = requirePositive("clientCount", clientCount);
+        return this;
+    }
+
+    /**
+     * Set the target rate of operations per second, shared across all clients. Defaults to 100.
+     *
+     * @param targetRate the target operations per second.
+     * @return this {@link TagLoadGenerator} for chaining purposes.
+     */
+    @SuppressWarnings("unused")
+    public TagLoadGenerator withTargetRate(int targetRate) {
+        this.targetRate = requirePositive("targetRate", targetRate);
+        return this;
+    }
+
+    /**
+     * Set the number of tags read or written by each operation. Defaults to 1.
+     *
+     * @param batchSize the number of tags per operation.
+     * @return this {@link TagLoadGenerator} for chaining purposes.
+     */
+    @SuppressWarnings("unused")
+    public TagLoadGenerator withBatchSize(int batchSize) {
+        this.batchSize = requirePositive("batchSize", batchSize);
+        return this;
+    }
+
+    /**
+     * Set the fraction of operations that are reads. Defaults to 0.5.
+     *
+     * @param readRatio the fraction of reads, between 0 and 1.
+     * @return this {@link TagLoadGenerator} for chaining purposes.
+     */
+    @SuppressWarnings("unused")
+    public TagLoadGenerator withReadRatio(double readRatio) {
+        if (readRatio < 0 || readRatio > 1) {
+            throw new IllegalArgumentException("readRatio must be between 0 and 1");
+        }
+        this.readRatio = readRatio;
+        return this;
+    }
+
+    /**
+     * Set how long to run before and during measurement. Defaults to 5 seconds of warmup and 30 seconds of
+     * measurement.
+     *
+     * @param warmup the time to run before measuring.
+     * @param duration the time to measure.
+     * @return this {@link TagLoadGenerator} for chaining purposes.
+     */
+    @SuppressWarnings("unused")
+    public TagLoadGenerator withDuration(Duration warmup, Duration duration) {
+        this.warmup = warmup;
+        this.duration = duration;
+        return this;
+    }
+
+    /**
+     * Run the load and report the results.
+     *
+     * @return the load report.
+     */
+    public TagLoadReport run() {
+        return run(tagCount, clientCount);
+    }
+
+    /**
+     * Run the load for every combination of tag count and client count, to show how throughput and latency
+     * degrade as each grows. The target rate is the same for every run.
+     *
+     * @param tagCounts the tag counts to run.
+     * @param clientCounts the client counts to run.
+     * @return the load reports, ordered by tag count and then client count.
+     */
+    @SuppressWarnings("unused")
+    public List<TagLoadReport> sweep(int[] tagCounts, int[] clientCounts) {
+        List<TagLoadReport> reports = new ArrayList<>();
+        for (int tags : tagCounts) {
+            for (int clients : clientCounts) {
+                TagLoadReport report = run(requirePositive("tagCount", tags), requirePositive("clientCount", clients));
+                logger.info(report.toSummary());
+                reports.add(report);
+            }
+        }
+        return reports;
+    }
+
+    /**
+     * Write a tag export containing a folder of Int4 memory tags, for import into a gateway.
+     *
+     * @param path the file to write.
+     * @param folder the name of the folder containing the tags.
+     * @param tagCount the number of tags.
+     * @throws IOException if the file cannot be written.
+     */
+    public static void writeTagExport(Path path, String folder, int tagCount) throws IOException {
+        Files.writeString(path, toTagExport(folder, tagCount), StandardCharsets.UTF_8);
+    }
+
+    static String toTagExport(String folder, int tagCount) {
+        StringBuilder export = new StringBuilder(String.format(
+                "{\"tags\":[{\"name\":%s,\"tagType\":\"Folder\",\"tags\":[", StartupReport.quote(folder)));
+        for (int i = 0; i < tagCount; i++) {
+            if (i > 0) {
+                export.append(',');
+            }
+            export.append(String.format(
+                    "{\"name\":\"Tag%d\",\"tagType\":\"AtomicTag\",\"valueSource\":\"memory\","
+                            + "\"dataType\":\"Int4\",\"value\":0}",
+                    i));
+        }
+        return export.append("]}]}").toString();
+    }
+
+    /**
+     * Read the first and last tag, so missing tags fail the run up front instead of as an error on every
+     * operation.
+     *
+     * @param client the client used for the run.
+     * @param tagPaths the tags the run spreads operations across.
+     * @throws IllegalStateException if the tags can't be read.
+     */
+    static void checkTagsExist(TagClient client, List<String> tagPaths) {
+        List<String> bounds = tagPaths.size() == 1
+                ? List.of(tagPaths.get(0))
+                : List.of(tagPaths.get(0), tagPaths.get(tagPaths.size() - 1));
+        try {
+            client.read(bounds);
+        } catch (Exception e) {
+            throw new IllegalStateException(
+                    String.format(
+                            "Unable to read load test tags %s. Create them with withTagCreation(), or load a tag "
+                                    + "export created with TagLoadGenerator.writeTagExport(path, folder, %d) "
+                                    + "into the gateway first.",
+                            String.join(" and ", bounds), tagPaths.size()),
+                    e);
+        }
+    }
+
+    private TagLoadReport run(int tags, int clients) {
+        List<String> tagPaths = new ArrayList<>(tags);
+        for (int i = 0; i < tags; i++) {
+            tagPaths.add(String.format("[%s]%s/Tag%d", provider, folder, i));
+        }
+
+        TagClient client = newTagClient();
+        if (tagCreation) {
+            newWebDevTagClient().create(provider, toTagExport(folder, tags));
+        }
+        checkTagsExist(client, tagPaths);
+        long interval = Math.max(1, (long) (1e9 * clients / targetRate));
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long measureUntil = measureFrom + duration.toNanos();
+
+        AtomicLong errors = new AtomicLong();
+        AtomicReference<String> firstError = new AtomicReference<>();
+        List<Future<Histogram[]>> results = new ArrayList<>();
+
+        ExecutorService executor = newExecutor(clients);
+        try {
+            for (int c = 0; c < clients; c++) {
+                // Stagger clients so their operations are spread evenly across each interval.
+                long offset = interval * c / clients;
+                results.add(executor.submit(() -> runClient(
+                        client, tagPaths, start + offset, interval, measureFrom, measureUntil, errors, firstError)));
+            }
+
+            Histogram reads = new Histogram(SIGNIFICANT_DIGITS);
+            Histogram writes = new Histogram(SIGNIFICANT_DIGITS);
+            for (Future<Histogram[]> result : results) {
+                Histogram[] histograms = result.get();
+                reads.add(histograms[0]);
+                writes.add(histograms[1]);
+            }
+
+            return new TagLoadReport(
+                    transport, tags, clients, targetRate, duration, reads, writes, errors.get(), firstError.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while generating tag load", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Tag load client failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Histogram[] runClient(
+            TagClient client,
+            List<String> tagPaths,
+            long firstOperation,
+            long interval,
+            long measureFrom,
+            long measureUntil,
+            AtomicLong errors,
+            AtomicReference<String> firstError) {
+        Histogram reads = new Histogram(SIGNIFICANT_DIGITS);
+        Histogram writes = new Histogram(SIGNIFICANT_DIGITS);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        for (long scheduled = firstOperation; scheduled < measureUntil; scheduled += interval) {
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            if (Thread.currentThread().isInterrupted()) {
+                break;
+            }
+
+            List<String> batch = new ArrayList<>(batchSize);
+            for (int i = 0; i < batchSize; i++) {
+                batch.add(tagPaths.get(random.nextInt(tagPaths.size())));
+            }
+
+            boolean read = random.nextDouble() < readRatio;
+            try {
+                if (read) {
+                    client.read(batch);
+                } else {
+                    List<Integer> values = new ArrayList<>(batchSize);
+                    for (int i = 0; i < batchSize; i++) {
+                        values.add(random.nextInt());
+                    }
+                    client.write(batch, values);
+                }
+            } catch (Exception e) {
+                if (scheduled >= measureFrom) {
+                    errors.incrementAndGet();
+                    firstError.compareAndSet(null, String.valueOf(e.getMessage()));
+                }
+                continue;
+            }
+
+            if (scheduled >= measureFrom) {
+                // Measure from the scheduled start, so a stalled gateway is charged for the operations it delayed.
+                (read ? reads : writes).recordValue(System.nanoTime() - scheduled);
+            }
+        }
+        return new Histogram[] {reads, writes};
+    }
+
+    private TagClient newTagClient() {
+        switch (transport) {
+            case OPC_UA:
+                return new OpcUaTagClient(container.getOpcUaClient());
+            case WEBDEV:
+                return newWebDevTagClient();
+            default:
+                throw new IllegalStateException("Unsupported transport " + transport);
+        }
+    }
+
+    private WebDevTagClient newWebDevTagClient() {
+        if (webDevProject == null || webDevResource == null) {
+            throw new IllegalStateException(String.format(
+                    "%s requires withWebDevResource(project, resource)",
+                    transport == TagLoadTransport.WEBDEV ? "WebDev transport" : "Tag creation"));
+        }
+        return new WebDevTagClient(container.getGatewayClient(), webDevProject, webDevResource);
+    }
+
+    private static ExecutorService newExecutor(int clients) {
+        try {
+            // Virtual threads are available from Java 21, but this library targets Java 17.
+            return (ExecutorService)
+                    Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(clients, runnable -> {
+                Thread thread = new Thread(runnable, "ignition-tag-load");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    private static int requirePositive(String name, int value) {
+        if (value < 1) {
+            throw new IllegalArgumentException(name + " must be at least 1");
+        }
+        return value;
+    }
+}
@@ -0,0 +1,289 @@
+package com.mussonindustrial.testcontainers.ignition;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.StringJoiner;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Throughput and latency of a {@link TagLoadGenerator} run.
+ *
+ * <p>Latencies are measured from the time each operation was scheduled to start, not the time it was sent, so
+ * time spent queued behind a slow gateway is included (correcting for coordinated omission).
+ */
+public final class TagLoadReport {
+
+    private static final double[] PERCENTILES = {50.0, 90.0, 99.0, 99.9};
+
+    private final TagLoadTransport transport;
+
+    private final int tagCount;
+
+    private final int clientCount;
+
+    private final int targetRate;
+
+    private final Duration duration;
+
+    private final Histogram readLatency;
+
+    private final Histogram writeLatency;
+
+    private final long errors;
+
+    private final String firstError;
+
+    TagLoadReport(
+            TagLoadTransport transport,
+            int tagCount,
+            int clientCount,
+            int targetRate,
+            Duration duration,
+            Histogram readLatency,
+            Histogram writeLatency,
+            long errors,
+            String firstError) {
+        this.transport = transport;
+        this.tagCount = tagCount;
+        this.clientCount = clientCount;
+        this.targetRate = targetRate;
+        this.duration = duration;
+        this.readLatency = readLatency;
+        this.writeLatency = writeLatency;
+        this.errors = errors;
+        this.firstError = firstError;
+    }
+
+    /**
+     * Get the transport used for the run.
+     *
+     * @return the transport.
+     */
+    public TagLoadTransport getTransport() {
+        return transport;
+    }
+
+    /**
+     * Get the number of tags that were read and written.
+     *
+     * @return the number of tags.
+     */
+    public int getTagCount() {
+        return tagCount;
+    }
+
+    /**
+     * Get the number of concurrent clients.
+     *
+     * @return the number of clients.
+     */
+    public int getClientCount() {
+        return clientCount;
+    }
+
+    /**
+     * Get the target rate of operations per second, across all clients.
+     *
+     * @return the target rate.
+     */
+    public int getTargetRate() {
+        return targetRate;
+    }
+
+    /**
+     * Get the measured duration of the run.
+     *
+     * @return the duration.
+     */
+    public Duration getDuration() {
+        return duration;
+    }
+
+    /**
+     * Get the number of successful reads.
+     *
+     * @return the number of reads.
+     */
+    public long getReadCount() {
+        return readLatency.getTotalCount();
+    }
+
+    /**
+     * Get the number of successful writes.
+     *
+     * @return the number of writes.
+     */
+    public long getWriteCount() {
+        return writeLatency.getTotalCount();
+    }
+
+    /**
+     * Get the number of failed operations.
+     *
+     * @return the number of errors.
+     */
+    public long getErrorCount() {
+        return errors;
+    }
+
+    /**
+     * Get the message of the first failed operation.
+     *
+     * @return the first error, or empty if no operations failed.
+     */
+    public Optional<String> getFirstError() {
+        return Optional.ofNullable(firstError);
+    }
+
+    /**
+     * Get the achieved rate of successful operations per second.
+     *
+     * @return the achieved throughput.
+     */
+    public double getThroughput() {
+        double seconds = duration.toNanos() / 1e9;
+        return seconds == 0 ? 0 : (getReadCount() + getWriteCount()) / seconds;
+    }
+
+    /**
+     * Get a read latency percentile.
+     *
+     * @param percentile the percentile, between 0 and 100.
+     * @return the read latency at the percentile.
+     */
+    public Duration getReadLatency(double percentile) {
+        return Duration.ofNanos(readLatency.getValueAtPercentile(percentile));
+    }
+
+    /**
+     * Get a write latency percentile.
+     *
+     * @param percentile the percentile, between 0 and 100.
+     * @return the write latency at the percentile.
+     */
+    public Duration getWriteLatency(double percentile) {
+        return Duration.ofNanos(writeLatency.getValueAtPercentile(percentile));
+    }
+
+    /**
+     * Format the report as a human readable summary.
+     *
+     * @return the summary.
+     */
+    public String toSummary() {
+        StringBuilder summary = new StringBuilder(String.format(
+                "Tag load over %s: %d tags, %d clients, target %d ops/s, achieved %.1f ops/s, %d errors",
+                transport, tagCount, clientCount, targetRate, getThroughput(), errors));
+        appendLatency(summary, "read", readLatency);
+        appendLatency(summary, "write", writeLatency);
+        return summary.toString();
+    }
+
+    /**
+     * Format the report as JSON.
+     *
+     * @return the JSON report.
+     */
+    public String toJson() {
+        return String.format(
+                Locale.ROOT,
+                "{\"transport\":%s,\"tagCount\":%d,\"clientCount\":%d,\"targetRate\":%d,\"durationMillis\":%d,"
+                        + "\"throughput\":%.3f,\"errors\":%d,\"read\":%s,\"write\":%s}",
+                StartupReport.quote(transport.toString()),
+                tagCount,
+                clientCount,
+                targetRate,
+                duration.toMillis(),
+                getThroughput(),
+                errors,
+                latencyJson(readLatency),
+                latencyJson(writeLatency));
+    }
+
+    /**
+     * Write the report as JSON.
+     *
+     * @param path the file to write.
+     * @throws IOException if the file cannot be written.
+     */
+    public void writeJson(Path path) throws IOException {
+        Files.writeString(path, toJson(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Format a table comparing runs, showing how throughput and tail latency change relative to the first run.
+     *
+     * @param reports the reports to compare, typically from {@link TagLoadGenerator#sweep(int[], int[])}.
+     * @return the comparison table.
+     */
+    public static String toComparison(List<TagLoadReport> reports) {
+        StringBuilder table = new StringBuilder(String.format(
+                "%8s %8s %12s %10s %12s %10s %8s%n",
+                "tags", "clients", "ops/s", "vs base", "p99 (ms)", "vs base", "errors"));
+        if (reports.isEmpty()) {
+            return table.toString();
+        }
+
+        TagLoadReport base = reports.get(0);
+        for (TagLoadReport report : reports) {
+            table.append(String.format(
+                    "%8d %8d %12.1f %9.2fx %12.3f %9.2fx %8d%n",
+                    report.tagCount,
+                    report.clientCount,
+                    report.getThroughput(),
+                    ratio(report.getThroughput(), base.getThroughput()),
+                    report.getP99Millis(),
+                    ratio(report.getP99Millis(), base.getP99Millis()),
+                    report.errors));
+        }
+        return table.toString();
+    }
+
+    @Override
+    public String toString() {
+        return toSummary();
+    }
+
+    private double getP99Millis() {
+        Histogram all = readLatency.copy();
+        all.add(writeLatency);
+        return all.getValueAtPercentile(99.0) / 1e6;
+    }
+
+    private static double ratio(double value, double base) {
+        return base == 0 ? 0 : value / base;
+    }
+
+    private static void appendLatency(StringBuilder summary, String name, Histogram histogram) {
+        if (histogram.getTotalCount() == 0) {
+            return;
+        }
+        summary.append(String.format("%n  %-5s", name));
+        for (double percentile : PERCENTILES) {
+            summary.append(String.format(
+                    "  p%s=%.3fms", format(percentile), histogram.getValueAtPercentile(percentile) / 1e6));
+        }
+        summary.append(String.format("  max=%.3fms", histogram.getMaxValue() / 1e6));
+    }
+
+    private static String latencyJson(Histogram histogram) {
+        StringJoiner json = new StringJoiner(",", "{", "}");
+        json.add(String.format(Locale.ROOT, "\"count\":%d", histogram.getTotalCount()));
+        for (double percentile : PERCENTILES) {
+            json.add(String.format(
+                    Locale.ROOT, "\"p%s\":%.3f", format(percentile), histogram.getValueAtPercentile(percentile) / 1e6));
+        }
+        json.add(String.format(Locale.ROOT, "\"max\":%.3f", histogram.getMaxValue() / 1e6));
+        return json.toString();
+    }
+
+    private static String format(double percentile) {
+        return percentile == Math.rint(percentile) ? String.valueOf((int) percentile) : String.valueOf(percentile);
+    }
+}
@@ -0,0 +1,26 @@
+package com.mussonindustrial.testcontainers.ignition;
+
+/** Transports used by {@link TagLoadGenerator} to read and write gateway tags. */
+public enum TagLoadTransport {
+    /**
+     * The gateway OPC UA server. Requires the {@link GatewayModule#OPC_UA} module, tag providers exposed over
+     * OPC UA, and the {@code org.eclipse.milo:sdk-client} library.
+     */
+    OPC_UA("opc-ua"),
+
+    /**
+     * A WebDev endpoint. Requires the {@link GatewayModule#WEB_DEVELOPER} module and a project resource that
+     * reads tags on {@code GET} and writes tags on {@code POST}.
+     */
+    WEBDEV("webdev");
+
+    private final String value;
+
+    TagLoadTransport(String value) {
+        this.value = value;
+    }
+
+    public String toString() {
+        return this.value;
+    }
+}
@@ -0,0 +1,70 @@
+package com.mussonindustrial.testcontainers.ignition;
+
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * Reads and writes tags through a WebDev resource.
+ *
+ * <p>Reads are sent as {@code GET <resource>?paths=<path>,<path>}. Writes are sent as {@code POST <resource>} with
+ * the body {@code {"paths":[...],"values":[...]}}. Tags are created with {@code PUT <resource>?provider=<provider>}
+ * and a tag export as the body. Any 2xx response is treated as success.
+ */
+final class WebDevTagClient implements TagClient {
+
+    private final IgnitionGatewayClient client;
+
+    private final String project;
+
+    private final String resource;
+
+    WebDevTagClient(IgnitionGatewayClient client, String project, String resource) {
+        this.client = client;
+        this.project = project;
+        this.resource = resource;
+    }
+
+    @Override
+    public void read(List<String> tagPaths) {
+        String query = URLEncoder.encode(String.join(",", tagPaths), StandardCharsets.UTF_8);
+        check(client.sendWebDevAsync(
+                        project, resource + "?paths=" + query, "GET", HttpRequest.BodyPublishers.noBody())
+                .join());
+    }
+
+    @Override
+    public void write(List<String> tagPaths, List<Integer> values) {
+        StringJoiner paths = new StringJoiner(",", "[", "]");
+        tagPaths.forEach(path -> paths.add(StartupReport.quote(path)));
+        StringJoiner valueJson = new StringJoiner(",", "[", "]");
+        values.forEach(value -> valueJson.add(String.valueOf(value)));
+
+        String body = String.format("{\"paths\":%s,\"values\":%s}", paths, valueJson);
+        check(client.sendWebDevAsync(project, resource, "POST", HttpRequest.BodyPublishers.ofString(body))
+                .join());
+    }
+
+    /**
+     * Create or replace tags.
+     *
+     * @param provider the tag provider name.
+     * @param tagExport the tags, in tag export format.
+     */
+    void create(String provider, String tagExport) {
+        String query = URLEncoder.encode(provider, StandardCharsets.UTF_8);
+        check(client.sendWebDevAsync(
+                        project, resource + "?provider=" + query, "PUT", HttpRequest.BodyPublishers.ofString(tagExport))
+                .join());
+    }
+
+    private static void check(HttpResponse<String> response) {
+        if (response.statusCode() / 100 != 2) {
+            throw new IllegalStateException(
+                    String.format("WebDev request failed with status %d: %s", response.statusCode(), response.body()));
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.mussonindustrial.testcontainers.ignition;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ContainerFileStagerTest {
+
+    @Test
+    public void shouldLinkDuplicateContent(@TempDir Path tempDir) throws IOException {
+        Path first = Files.write(tempDir.resolve("first.modl"), new byte[] {1, 2, 3});
+        Path second = Files.write(tempDir.resolve("second.modl"), new byte[] {1, 2, 3});
+        Path other = Files.write(tempDir.resolve("other.modl"), new byte[] {4, 5, 6});
+
+        ContainerFileStager stager = new ContainerFileStager();
+        stager.add("/modules/a.modl", first);
+        stager.add("/modules/b.modl", second);
+        stager.add("/modules/c.modl", other);
+
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        stager.writeArchive(archive);
+
+        try (TarArchiveInputStream tar = new TarArchiveInputStream(new ByteArrayInputStream(archive.toByteArray()))) {
+            TarArchiveEntry a = tar.getNextTarEntry();
+            assertEquals("modules/a.modl", a.getName());
+            assertEquals(3, a.getSize());
+
+            TarArchiveEntry b = tar.getNextTarEntry();
+            assertEquals("modules/b.modl", b.getName());
+            assertTrue(b.isLink());
+            assertEquals("modules/a.modl", b.getLinkName());
+
+            TarArchiveEntry c = tar.getNextTarEntry();
+            assertEquals("modules/c.modl", c.getName());
+            assertFalse(c.isLink());
+
+            assertNull(tar.getNextTarEntry());
+        }
+    }
+}
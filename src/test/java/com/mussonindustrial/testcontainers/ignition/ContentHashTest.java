@@ -0,0 +1,48 @@
+package com.mussonindustrial.testcontainers.ignition;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ContentHashTest {
+
+    private static final String EMPTY_HASH = "e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855";
+
+    @Test
+    public void shouldHashStringsAndFiles(@TempDir Path tempDir) throws IOException {
+        Path file = Files.write(tempDir.resolve("empty.bin"), new byte[0]);
+
+        assertEquals(EMPTY_HASH, ContentHash.of(""));
+        assertEquals(EMPTY_HASH, ContentHash.of(file));
+    }
+
+    @Test
+    public void shouldRehashModifiedFile(@TempDir Path tempDir) throws IOException {
+        Path file = Files.writeString(tempDir.resolve("module.modl"), "first");
+        String first = ContentHash.of(file);
+        assertEquals(first, ContentHash.of(file));
+
+        Files.writeString(file, "second");
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().plusSeconds(60)));
+
+        assertEquals(ContentHash.of("second"), ContentHash.of(file));
+        assertNotEquals(first, ContentHash.of(file));
+    }
+
+    @Test
+    public void shouldHashEntriesInOrder() {
+        String hash = ContentHash.builder().put("a", "1").put("b", "2").build();
+
+        assertEquals(hash, ContentHash.builder().put("a", "1").put("b", "2").build());
+        assertNotEquals(hash, ContentHash.builder().put("b", "2").put("a", "1").build());
+        assertNotEquals(
+                ContentHash.builder().put("a", null).build(),
+                ContentHash.builder().put("a", "").build());
+    }
+}
@@ -0,0 +1,38 @@
+package com.mussonindustrial.testcontainers.ignition;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class FlightRecordingSummaryTest {
+
+    @Test
+    public void shouldSummarizeRecording(@TempDir Path tempDir) throws IOException, ParseException {
+        Path path = tempDir.resolve("recording.jfr");
+        try (Recording recording = new Recording(Configuration.getConfiguration("profile"))) {
+            recording.start();
+            List<byte[]> retained = new ArrayList<>();
+            for (int i = 0; i < 20_000; i++) {
+                retained.add(new byte[4096]);
+                if (retained.size() > 1000) retained.clear();
+            }
+            System.gc();
+            recording.stop();
+            recording.dump(path);
+        }
+
+        FlightRecordingSummary summary = FlightRecordingSummary.read(path);
+
+        assertTrue(summary.getGcCount() > 0);
+        assertFalse(summary.getAllocationHotSpots().isEmpty());
+        assertTrue(summary.toSummary().contains("Allocation hot spots"));
+    }
+}
@@ -0,0 +1,112 @@
+package com.mussonindustrial.testcontainers.ignition;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.testcontainers.utility.DockerImageName;
+
+public class GatewayBackupInfoTest {
+
+    @Test
+    public void shouldReadBackupSummary(@TempDir Path tempDir) throws IOException {
+        Path backup = createBackup(tempDir.resolve("summary.gwbk"), "8.1.33 (b2023101913)");
+
+        GatewayBackupInfo info = GatewayBackupInfo.read(backup);
+
+        assertEquals("8.1.33 (b2023101913)", info.getVersion());
+        assertEquals(Optional.of("standard"), info.getEdition());
+        assertEquals(List.of("Alpha", "Beta"), info.getProjects());
+        assertEquals(List.of("default", "System"), info.getTagProviders());
+        assertEquals(List.of("MySQL"), info.getDatabaseConnections());
+        assertEquals(ContentHash.of(backup), info.getContentHash());
+    }
+
+    @Test
+    public void shouldCheckImageCompatibility(@TempDir Path tempDir) throws IOException {
+        GatewayBackupInfo info = GatewayBackupInfo.read(createBackup(tempDir.resolve("compat.gwbk"), "8.1.40"));
+
+        assertTrue(info.isCompatibleWith(DockerImageName.parse("inductiveautomation/ignition:8.1.43")));
+        assertTrue(info.isCompatibleWith(DockerImageName.parse("inductiveautomation/ignition:8.1.40")));
+        assertTrue(info.isCompatibleWith(DockerImageName.parse("inductiveautomation/ignition:latest")));
+        assertTrue(info.isCompatibleWith(DockerImageName.parse("inductiveautomation/ignition:8.1")));
+        assertTrue(info.isCompatibleWith(DockerImageName.parse("inductiveautomation/ignition:8")));
+        assertFalse(info.isCompatibleWith(DockerImageName.parse("inductiveautomation/ignition:8.1.33")));
+        assertFalse(info.isCompatibleWith(DockerImageName.parse("inductiveautomation/ignition:8.0")));
+    }
+
+    @Test
+    public void shouldRejectNewerBackupBeforeStarting(@TempDir Path tempDir) throws IOException {
+        Path backup = createBackup(tempDir.resolve("newer.gwbk"), "8.3.0 (b2025091210)");
+        IgnitionContainer ignition = new IgnitionContainer(DockerImageName.parse("inductiveautomation/ignition:8.1.43"))
+                .withGatewayBackup(backup)
+                .acceptLicense();
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class, ignition::configure);
+        assertTrue(exception.getMessage().contains("8.3.0"));
+    }
+
+    @Test
+    public void shouldRejectInvalidBackup(@TempDir Path tempDir) throws IOException {
+        Path backup = Files.writeString(tempDir.resolve("invalid.gwbk"), "not a zip");
+
+        assertThrows(IOException.class, () -> GatewayBackupInfo.read(backup));
+    }
+
+    @Test
+    public void shouldRejectCorruptConfigDatabase(@TempDir Path tempDir) throws IOException {
+        byte[] database = Files.readAllBytes(Path.of("./src/test/resources/config.idb"));
+        // Point the first cells of the schema page past the end of the page.
+        Arrays.fill(database, 108, 120, (byte) 0xFF);
+        Path backup = createBackup(tempDir.resolve("corrupt.gwbk"), "8.1.33", database);
+
+        IOException exception = assertThrows(IOException.class, () -> GatewayBackupInfo.read(backup));
+        assertTrue(exception.getMessage().contains("not a valid gateway backup"));
+    }
+
+    @Test
+    public void shouldRejectConfigDatabasePageLoop(@TempDir Path tempDir) throws IOException {
+        ByteBuffer database = ByteBuffer.allocate(512);
+        database.put("SQLite format 3\0".getBytes(StandardCharsets.US_ASCII));
+        database.putShort(16, (short) 512);
+        // The schema page is an interior page whose only child is itself.
+        database.put(100, (byte) 0x05);
+        database.putInt(108, 1);
+        Path backup = createBackup(tempDir.resolve("loop.gwbk"), "8.1.33", database.array());
+
+        IOException exception = assertThrows(IOException.class, () -> GatewayBackupInfo.read(backup));
+        assertTrue(exception.getMessage().contains("not a valid gateway backup"));
+    }
+
+    private static Path createBackup(Path path, String version) throws IOException {
+        return createBackup(path, version, Files.readAllBytes(Path.of("./src/test/resources/config.idb")));
+    }
+
+    private static Path createBackup(Path path, String version, byte[] database) throws IOException {
+        try (OutputStream out = Files.newOutputStream(path);
+                ZipOutputStream zip = new ZipOutputStream(out)) {
+            zip.putNextEntry(new ZipEntry("backupinfo.xml"));
+            zip.write(String.format(
+                            "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+                                    + "<backupInfo><version>%s</version><edition>standard</edition></backupInfo>",
+                            version)
+                    .getBytes(StandardCharsets.UTF_8));
+            zip.putNextEntry(new ZipEntry("projects/Beta/project.json"));
+            zip.putNextEntry(new ZipEntry("projects/Alpha/com.inductiveautomation.perspective/views/Main/view.json"));
+            zip.putNextEntry(new ZipEntry("db_backup_sqlite.idb"));
+            zip.write(database);
+        }
+        return path;
+    }
+}
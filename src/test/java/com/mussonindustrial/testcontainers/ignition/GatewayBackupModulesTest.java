@@ -0,0 +1,53 @@
+package com.mussonindustrial.testcontainers.ignition;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.junit.jupiter.api.Test;
+
+public class GatewayBackupModulesTest {
+
+    @Test
+    public void shouldFindModulesFromProjectsAndConfiguration() throws IOException {
+        ByteArrayOutputStream backup = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(backup)) {
+            zip.putNextEntry(new ZipEntry("backupinfo.xml"));
+            zip.putNextEntry(new ZipEntry("projects/Demo/com.inductiveautomation.perspective/views/Main/view.json"));
+            zip.putNextEntry(new ZipEntry("projects/Demo/ignition/global-props/data.bin"));
+            zip.putNextEntry(new ZipEntry("db_backup_sqlite.idb"));
+
+            // Pad the marker past the first chunk boundary, to check markers split across chunks are found.
+            zip.write(new byte[64 * 1024 - 10]);
+            zip.write("{\"valueSource\":\"opc\"} com.inductiveautomation.ModbusTcp".getBytes(StandardCharsets.UTF_8));
+        }
+
+        Set<GatewayModule> modules = GatewayBackupModules.scan(new ByteArrayInputStream(backup.toByteArray()));
+
+        assertEquals(Set.of(GatewayModule.PERSPECTIVE, GatewayModule.OPC_UA, GatewayModule.MODBUS_DRIVER_V2), modules);
+    }
+
+    @Test
+    public void shouldRejectBackupWithoutModules() throws IOException {
+        ByteArrayOutputStream backup = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(backup)) {
+            zip.putNextEntry(new ZipEntry("backupinfo.xml"));
+            zip.putNextEntry(new ZipEntry("db_backup_sqlite.idb"));
+            zip.write("no module markers".getBytes(StandardCharsets.UTF_8));
+        }
+
+        Set<GatewayModule> modules = GatewayBackupModules.scan(new ByteArrayInputStream(backup.toByteArray()));
+        assertTrue(modules.isEmpty());
+
+        IllegalStateException e = assertThrows(
+                IllegalStateException.class, () -> GatewayBackupModules.checkNotEmpty(modules, Path.of("empty.gwbk")));
+        assertTrue(e.getMessage().contains("withModules"));
+        GatewayBackupModules.checkNotEmpty(Set.of(GatewayModule.PERSPECTIVE), Path.of("empty.gwbk"));
+    }
+}
@@ -0,0 +1,123 @@
+package com.mussonindustrial.testcontainers.ignition;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class GatewayFaultProxyTest {
+
+    private ServerSocket echoServer;
+
+    private GatewayFaultProxy proxy;
+
+    @BeforeEach
+    public void startProxy() throws IOException {
+        echoServer = new ServerSocket(0);
+        Thread acceptor = new Thread(() -> {
+            try {
+                while (true) {
+                    Socket socket = echoServer.accept();
+                    Thread echo = new Thread(() -> {
+                        try (socket) {
+                            socket.getInputStream().transferTo(socket.getOutputStream());
+                        } catch (IOException e) {
+                            // Connection dropped.
+                        }
+                    });
+                    echo.setDaemon(true);
+                    echo.start();
+                }
+            } catch (IOException e) {
+                // Server closed.
+            }
+        });
+        acceptor.setDaemon(true);
+        acceptor.start();
+
+        proxy = GatewayFaultProxy.start(GatewayPort.GATEWAY, "127.0.0.1", echoServer.getLocalPort());
+    }
+
+    @AfterEach
+    public void stopProxy() throws IOException {
+        proxy.close();
+        echoServer.close();
+    }
+
+    @Test
+    public void shouldAddLatencyInEachDirection() throws IOException {
+        proxy.withLatency(Duration.ofMillis(100));
+
+        try (Socket socket = new Socket(proxy.getHost(), proxy.getPort())) {
+            long started = System.nanoTime();
+            socket.getOutputStream().write(new byte[] {1, 2, 3});
+            assertEquals(3, socket.getInputStream().readNBytes(3).length);
+            assertTrue(Duration.ofNanos(System.nanoTime() - started).toMillis() >= 200);
+        }
+    }
+
+    @Test
+    public void shouldCapBandwidth() throws IOException {
+        proxy.withBandwidth(100_000);
+        byte[] data = new byte[200_000];
+
+        try (Socket socket = new Socket(proxy.getHost(), proxy.getPort())) {
+            long started = System.nanoTime();
+            Thread writer = new Thread(() -> {
+                try {
+                    socket.getOutputStream().write(data);
+                    socket.shutdownOutput();
+                } catch (IOException e) {
+                    // Checked by the read below.
+                }
+            });
+            writer.start();
+
+            assertEquals(data.length, socket.getInputStream().readAllBytes().length);
+            assertTrue(Duration.ofNanos(System.nanoTime() - started).toMillis() >= 1500);
+        }
+        assertEquals(data.length, proxy.getBytesUpstream());
+        assertEquals(data.length, proxy.getBytesDownstream());
+    }
+
+    @Test
+    public void shouldReportActivityAndOpenConnections() throws IOException {
+        AtomicInteger activity = new AtomicInteger();
+        try (GatewayFaultProxy activityProxy = GatewayFaultProxy.start(
+                GatewayPort.GATEWAY, "127.0.0.1", echoServer.getLocalPort(), activity::incrementAndGet)) {
+            try (Socket socket = new Socket(activityProxy.getHost(), activityProxy.getPort())) {
+                socket.getOutputStream().write(1);
+                assertEquals(1, socket.getInputStream().read());
+                assertEquals(1, activityProxy.getOpenConnectionCount());
+                assertTrue(activity.get() >= 2);
+            }
+        }
+    }
+
+    @Test
+    public void shouldDropAndRefuseConnections() throws IOException, InterruptedException {
+        try (Socket socket = new Socket(proxy.getHost(), proxy.getPort())) {
+            OutputStream out = socket.getOutputStream();
+            InputStream in = socket.getInputStream();
+            out.write(1);
+            assertEquals(1, in.read());
+
+            proxy.dropConnections();
+            assertEquals(-1, in.read());
+        }
+
+        proxy.withRefusingConnections(true);
+        try (Socket socket = new Socket(proxy.getHost(), proxy.getPort())) {
+            assertEquals(-1, socket.getInputStream().read());
+        }
+        assertEquals(2, proxy.getDroppedConnectionCount());
+    }
+}
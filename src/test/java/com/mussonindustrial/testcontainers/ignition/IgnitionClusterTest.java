@@ -0,0 +1,87 @@
+package com.mussonindustrial.testcontainers.ignition;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.mussonindustrial.testcontainers.IgnitionTestImage;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.testcontainers.containers.Container;
+
+public class IgnitionClusterTest {
+
+    private static final Duration CONNECT_TIMEOUT = Duration.ofMinutes(1);
+
+    @ParameterizedTest
+    @EnumSource(IgnitionTestImage.class)
+    public void shouldStartGatewaysInParallel(IgnitionTestImage image) throws IOException, InterruptedException {
+        try (IgnitionCluster cluster = new IgnitionCluster()
+                .withGateway(
+                        "frontend",
+                        new IgnitionContainer(image.getDockerImageName()).withGatewayName("frontend").acceptLicense())
+                .withGateway(
+                        "backend",
+                        new IgnitionContainer(image.getDockerImageName()).withGatewayName("backend").acceptLicense())
+                .withGatewayNetworkConnection("frontend", "backend")
+                .withMaxConcurrentStarts(2)) {
+
+            cluster.start();
+
+            assertTrue(cluster.getGateway("frontend").isRunning());
+            assertTrue(cluster.getGateway("backend").isRunning());
+            assertTrue(
+                    awaitGatewayNetworkConnection(cluster.getGateway("frontend")),
+                    "frontend did not connect to backend over the Gateway Network");
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(IgnitionTestImage.class)
+    public void shouldRouteGatewayNetworkThroughFaultProxy(IgnitionTestImage image) throws InterruptedException {
+        try (IgnitionCluster cluster = new IgnitionCluster()
+                .withGateway(
+                        "frontend",
+                        new IgnitionContainer(image.getDockerImageName()).withGatewayName("frontend").acceptLicense())
+                .withGateway(
+                        "backend",
+                        new IgnitionContainer(image.getDockerImageName())
+                                .withGatewayName("backend")
+                                .withFaultProxy(GatewayPort.GATEWAY)
+                                .acceptLicense())
+                .withGatewayNetworkConnection("frontend", "backend")) {
+
+            cluster.start();
+
+            GatewayFaultProxy proxy = cluster.getGateway("backend").getFaultProxy(GatewayPort.GATEWAY);
+            Instant deadline = Instant.now().plus(CONNECT_TIMEOUT);
+            while (proxy.getOpenConnectionCount() == 0 && Instant.now().isBefore(deadline)) {
+                Thread.sleep(1000);
+            }
+            assertTrue(proxy.getOpenConnectionCount() > 0, "frontend did not connect to backend through the proxy");
+        }
+    }
+
+    /**
+     * Wait for the gateway to hold an established outgoing connection to the gateway port of another gateway,
+     * which the Gateway Network keeps open as a websocket once the connection is accepted.
+     */
+    private static boolean awaitGatewayNetworkConnection(IgnitionContainer container)
+            throws IOException, InterruptedException {
+        String remotePort = String.format(":%04X", IgnitionContainer.GATEWAY_PORT);
+        Instant deadline = Instant.now().plus(CONNECT_TIMEOUT);
+        while (Instant.now().isBefore(deadline)) {
+            Container.ExecResult result = container.execInContainer("cat", "/proc/net/tcp", "/proc/net/tcp6");
+            for (String line : result.getStdout().split("\n")) {
+                // sl local_address rem_address st ...; state 01 is ESTABLISHED.
+                String[] fields = line.trim().split("\\s+");
+                if (fields.length > 3 && fields[2].endsWith(remotePort) && fields[3].equals("01")) {
+                    return true;
+                }
+            }
+            Thread.sleep(1000);
+        }
+        return false;
+    }
+}
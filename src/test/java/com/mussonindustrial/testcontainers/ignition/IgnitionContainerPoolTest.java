@@ -0,0 +1,61 @@
+package com.mussonindustrial.testcontainers.ignition;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.mussonindustrial.testcontainers.IgnitionTestImage;
+import java.io.FileNotFoundException;
+import java.util.function.Supplier;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+public class IgnitionContainerPoolTest {
+
+    @ParameterizedTest
+    @EnumSource(IgnitionTestImage.class)
+    public void shouldReuseReturnedGateway(IgnitionTestImage image) {
+        Supplier<IgnitionContainer> factory = () -> {
+            try {
+                return new IgnitionContainer(image.getDockerImageName())
+                        .withGatewayBackup("./src/test/resources/backup.gwbk")
+                        .acceptLicense();
+            } catch (FileNotFoundException e) {
+                throw new IllegalStateException(e);
+            }
+        };
+
+        try (IgnitionContainerPool pool = new IgnitionContainerPool().withMaxSize(1)) {
+
+            IgnitionContainer first;
+            try (IgnitionContainerPool.Lease lease = pool.acquire(factory)) {
+                first = lease.getContainer();
+                assertTrue(first.isRunning());
+            }
+
+            try (IgnitionContainerPool.Lease lease = pool.acquire(factory)) {
+                assertSame(first, lease.getContainer());
+            }
+
+            assertEquals(1, pool.size());
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(IgnitionTestImage.class)
+    public void shouldDiscardGatewayWithoutReset(IgnitionTestImage image) {
+        try (IgnitionContainerPool pool = new IgnitionContainerPool().withMaxSize(1)) {
+
+            IgnitionContainer first;
+            try (IgnitionContainerPool.Lease lease =
+                    pool.acquire(() -> new IgnitionContainer(image.getDockerImageName()).acceptLicense())) {
+                first = lease.getContainer();
+            }
+            assertFalse(first.isRunning());
+            assertEquals(0, pool.size());
+
+            try (IgnitionContainerPool.Lease lease =
+                    pool.acquire(() -> new IgnitionContainer(image.getDockerImageName()).acceptLicense())) {
+                assertNotSame(first, lease.getContainer());
+            }
+        }
+    }
+}
@@ -2,6 +2,8 @@ package com.mussonindustrial.testcontainers.ignition;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.model.HostConfig;
 import com.mussonindustrial.testcontainers.IgnitionTestImage;
 import java.io.FileNotFoundException;
 import java.io.IOException;
@@ -9,15 +11,27 @@ import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.UUID;
 import org.eclipse.milo.opcua.sdk.client.OpcUaClient;
 import org.eclipse.milo.opcua.sdk.client.api.config.OpcUaClientConfigBuilder;
+import org.eclipse.milo.opcua.stack.core.Identifiers;
 import org.eclipse.milo.opcua.stack.core.UaException;
 import org.eclipse.milo.opcua.stack.core.security.SecurityPolicy;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
+import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
 import org.eclipse.milo.opcua.stack.core.util.EndpointUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.EnumSource;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.ContainerLaunchException;
 import org.testcontainers.containers.wait.strategy.Wait;
 import org.testcontainers.containers.wait.strategy.WaitAllStrategy;
 
@@ -80,6 +94,297 @@ public class IgnitionContainerTest {
         }
     }
 
+    @ParameterizedTest
+    @EnumSource(IgnitionTestImage.class)
+    public void shouldApplyResourceProfile(IgnitionTestImage image) {
+        try (IgnitionContainer ignition = new IgnitionContainer(image.getDockerImageName())
+                .withResourceProfile(ResourceProfile.EDGE)
+                .acceptLicense()) {
+
+            ignition.start();
+
+            HostConfig hostConfig = ignition.getContainerInfo().getHostConfig();
+            assertEquals(1024L * 1024 * 1024, hostConfig.getMemory());
+            assertEquals(1_000_000_000L, hostConfig.getNanoCPUs());
+            assertTrue(ignition.getLogs().contains("-XX:ActiveProcessorCount=1"));
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(IgnitionTestImage.class)
+    public void shouldSyncProjectDirectory(IgnitionTestImage image, @TempDir Path tempDir)
+            throws IOException, InterruptedException {
+        Path project = Files.createDirectories(tempDir.resolve("synced"));
+        Files.writeString(project.resolve("project.json"), "{\"title\": \"Synced\", \"enabled\": true}");
+
+        try (IgnitionContainer ignition = new IgnitionContainer(image.getDockerImageName())
+                .withProjectSync(project)
+                .acceptLicense()) {
+
+            ignition.start();
+
+            String projectFile = "/usr/local/bin/ignition/data/projects/synced/project.json";
+            assertTrue(ignition.execInContainer("cat", projectFile).getStdout().contains("Synced"));
+
+            Files.writeString(project.resolve("project.json"), "{\"title\": \"Changed\", \"enabled\": true}");
+            long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+            while (!ignition.execInContainer("cat", projectFile).getStdout().contains("Changed")) {
+                assertTrue(System.nanoTime() < deadline, "project change was not synced");
+                Thread.sleep(100);
+            }
+
+            ignition.execInContainer("sh", "-c", "echo '{}' > " + projectFile.replace("project.json", "data.json"));
+            ignition.pullSyncedProject();
+            assertTrue(Files.exists(project.resolve("data.json")));
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(IgnitionTestImage.class)
+    public void shouldSyncProjectThroughFaultProxy(IgnitionTestImage image, @TempDir Path tempDir)
+            throws IOException, InterruptedException {
+        Path project = Files.createDirectories(tempDir.resolve("proxied"));
+        Files.writeString(project.resolve("project.json"), "{\"title\": \"Proxied\", \"enabled\": true}");
+
+        try (IgnitionContainer ignition = new IgnitionContainer(image.getDockerImageName())
+                .withProjectSync(project)
+                .withFaultProxy(GatewayPort.GATEWAY)
+                .acceptLicense()) {
+
+            ignition.start();
+
+            GatewayFaultProxy proxy = ignition.getFaultProxy(GatewayPort.GATEWAY);
+            long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+            while (proxy.getConnectionCount() == 0) {
+                assertTrue(System.nanoTime() < deadline, "project scan request did not go through the proxy");
+                Thread.sleep(100);
+            }
+            assertEquals(
+                    proxy.getPort(),
+                    ignition.getGatewayClient()
+                            .newRequest("StatusPing")
+                            .build()
+                            .uri()
+                            .getPort());
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(IgnitionTestImage.class)
+    public void shouldCaptureFlightRecording(IgnitionTestImage image, @TempDir Path tempDir) {
+        IgnitionContainer ignition = new IgnitionContainer(image.getDockerImageName())
+                .withFlightRecorder("profile", tempDir)
+                .acceptLicense();
+        try (ignition) {
+            ignition.start();
+        }
+
+        FlightRecordingSummary summary = ignition.getFlightRecordingSummary().orElseThrow();
+        assertTrue(Files.exists(summary.getPath()));
+        assertTrue(summary.getGcCount() > 0);
+        assertFalse(summary.getThreadCpu().isEmpty());
+    }
+
+    @ParameterizedTest
+    @EnumSource(IgnitionTestImage.class)
+    public void shouldSampleGatewayMetrics(IgnitionTestImage image) throws InterruptedException {
+        try (IgnitionContainer ignition = new IgnitionContainer(image.getDockerImageName())
+                .withJmx()
+                .acceptLicense()) {
+
+            ignition.start();
+
+            try (GatewayMetricsSampler sampler = new GatewayMetricsSampler(ignition)
+                    .withInterval(Duration.ofMillis(100))
+                    .withCapacity(5)
+                    .start()) {
+                Thread.sleep(1000);
+
+                assertEquals(5, sampler.getSamples().size());
+                assertTrue(sampler.getLatest().orElseThrow().getThreadCount() > 0);
+                sampler.assertHeapUsageBelow(1.0);
+                assertThrows(AssertionError.class, () -> sampler.assertThreadCountBelow(1));
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(IgnitionTestImage.class)
+    public void shouldCollectContainerStats(IgnitionTestImage image, @TempDir Path tempDir)
+            throws InterruptedException, IOException {
+        Path export = tempDir.resolve("stats.csv");
+        IgnitionContainer ignition = new IgnitionContainer(image.getDockerImageName())
+                .withContainerStats(export)
+                .acceptLicense();
+        try (ignition) {
+            ignition.start();
+            Thread.sleep(3000);
+
+            ContainerStatsCollector stats = ignition.getContainerStats();
+            assertTrue(stats.getSampleCount() > 0);
+            assertTrue(stats.getMaxMemoryBytes() > 0);
+            stats.assertMaxMemoryBelow(Long.MAX_VALUE);
+            assertThrows(AssertionError.class, () -> stats.assertMaxMemoryBelow(1));
+        }
+
+        assertTrue(Files.readAllLines(export).size() > 1);
+    }
+
+    @ParameterizedTest
+    @EnumSource(IgnitionTestImage.class)
+    public void shouldHitImageCacheOnSecondStart(IgnitionTestImage image) throws FileNotFoundException {
+        String key = "test-" + UUID.randomUUID();
+        for (int i = 0; i < 2; i++) {
+            try (IgnitionContainer ignition = new IgnitionContainer(image.getDockerImageName())
+                    .withGatewayBackup("./src/test/resources/backup.gwbk")
+                    .withImageCache(key)
+                    .acceptLicense()) {
+
+                ignition.start();
+                assertEquals(i == 1, ignition.isImageCacheHit());
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(IgnitionTestImage.class)
+    public void shouldExportGatewayBackup(IgnitionTestImage image, @TempDir Path tempDir) throws IOException {
+        Path backup = tempDir.resolve("fixture.gwbk");
+        try (IgnitionContainer ignition = new IgnitionContainer(image.getDockerImageName())
+                .withGatewayBackup("./src/test/resources/backup.gwbk")
+                .acceptLicense()) {
+
+            ignition.start();
+            String hash = ignition.exportGatewayBackup(backup);
+            assertEquals(ContentHash.of(backup), hash);
+        }
+
+        try (IgnitionContainer ignition = new IgnitionContainer(image.getDockerImageName())
+                .withGatewayBackup(backup)
+                .acceptLicense()) {
+
+            ignition.start();
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(IgnitionTestImage.class)
+    public void shouldStoreDataDirectoryInTmpfs(IgnitionTestImage image) throws IOException, InterruptedException {
+        try (IgnitionContainer ignition = new IgnitionContainer(image.getDockerImageName())
+                .withGatewayBackup("./src/test/resources/backup.gwbk")
+                .withDataDirectory(DataDirectoryStrategy.tmpfs(1024))
+                .acceptLicense()) {
+
+            ignition.start();
+
+            String mounts = ignition.execInContainer("cat", "/proc/mounts").getStdout();
+            assertTrue(mounts.contains("tmpfs /usr/local/bin/ignition/data "));
+            StartupReport report = ignition.getStartupReport().orElseThrow();
+            assertEquals(DataDirectoryStrategy.Type.TMPFS, report.getDataDirectory().getType());
+            assertTrue(report.getPhase(StartupReport.BACKUP_RESTORE).isPresent());
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(IgnitionTestImage.class)
+    public void shouldSeedVolumeFromSnapshot(IgnitionTestImage image) throws IOException, InterruptedException {
+        String snapshot = "ignition-snapshot-" + UUID.randomUUID();
+        String volume = "ignition-seeded-" + UUID.randomUUID();
+        try {
+            try (IgnitionContainer ignition = new IgnitionContainer(image.getDockerImageName())
+                    .withDataDirectory(DataDirectoryStrategy.volume(snapshot))
+                    .acceptLicense()) {
+                ignition.start();
+                assertEquals(
+                        0,
+                        ignition.execInContainer("touch", "/usr/local/bin/ignition/data/snapshot-file")
+                                .getExitCode());
+            }
+
+            try (IgnitionContainer ignition = new IgnitionContainer(image.getDockerImageName())
+                    .withDataDirectory(DataDirectoryStrategy.volume(volume, snapshot))
+                    .acceptLicense()) {
+                ignition.start();
+                assertEquals(
+                        0,
+                        ignition.execInContainer("test", "-e", "/usr/local/bin/ignition/data/snapshot-file")
+                                .getExitCode());
+            }
+        } finally {
+            DockerClient dockerClient = DockerClientFactory.instance().client();
+            dockerClient.removeVolumeCmd(volume).exec();
+            dockerClient.removeVolumeCmd(snapshot).exec();
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(IgnitionTestImage.class)
+    public void shouldPauseIdleGateway(IgnitionTestImage image) throws IOException, InterruptedException {
+        try (IgnitionContainer ignition = new IgnitionContainer(image.getDockerImageName())
+                .withIdlePause(Duration.ofSeconds(2))
+                .acceptLicense()) {
+
+            ignition.start();
+            GatewayIdleManager idleManager = ignition.getIdleManager();
+            Thread.sleep(5000);
+            assertTrue(idleManager.isPaused());
+
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create(ignition.getGatewayUrl() + "/StatusPing"))
+                    .build();
+            HttpResponse<String> response =
+                    HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofString());
+            assertTrue(response.body().contains("\"state\":\"RUNNING\""));
+            assertFalse(idleManager.isPaused());
+            assertEquals(1, idleManager.getPauseCount());
+            assertTrue(idleManager.getPausedTime().toMillis() > 0);
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(IgnitionTestImage.class)
+    public void shouldProxyGatewayPort(IgnitionTestImage image) throws IOException, InterruptedException {
+        try (IgnitionContainer ignition = new IgnitionContainer(image.getDockerImageName())
+                .withFaultProxy(GatewayPort.GATEWAY)
+                .acceptLicense()) {
+
+            ignition.start();
+            GatewayFaultProxy proxy = ignition.getFaultProxy(GatewayPort.GATEWAY);
+            assertEquals(proxy.getPort(), ignition.getMappedGatewayPort());
+            proxy.withLatency(Duration.ofMillis(250));
+
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create(ignition.getGatewayUrl() + "/StatusPing"))
+                    .build();
+            long started = System.nanoTime();
+            HttpResponse<String> response =
+                    HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofString());
+
+            assertTrue(response.body().contains("\"state\":\"RUNNING\""));
+            assertTrue(Duration.ofNanos(System.nanoTime() - started).toMillis() >= 500);
+            assertTrue(proxy.getBytesDownstream() > 0);
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(IgnitionTestImage.class)
+    public void shouldFailFastOnFatalLogPattern(IgnitionTestImage image) {
+        try (IgnitionContainer ignition = new IgnitionContainer(image.getDockerImageName())
+                .withModules(GatewayModule.OPC_UA)
+                .withFatalLogPatterns("Processing GATEWAY_MODULES_ENABLED=opc-ua")
+                .acceptLicense()) {
+
+            ContainerLaunchException exception = assertThrows(ContainerLaunchException.class, ignition::start);
+
+            Throwable cause = exception;
+            while (cause != null && !(cause instanceof IgnitionStartupException)) {
+                cause = cause.getCause();
+            }
+            assertNotNull(cause);
+            assertTrue(((IgnitionStartupException) cause).getLine().contains("GATEWAY_MODULES_ENABLED"));
+        }
+    }
+
     @ParameterizedTest
     @EnumSource(IgnitionTestImage.class)
     public void shouldReturnCorrectUrl(IgnitionTestImage image) {
@@ -102,6 +407,33 @@ public class IgnitionContainerTest {
         }
     }
 
+    @ParameterizedTest
+    @EnumSource(IgnitionTestImage.class)
+    public void shouldQueryGatewayWithClient(IgnitionTestImage image) {
+        try (IgnitionContainer ignition = new IgnitionContainer(image.getDockerImageName())
+                .withModules(GatewayModule.OPC_UA)
+                .acceptLicense()) {
+
+            ignition.start();
+            IgnitionGatewayClient client = ignition.getGatewayClient();
+
+            assertSame(client, ignition.getGatewayClient());
+            assertEquals("RUNNING", client.getStatusAsync().join());
+            assertFalse(client.getGatewayInfoAsync().join().isEmpty());
+            assertFalse(client.getModulesAsync().join().isEmpty());
+        }
+    }
+
+    @Test
+    public void shouldParseGatewayInfo() {
+        Map<String, String> info = IgnitionGatewayClient.parseGatewayInfo(
+                "ContextStatus=RUNNING;Version=8.1.33 (b2023101913);PlatformEdition=standard;\n");
+
+        assertEquals("RUNNING", info.get("ContextStatus"));
+        assertEquals("8.1.33 (b2023101913)", info.get("Version"));
+        assertEquals("standard", info.get("PlatformEdition"));
+    }
+
     @ParameterizedTest
     @EnumSource(IgnitionTestImage.class)
     public void shouldUseThirdPartyModules(IgnitionTestImage image) throws FileNotFoundException {
@@ -122,6 +454,19 @@ public class IgnitionContainerTest {
         }
     }
 
+    @ParameterizedTest
+    @EnumSource(IgnitionTestImage.class)
+    public void shouldWaitForLoadedModules(IgnitionTestImage image) throws FileNotFoundException {
+        try (IgnitionContainer ignition = new IgnitionContainer(image.getDockerImageName())
+                .withThirdPartyModules("./src/test/resources/Embr-EventStream-0.4.0.modl")
+                .withCredentials("admin", "password")
+                .acceptLicense()) {
+
+            ignition.waitingFor(new IgnitionWaitStrategy().withModulesLoaded("Embr Event Stream"));
+            ignition.start();
+        }
+    }
+
     @ParameterizedTest
     @EnumSource(IgnitionTestImage.class)
     public void shouldFailIfThirdPartyModulesNotPresent(IgnitionTestImage image) {
@@ -157,6 +502,65 @@ public class IgnitionContainerTest {
         }
     }
 
+    @ParameterizedTest
+    @EnumSource(IgnitionTestImage.class)
+    public void shouldReadAndSubscribeWithOpcUaClient(IgnitionTestImage image)
+            throws FileNotFoundException, InterruptedException {
+
+        try (IgnitionContainer ignition = new IgnitionContainer(image.getDockerImageName())
+                .withModules(GatewayModule.OPC_UA)
+                .withGatewayBackup("./src/test/resources/opcua.gwbk")
+                .acceptLicense()) {
+
+            ignition.start();
+            IgnitionOpcUaClient client = ignition.getOpcUaClient().withBatchSize(1);
+            assertSame(client, ignition.getOpcUaClient());
+
+            List<NodeId> nodes =
+                    List.of(Identifiers.Server_ServerStatus_CurrentTime, Identifiers.Server_ServerStatus_State);
+            List<DataValue> values = client.readValues(nodes);
+            assertEquals(2, values.size());
+            assertTrue(values.stream().allMatch(value -> value.getStatusCode().isGood()));
+
+            try (IgnitionOpcUaClient.Subscription subscription =
+                    client.subscribe(List.of(Identifiers.Server_ServerStatus_CurrentTime), Duration.ofMillis(100), 2)) {
+                assertTrue(subscription.poll(Duration.ofSeconds(10)).isPresent());
+            }
+        }
+    }
+
+    @Test
+    public void shouldHaveStableConfigurationFingerprint() {
+        IgnitionContainer first = new IgnitionContainer(IgnitionTestImage.IGNITION_8_1_43.getDockerImageName())
+                .withModules(GatewayModule.PERSPECTIVE, GatewayModule.OPC_UA, GatewayModule.VISION)
+                .acceptLicense();
+        IgnitionContainer second = new IgnitionContainer(IgnitionTestImage.IGNITION_8_1_43.getDockerImageName())
+                .withModules(GatewayModule.VISION, GatewayModule.PERSPECTIVE, GatewayModule.OPC_UA)
+                .acceptLicense();
+
+        assertEquals(first.getConfigurationFingerprint(), second.getConfigurationFingerprint());
+    }
+
+    @Test
+    public void shouldFingerprintGatewayBackupByContent(@TempDir Path tempDir) throws IOException {
+        Path backup = Files.write(tempDir.resolve("backup.gwbk"), new byte[] {1, 2, 3});
+        Path copy = Files.write(tempDir.resolve("copy.gwbk"), new byte[] {1, 2, 3});
+        Path changed = Files.write(tempDir.resolve("changed.gwbk"), new byte[] {3, 2, 1});
+
+        String backupFingerprint = new IgnitionContainer(IgnitionTestImage.IGNITION_8_1_43.getDockerImageName())
+                .withGatewayBackup(backup)
+                .getConfigurationFingerprint();
+        String copyFingerprint = new IgnitionContainer(IgnitionTestImage.IGNITION_8_1_43.getDockerImageName())
+                .withGatewayBackup(copy)
+                .getConfigurationFingerprint();
+        String changedFingerprint = new IgnitionContainer(IgnitionTestImage.IGNITION_8_1_43.getDockerImageName())
+                .withGatewayBackup(changed)
+                .getConfigurationFingerprint();
+
+        assertEquals(backupFingerprint, copyFingerprint);
+        assertNotEquals(backupFingerprint, changedFingerprint);
+    }
+
     private OpcUaClient getUnsecureOpcUaClient(IgnitionContainer ignition) throws UaException {
         return OpcUaClient.create(
                 ignition.getOpcUaDiscoveryUrl(),
@@ -0,0 +1,34 @@
+package com.mussonindustrial.testcontainers.ignition;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+public class IgnitionGatewayExtensionTest {
+
+    @IgnitionGateway(image = "inductiveautomation/ignition:8.1.43", acceptLicense = true)
+    static IgnitionContainer shared;
+
+    @IgnitionGateway(image = "inductiveautomation/ignition:8.1.43", acceptLicense = true)
+    IgnitionContainer perTest;
+
+    @Test
+    public void shouldShareGatewaysWithTheSameConfiguration(
+            @IgnitionGateway(image = "inductiveautomation/ignition:8.1.43", acceptLicense = true)
+                    IgnitionContainer parameter) {
+        assertTrue(shared.isRunning());
+        assertSame(shared, perTest);
+        assertSame(shared, parameter);
+    }
+
+    @Test
+    public void shouldStartGatewaysWithDifferentConfigurations(
+            @IgnitionGateway(
+                            image = "inductiveautomation/ignition:8.1.43",
+                            modules = GatewayModule.OPC_UA,
+                            acceptLicense = true)
+                    IgnitionContainer parameter) {
+        assertTrue(parameter.isRunning());
+        assertNotSame(shared, parameter);
+    }
+}
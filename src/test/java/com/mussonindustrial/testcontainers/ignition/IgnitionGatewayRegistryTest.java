@@ -0,0 +1,83 @@
+package com.mussonindustrial.testcontainers.ignition;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Test;
+
+public class IgnitionGatewayRegistryTest {
+
+    @Test
+    public void shouldKeepGatewayUntilRegistryCloses() throws NoSuchFieldException {
+        IgnitionGateway annotation = getAnnotation("concurrent");
+        IgnitionGatewayRegistry registry = new IgnitionGatewayRegistry();
+        try {
+            IgnitionGatewayRegistry.Lease first = registry.acquire(annotation);
+            IgnitionGatewayRegistry.Lease second = registry.acquire(annotation);
+            assertSame(first.getContainer(), second.getContainer());
+
+            first.close();
+            first.close();
+            second.close();
+            assertTrue(second.getContainer().isRunning());
+
+            try (IgnitionGatewayRegistry.Lease third = registry.acquire(annotation)) {
+                assertSame(first.getContainer(), third.getContainer());
+            }
+        } finally {
+            registry.close();
+        }
+    }
+
+    @Test
+    public void shouldLockExclusiveGatewayAndResetAfterEachTest() throws Exception {
+        IgnitionGateway annotation = getAnnotation("exclusive");
+        IgnitionGatewayRegistry registry = new IgnitionGatewayRegistry();
+        try (IgnitionGatewayRegistry.Lease first = registry.acquire(annotation);
+                IgnitionGatewayRegistry.Lease second = registry.acquire(annotation)) {
+            int resets = CountingReset.count.get();
+            first.lockForTest();
+
+            CompletableFuture<Void> waiting = CompletableFuture.runAsync(second::lockForTest);
+            assertThrows(TimeoutException.class, () -> waiting.get(500, TimeUnit.MILLISECONDS));
+
+            first.resetAndUnlock();
+            waiting.get(10, TimeUnit.SECONDS);
+            assertEquals(resets + 1, CountingReset.count.get());
+
+            second.resetAndUnlock();
+            assertEquals(resets + 2, CountingReset.count.get());
+        } finally {
+            registry.close();
+        }
+    }
+
+    private static IgnitionGateway getAnnotation(String field) throws NoSuchFieldException {
+        return Configurations.class.getDeclaredField(field).getAnnotation(IgnitionGateway.class);
+    }
+
+    /** Holds the annotations outside the test class, so the extension doesn't inject them. */
+    private static final class Configurations {
+        @IgnitionGateway(image = "inductiveautomation/ignition:8.1.43", acceptLicense = true)
+        IgnitionContainer concurrent;
+
+        @IgnitionGateway(
+                image = "inductiveautomation/ignition:8.1.43",
+                reset = CountingReset.class,
+                acceptLicense = true)
+        IgnitionContainer exclusive;
+    }
+
+    public static final class CountingReset implements Consumer<IgnitionContainer> {
+        private static final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public void accept(IgnitionContainer container) {
+            count.incrementAndGet();
+        }
+    }
+}
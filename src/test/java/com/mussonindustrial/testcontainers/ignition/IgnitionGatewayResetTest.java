@@ -0,0 +1,56 @@
+package com.mussonindustrial.testcontainers.ignition;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class IgnitionGatewayResetTest {
+
+    @IgnitionGateway(
+            image = "inductiveautomation/ignition:8.1.43",
+            gatewayBackup = "./src/test/resources/backup.gwbk",
+            reset = CountingRestore.class,
+            acceptLicense = true)
+    IgnitionContainer ignition;
+
+    private static IgnitionContainer first;
+
+    @Test
+    @Order(1)
+    public void shouldLeaseGatewayForTest(
+            @IgnitionGateway(
+                            image = "inductiveautomation/ignition:8.1.43",
+                            gatewayBackup = "./src/test/resources/backup.gwbk",
+                            reset = CountingRestore.class,
+                            acceptLicense = true)
+                    IgnitionContainer parameter) {
+        assertSame(ignition, parameter);
+        assertEquals(0, CountingRestore.count.get());
+        first = ignition;
+    }
+
+    @Test
+    @Order(2)
+    public void shouldRestoreGatewayBackupAfterTest() {
+        assertSame(first, ignition);
+        assertEquals(1, CountingRestore.count.get());
+        assertTrue(ignition.isRunning());
+    }
+
+    /** Restores the gateway backup with {@link IgnitionGateway.RestoreGatewayBackup}, counting restores. */
+    public static final class CountingRestore implements Consumer<IgnitionContainer> {
+        private static final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public void accept(IgnitionContainer container) {
+            new IgnitionGateway.RestoreGatewayBackup().accept(container);
+            count.incrementAndGet();
+        }
+    }
+}
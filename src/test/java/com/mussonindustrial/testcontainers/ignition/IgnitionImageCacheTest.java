@@ -0,0 +1,62 @@
+package com.mussonindustrial.testcontainers.ignition;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.github.dockerjava.api.DockerClient;
+import java.util.Map;
+import java.util.UUID;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.utility.DockerImageName;
+
+public class IgnitionImageCacheTest {
+
+    private static final DockerImageName IMAGE = DockerImageName.parse("alpine:3.20");
+
+    private final DockerClient dockerClient = DockerClientFactory.instance().client();
+
+    private final String key = "test-" + UUID.randomUUID();
+
+    @AfterEach
+    public void removeEntries() {
+        dockerClient
+                .listImagesCmd()
+                .withLabelFilter(Map.of(IgnitionImageCache.KEY_LABEL, key))
+                .exec()
+                .forEach(image ->
+                        dockerClient.removeImageCmd(image.getId()).withForce(true).exec());
+    }
+
+    @Test
+    public void shouldMissThenHitCommittedEntry() {
+        IgnitionImageCache cache = new IgnitionImageCache(dockerClient, key, ContentHash.of("first"));
+        assertTrue(cache.find().isEmpty());
+
+        commit(cache);
+
+        assertTrue(cache.find().isPresent());
+        assertEquals(
+                cache.getImageName().asCanonicalNameString(), cache.find().get().getRepoTags()[0]);
+    }
+
+    @Test
+    public void shouldEvictStaleEntryForSameKey() {
+        IgnitionImageCache first = new IgnitionImageCache(dockerClient, key, ContentHash.of("first"));
+        IgnitionImageCache second = new IgnitionImageCache(dockerClient, key, ContentHash.of("second"));
+        commit(first);
+
+        commit(second);
+
+        assertTrue(first.find().isEmpty());
+        assertTrue(second.find().isPresent());
+    }
+
+    private void commit(IgnitionImageCache cache) {
+        try (GenericContainer<?> container = new GenericContainer<>(IMAGE).withCommand("sleep", "60")) {
+            container.start();
+            cache.commit(container.getContainerId());
+        }
+    }
+}
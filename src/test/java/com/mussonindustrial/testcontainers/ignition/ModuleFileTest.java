@@ -0,0 +1,51 @@
+package com.mussonindustrial.testcontainers.ignition;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ModuleFileTest {
+
+    private static final String DESCRIPTOR = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+            + "<modules><module>"
+            + "<id>com.example.demo</id>"
+            + "<name>Demo</name>"
+            + "<version>1.2.0</version>"
+            + "<depends scope=\"G\">com.inductiveautomation.perspective</depends>"
+            + "</module></modules>";
+
+    @Test
+    public void shouldReadModuleDescriptor(@TempDir Path tempDir) throws IOException {
+        Path path = tempDir.resolve("demo.modl");
+        try (OutputStream out = Files.newOutputStream(path);
+                ZipOutputStream zip = new ZipOutputStream(out)) {
+            zip.putNextEntry(new ZipEntry("module.xml"));
+            zip.write(DESCRIPTOR.getBytes(StandardCharsets.UTF_8));
+        }
+
+        ModuleFile module = ModuleFile.read(path);
+
+        assertEquals("com.example.demo", module.getIdentifier());
+        assertEquals("Demo", module.getName());
+        assertEquals("1.2.0", module.getVersion());
+    }
+
+    @Test
+    public void shouldRejectFileWithoutDescriptor(@TempDir Path tempDir) throws IOException {
+        Path path = tempDir.resolve("empty.modl");
+        try (OutputStream out = Files.newOutputStream(path);
+                ZipOutputStream zip = new ZipOutputStream(out)) {
+            zip.putNextEntry(new ZipEntry("gateway.jar"));
+        }
+
+        assertThrows(IOException.class, () -> ModuleFile.read(path));
+    }
+}
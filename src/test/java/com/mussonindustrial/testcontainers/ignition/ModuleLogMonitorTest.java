@@ -0,0 +1,77 @@
+package com.mussonindustrial.testcontainers.ignition;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.testcontainers.containers.output.OutputFrame;
+
+public class ModuleLogMonitorTest {
+
+    private static final String DESCRIPTOR = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+            + "<modules><module>"
+            + "<id>com.example.demo</id>"
+            + "<name>Demo</name>"
+            + "<version>1.2.0</version>"
+            + "</module></modules>";
+
+    @Test
+    public void shouldCompleteWhenModuleStarts(@TempDir Path tempDir) throws IOException {
+        ModuleLogMonitor monitor = new ModuleLogMonitor(readModule(tempDir));
+        accept(monitor, "I [M.ModuleManager] Starting up module 'com.example.demo'\n");
+        assertFalse(monitor.getStarted().isDone());
+
+        accept(monitor, "I [M.ModuleManager] Module 'com.example.demo' started in 120ms\n");
+
+        assertTrue(monitor.getStarted().isDone());
+        assertFalse(monitor.getStarted().isCompletedExceptionally());
+    }
+
+    @Test
+    public void shouldIgnoreErrorWordsInInfoLines(@TempDir Path tempDir) throws IOException {
+        ModuleLogMonitor monitor = new ModuleLogMonitor(readModule(tempDir));
+        accept(monitor, "I [c.e.d.ErrorReporter] Demo error reporting enabled\n");
+
+        assertFalse(monitor.getStarted().isDone());
+    }
+
+    @Test
+    public void shouldFailOnModuleError(@TempDir Path tempDir) throws IOException {
+        ModuleLogMonitor monitor = new ModuleLogMonitor(readModule(tempDir));
+        accept(monitor, "E [M.ModuleManager] Error starting module 'com.example.demo'\n");
+
+        ExecutionException exception =
+                assertThrows(ExecutionException.class, () -> monitor.getStarted().get());
+        assertInstanceOf(IllegalStateException.class, exception.getCause());
+    }
+
+    @Test
+    public void shouldFailOnFaultedModule(@TempDir Path tempDir) throws IOException {
+        ModuleLogMonitor monitor = new ModuleLogMonitor(readModule(tempDir));
+        accept(monitor, "I [M.ModuleManager] Module 'com.example.demo' faulted\n");
+
+        assertTrue(monitor.getStarted().isCompletedExceptionally());
+    }
+
+    private static ModuleFile readModule(Path tempDir) throws IOException {
+        Path path = tempDir.resolve("demo.modl");
+        try (OutputStream out = Files.newOutputStream(path);
+                ZipOutputStream zip = new ZipOutputStream(out)) {
+            zip.putNextEntry(new ZipEntry("module.xml"));
+            zip.write(DESCRIPTOR.getBytes(StandardCharsets.UTF_8));
+        }
+        return ModuleFile.read(path);
+    }
+
+    private static void accept(ModuleLogMonitor monitor, String logs) {
+        monitor.accept(new OutputFrame(OutputFrame.OutputType.STDOUT, logs.getBytes(StandardCharsets.UTF_8)));
+    }
+}
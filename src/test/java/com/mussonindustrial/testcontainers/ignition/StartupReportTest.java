@@ -0,0 +1,45 @@
+package com.mussonindustrial.testcontainers.ignition;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+public class StartupReportTest {
+
+    @Test
+    public void shouldRecordPhasesFromLog() {
+        StartupTimer timer = new StartupTimer();
+        timer.requested();
+        timer.imageResolved();
+        timer.created();
+        timer.starting();
+        timer.acceptLine("wrapper  | --> Wrapper Started as Console");
+        timer.acceptLine("init     | Restoring gateway backup /restore.gwbk");
+        timer.acceptLine("jvm 1    | I [M.ModuleManager] Starting up module 'com.inductiveautomation.opcua'");
+        timer.acceptLine("jvm 1    | I [M.ModuleManager] Module 'com.inductiveautomation.opcua' started in 120ms");
+        timer.acceptLine("jvm 1    | I [IgnitionGateway] Ignition[state=RUNNING] ContextState = RUNNING");
+
+        StartupReport report = timer.ready();
+
+        assertTrue(report.getPhase(StartupReport.IMAGE_PULL).isPresent());
+        assertTrue(report.getPhase(StartupReport.WRAPPER_START).isPresent());
+        assertTrue(report.getPhase(StartupReport.BACKUP_RESTORE).isPresent());
+        assertTrue(report.getPhase(StartupReport.MODULE_PREFIX + "com.inductiveautomation.opcua")
+                .isPresent());
+        assertTrue(report.getPhase(StartupReport.GATEWAY_START).isPresent());
+        assertTrue(report.getPhase(StartupReport.READY_WAIT).isPresent());
+    }
+
+    @Test
+    public void shouldExportJson() {
+        StartupTimer timer = new StartupTimer();
+        timer.requested(DataDirectoryStrategy.tmpfs(512));
+        timer.imageResolved();
+
+        String json = timer.ready().toJson();
+
+        assertTrue(json.startsWith("{\"startedAt\":"));
+        assertTrue(json.contains("\"dataDirectory\":\"tmpfs(size=512MB)\""));
+        assertTrue(json.contains("\"name\":\"image-pull\""));
+    }
+}
@@ -0,0 +1,53 @@
+package com.mussonindustrial.testcontainers.ignition;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class TagLoadGeneratorTest {
+
+    @Test
+    public void shouldCheckFirstAndLastTag() {
+        List<String> read = new ArrayList<>();
+        TagLoadGenerator.checkTagsExist(
+                new MissingTagClient(read, false), List.of("[default]A/Tag0", "[default]A/Tag1", "[default]A/Tag2"));
+
+        assertEquals(List.of("[default]A/Tag0", "[default]A/Tag2"), read);
+    }
+
+    @Test
+    public void shouldFailFastWhenTagsAreMissing() {
+        IllegalStateException exception = assertThrows(
+                IllegalStateException.class,
+                () -> TagLoadGenerator.checkTagsExist(
+                        new MissingTagClient(new ArrayList<>(), true), List.of("[default]A/Tag0")));
+
+        assertTrue(exception.getMessage().contains("[default]A/Tag0"));
+        assertTrue(exception.getMessage().contains("writeTagExport"));
+    }
+
+    private static final class MissingTagClient implements TagClient {
+
+        private final List<String> read;
+
+        private final boolean missing;
+
+        MissingTagClient(List<String> read, boolean missing) {
+            this.read = read;
+            this.missing = missing;
+        }
+
+        @Override
+        public void read(List<String> tagPaths) {
+            read.addAll(tagPaths);
+            if (missing) {
+                throw new IllegalStateException("Tag read failed: Bad_NodeIdUnknown");
+            }
+        }
+
+        @Override
+        public void write(List<String> tagPaths, List<Integer> values) {}
+    }
+}
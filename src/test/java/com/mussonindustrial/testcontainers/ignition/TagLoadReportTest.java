@@ -0,0 +1,45 @@
+package com.mussonindustrial.testcontainers.ignition;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class TagLoadReportTest {
+
+    @Test
+    public void shouldReportThroughputAndPercentiles() {
+        Histogram reads = new Histogram(3);
+        Histogram writes = new Histogram(3);
+        for (int i = 1; i <= 100; i++) {
+            reads.recordValue(i * 1_000_000L);
+            writes.recordValue(i * 2_000_000L);
+        }
+
+        TagLoadReport report = new TagLoadReport(
+                TagLoadTransport.OPC_UA, 10, 2, 100, Duration.ofSeconds(2), reads, writes, 0, null);
+
+        assertEquals(100.0, report.getThroughput(), 0.001);
+        assertEquals(50, report.getReadLatency(50).toMillis());
+        assertEquals(100, report.getWriteLatency(50).toMillis());
+        assertTrue(report.toJson().startsWith("{\"transport\":\"opc-ua\",\"tagCount\":10"));
+        assertTrue(TagLoadReport.toComparison(List.of(report, report)).contains("1.00x"));
+    }
+
+    @Test
+    public void shouldWriteTagExport(@TempDir Path tempDir) throws IOException {
+        Path export = tempDir.resolve("tags.json");
+        TagLoadGenerator.writeTagExport(export, "LoadTest", 3);
+
+        String json = Files.readString(export);
+        assertTrue(json.startsWith("{\"tags\":[{\"name\":\"LoadTest\",\"tagType\":\"Folder\""));
+        assertTrue(json.contains("\"name\":\"Tag2\""));
+        assertFalse(json.contains("\"name\":\"Tag3\""));
+    }
+}